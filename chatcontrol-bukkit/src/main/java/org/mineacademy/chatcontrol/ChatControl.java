@@ -33,6 +33,7 @@ import org.mineacademy.chatcontrol.listener.TabListener;
 import org.mineacademy.chatcontrol.listener.ThirdPartiesListener;
 import org.mineacademy.chatcontrol.listener.chat.AdventureChatListener;
 import org.mineacademy.chatcontrol.listener.chat.LegacyChatListener;
+import org.mineacademy.chatcontrol.model.CachedScript;
 import org.mineacademy.chatcontrol.model.Channel;
 import org.mineacademy.chatcontrol.model.Colors;
 import org.mineacademy.chatcontrol.model.Format;
@@ -43,8 +44,10 @@ import org.mineacademy.chatcontrol.model.ProxyChat;
 import org.mineacademy.chatcontrol.model.WarningPoints;
 import org.mineacademy.chatcontrol.model.WrappedSender;
 import org.mineacademy.chatcontrol.model.db.Database;
+import org.mineacademy.chatcontrol.model.db.LogWriter;
 import org.mineacademy.chatcontrol.model.db.PlayerCache;
 import org.mineacademy.chatcontrol.operator.Groups;
+import org.mineacademy.chatcontrol.operator.OperatorStats;
 import org.mineacademy.chatcontrol.operator.PlayerMessages;
 import org.mineacademy.chatcontrol.operator.Rules;
 import org.mineacademy.chatcontrol.operator.Tag;
@@ -125,6 +128,7 @@ public final class ChatControl extends BukkitPlugin {
 
 		// Update and create tables
 		Database.getInstance().prepareTables();
+		LogWriter.getInstance().start();
 
 		// Reload database cache for online players
 		for (final Player player : Remain.getOnlinePlayers()) {
@@ -202,6 +206,8 @@ public final class ChatControl extends BukkitPlugin {
 		WarningPoints.scheduleTask();
 		Newcomer.scheduleTask();
 		ProxyChat.scheduleTask();
+		OperatorStats.scheduleTask();
+		Database.scheduleTask();
 
 		// Add more info to debug zip feature
 		DebugSubCommand.addDebugLines(
@@ -299,10 +305,20 @@ public final class ChatControl extends BukkitPlugin {
 	@Override
 	protected void onPluginPreReload() {
 
+		// Write queued logs while we are still connected
+		LogWriter.getInstance().flush();
+
 		// Reload database before its instance is replaced by settings being reloaded
 		Database.getInstance().disconnect();
 	}
 
+	@Override
+	protected void onPluginStop() {
+
+		// Write queued logs before the database disconnects, saving what we cannot to the spill file
+		LogWriter.getInstance().shutdown();
+	}
+
 	@Override
 	protected void onPluginReload() {
 		Variables.setDoubleParse(Settings.Performance.SUPPORT_VARIABLES_IN_VARIABLES);
@@ -330,6 +346,7 @@ public final class ChatControl extends BukkitPlugin {
 		SimpleBook.copyDefaults();
 
 		// Load parts of the plugin
+		CachedScript.clear();
 		Variable.loadVariables();
 		Channel.loadChannels();
 		Format.loadFormats();
@@ -57,7 +57,7 @@ public final class SenderCache {
 	private final String senderName;
 
 	/**
-	 * Sender's last communication
+	 * Sender's last communication, guarded by itself since chat is checked off the main thread
 	 */
 	private final Map<LogType, Queue<Output>> lastCommunication = new HashMap<>();
 
@@ -181,7 +181,7 @@ public final class SenderCache {
 	 */
 	@Getter
 	@Setter
-	private boolean joinFloodActivated;
+	private volatile boolean joinFloodActivated;
 
 	/**
 	 * The database loading task which might hang on slow db and we need to clean it manually
@@ -265,14 +265,20 @@ public final class SenderCache {
 	 * maximum of the given limit and matching the given filter
 	 */
 	private List<Output> filterOutputs(final LogType type, @Nullable final Channel channel, final int limit, @Nullable final Predicate<Output> filter) {
-		final Queue<Output> allOutputs = this.lastCommunication.get(type);
+		final Output[] outputArray;
+
+		synchronized (this.lastCommunication) {
+			final Queue<Output> allOutputs = this.lastCommunication.get(type);
+
+			outputArray = allOutputs == null ? null : allOutputs.toArray(new Output[allOutputs.size()]);
+		}
+
 		final List<Output> listedOutputs = new ArrayList<>();
 
-		if (allOutputs != null) {
-			final Output[] outputArray = allOutputs.toArray(new Output[allOutputs.size()]);
+		if (outputArray != null) {
 
 			// Start from the last output
-			for (int i = allOutputs.size() - 1; i >= 0; i--) {
+			for (int i = outputArray.length - 1; i >= 0; i--) {
 				final Output output = outputArray[i];
 
 				// Return if channels set but not equal
@@ -321,11 +327,11 @@ public final class SenderCache {
 	 * Internal caching handler method
 	 */
 	private void record(final LogType type, final String input, @Nullable final Channel channel) {
-		final Queue<Output> queue = this.lastCommunication.getOrDefault(type, new LimitedQueue<>(100));
 		final Output record = new Output(System.currentTimeMillis(), input, channel == null ? null : channel.getName());
 
-		queue.add(record);
-		this.lastCommunication.put(type, queue);
+		synchronized (this.lastCommunication) {
+			this.lastCommunication.computeIfAbsent(type, key -> new LimitedQueue<>(100)).add(record);
+		}
 	}
 
 	/**
@@ -1,12 +1,21 @@
 package org.mineacademy.chatcontrol.command.chatcontrol;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import org.bukkit.entity.Player;
 import org.mineacademy.chatcontrol.command.chatcontrol.ChatControlCommands.MainSubCommand;
+import org.mineacademy.chatcontrol.model.Channel;
 import org.mineacademy.chatcontrol.model.Newcomer;
 import org.mineacademy.chatcontrol.model.Permissions;
+import org.mineacademy.chatcontrol.model.ProxyChat;
+import org.mineacademy.chatcontrol.model.RuleType;
+import org.mineacademy.chatcontrol.model.db.LogWriter;
+import org.mineacademy.chatcontrol.operator.RulePrefilter;
+import org.mineacademy.chatcontrol.operator.Rules;
+import org.mineacademy.chatcontrol.settings.Settings;
 import org.mineacademy.fo.CommonCore;
+import org.mineacademy.fo.MathUtil;
 import org.mineacademy.fo.TimeUtil;
 import org.mineacademy.fo.model.SimpleComponent;
 import org.mineacademy.fo.model.Variables;
@@ -17,7 +26,7 @@ public final class InfoSubCommand extends MainSubCommand {
 	public InfoSubCommand() {
 		super("info");
 
-		this.setMinArguments(2);
+		this.setMinArguments(1);
 		this.setPermission(Permissions.Command.INFO);
 		this.setUsage(Lang.component("command-info-usage"));
 		this.setDescription(Lang.component("command-info-description"));
@@ -33,10 +42,76 @@ public final class InfoSubCommand extends MainSubCommand {
 	 */
 	@Override
 	protected void onCommand() {
-		this.checkUsage(this.args.length >= 2);
-
 		final String param = this.args[0];
 
+		if ("rules".equals(param)) {
+			final Rules.Snapshot snapshot = Rules.getInstance().getSnapshot();
+
+			this.tellNoPrefix("&8" + CommonCore.chatLineSmooth());
+			this.tellNoPrefix(Lang.component("command-info-rules-header", "version", snapshot.getVersion()));
+
+			for (final RuleType type : RuleType.values()) {
+				final RulePrefilter prefilter = snapshot.getPrefilters().get(type);
+
+				this.tellNoPrefix(Lang.component("command-info-rules-type",
+						"type", type.getKey(),
+						"rules", snapshot.getRules().getOrDefault(type, new ArrayList<>()).size(),
+						"checked", snapshot.getOperators().getOrDefault(type, new ArrayList<>()).size(),
+						"indexed", prefilter == null ? 0 : prefilter.getIndexedCount(),
+						"imports", CommonCore.join(snapshot.getImports().getOrDefault(type, new ArrayList<>()))));
+			}
+
+			return;
+		}
+
+		if ("proxy".equals(param)) {
+			final long sent = ProxyChat.getSyncBytesSent();
+			final long saved = ProxyChat.getSyncBytesSaved();
+
+			this.tellNoPrefix("&8" + CommonCore.chatLineSmooth());
+			this.tellNoPrefix(Lang.component("command-info-proxy",
+					"enabled", Settings.Proxy.ENABLED,
+					"sent", sent / 1024,
+					"saved", saved / 1024,
+					"saved_percent", sent + saved == 0 ? 0 : Math.round(saved * 100D / (sent + saved)),
+					"full_syncs", ProxyChat.getFullSyncs()));
+
+			return;
+		}
+
+		if ("log".equals(param)) {
+			final LogWriter writer = LogWriter.getInstance();
+
+			this.tellNoPrefix("&8" + CommonCore.chatLineSmooth());
+			this.tellNoPrefix(Lang.component("command-info-log",
+					"rows_per_second", MathUtil.formatTwoDigits(writer.getRowsPerSecond()),
+					"written", writer.getWritten().sum(),
+					"queue", writer.getQueueSize(),
+					"peak_queue", writer.getPeakQueueSize(),
+					"limit", Settings.Log.QUEUE_LIMIT,
+					"latency_avg", MathUtil.formatTwoDigits(writer.getAverageLatencyMillis()),
+					"latency_max", MathUtil.formatTwoDigits(writer.getMaxLatencyMillis()),
+					"dropped", writer.getDropped().sum(),
+					"spilled", writer.getSpilled().sum()));
+
+			return;
+		}
+
+		if ("render".equals(param)) {
+			final long shared = Channel.getSharedRenders();
+			final long perReceiver = Channel.getPerReceiverRenders();
+
+			this.tellNoPrefix("&8" + CommonCore.chatLineSmooth());
+			this.tellNoPrefix(Lang.component("command-info-render",
+					"shared", shared,
+					"per_receiver", perReceiver,
+					"shared_percent", shared + perReceiver == 0 ? 0 : Math.round(shared * 100D / (shared + perReceiver))));
+
+			return;
+		}
+
+		this.checkUsage(this.args.length >= 2);
+
 		if ("cache".equals(param)) {
 			this.checkUsage(this.args.length > 1);
 
@@ -87,9 +162,9 @@ public final class InfoSubCommand extends MainSubCommand {
 	@Override
 	protected List<String> tabComplete() {
 		if (this.args.length == 1)
-			return this.completeLastWord("cache", "newcomer", "variables");
+			return this.completeLastWord("cache", "newcomer", "variables", "rules", "proxy", "log", "render");
 
-		if (this.args.length == 2)
+		if (this.args.length == 2 && !"rules".equals(this.args[0]) && !"proxy".equals(this.args[0]) && !"log".equals(this.args[0]) && !"render".equals(this.args[0]))
 			return this.completeLastWordPlayerNames();
 
 		return NO_COMPLETE;
@@ -10,6 +10,7 @@ import org.mineacademy.chatcontrol.model.LogType;
 import org.mineacademy.chatcontrol.model.Packets;
 import org.mineacademy.chatcontrol.model.db.Database;
 import org.mineacademy.chatcontrol.model.db.Log;
+import org.mineacademy.chatcontrol.model.db.LogQuery;
 import org.mineacademy.chatcontrol.settings.Settings;
 import org.mineacademy.fo.CommonCore;
 import org.mineacademy.fo.ProxyUtil;
@@ -77,7 +78,7 @@ public final class InternalSubCommand extends MainSubCommand {
 		else if ("book".equals(param)) {
 			this.checkConsole();
 
-			this.syncCallback(() -> Database.getInstance().getLogs(LogType.BOOK), logs -> {
+			this.syncCallback(() -> Database.getInstance().getLogs(new LogQuery().type(LogType.BOOK).contentContains(uuid.toString())), logs -> {
 				boolean found = false;
 
 				for (final Log log : logs) {
@@ -17,6 +17,7 @@ import org.mineacademy.chatcontrol.model.Permissions;
 import org.mineacademy.chatcontrol.model.Players;
 import org.mineacademy.chatcontrol.model.db.Database;
 import org.mineacademy.chatcontrol.model.db.Log;
+import org.mineacademy.chatcontrol.model.db.LogQuery;
 import org.mineacademy.chatcontrol.model.db.Mail;
 import org.mineacademy.chatcontrol.model.db.Mail.Recipient;
 import org.mineacademy.chatcontrol.operator.Groups;
@@ -27,7 +28,6 @@ import org.mineacademy.fo.Common;
 import org.mineacademy.fo.CommonCore;
 import org.mineacademy.fo.SerializeUtilCore.Language;
 import org.mineacademy.fo.TimeUtil;
-import org.mineacademy.fo.ValidCore;
 import org.mineacademy.fo.collection.SerializedMap;
 import org.mineacademy.fo.model.ChatPaginator;
 import org.mineacademy.fo.model.SimpleBook;
@@ -84,58 +84,39 @@ public final class LogSubCommand extends MainSubCommand {
 
 		final String line = this.joinArgs(1);
 
-		this.tellInfo(Lang.component("command-compiling-data"));
-
-		// Read logs async, then send them to player on the main thread
-		this.syncCallback(() -> database.getLogs(), logsRaw -> {
-
-			// Remove those we do not want
-			if (type != null)
-				logsRaw.removeIf(log -> log.getType() != type);
-
-			final List<Log> filteredLogs = new ArrayList<>();
-			final SerializedMap params = this.mapParams(type, line);
-
-			for (final Log log : logsRaw) {
-				if (params.containsKey("player") && !params.getString("player").equalsIgnoreCase(log.getSender()))
-					continue;
-
-				if (params.containsKey("before") && (System.currentTimeMillis() - params.getLong("before")) < log.getDate())
-					continue;
+		final SerializedMap params = this.mapParams(type, line);
+		final long now = System.currentTimeMillis();
 
-				if (params.containsKey("in") && (System.currentTimeMillis() - params.getLong("in")) > log.getDate())
-					continue;
+		final LogQuery query = new LogQuery()
+				.type(type)
+				.operator(params.getString("rule"), params.getString("group"))
+				.limit(10_000);
 
-				if (params.containsKey("channel") && !params.getString("channel").equalsIgnoreCase(log.getChannelName()))
-					continue;
+		if (params.containsKey("player"))
+			query.sender(params.getString("player"));
 
-				if (params.containsKey("label") && !params.getString("label").equalsIgnoreCase(log.getContent().split(" ")[0]))
-					continue;
+		if (params.containsKey("before"))
+			query.to(now - params.getLong("before"));
 
-				if (params.containsKey("to") && !ValidCore.isInList(params.getString("to"), log.getReceivers()))
-					continue;
+		if (params.containsKey("in"))
+			query.from(now - params.getLong("in"));
 
-				if ((!params.containsKey("rule") && log.getRuleName() != null) || (!params.containsKey("group") && log.getRuleGroupName() != null))
-					continue;
+		if (params.containsKey("channel"))
+			query.channel(params.getString("channel"));
 
-				if ((params.containsKey("rule") && log.getRuleName() == null) || (params.containsKey("group") && log.getRuleGroupName() == null))
-					continue;
+		if (params.containsKey("label"))
+			query.label(params.getString("label"));
 
-				if (params.containsKey("rule") && "*".equals(params.getString("rule"))) {
-					// ok
-				} else if (params.containsKey("rule") && !params.getString("rule").equalsIgnoreCase(log.getRuleName()))
-					continue;
+		if (params.containsKey("to"))
+			query.receiver(params.getString("to"));
 
-				if (params.containsKey("group") && "*".equals(params.getString("group"))) {
-					// ok
-				} else if (params.containsKey("group") && !params.getString("group").equalsIgnoreCase(log.getRuleGroupName()))
-					continue;
+		this.tellInfo(Lang.component("command-compiling-data"));
 
-				filteredLogs.add(log);
-			}
+		// Read logs async, then send them to player on the main thread
+		this.syncCallback(() -> database.getLogs(query), logs -> {
 
-			final List<Log> logs = new ArrayList<>();
-			this.copyLastEntries(filteredLogs, logs, 10_000);
+			// Logs come newest first, show them in chronological order
+			Collections.reverse(logs);
 
 			this.checkBoolean(!logs.isEmpty(), Lang.component("command-log-no-logs-" + (type != null ? "of-type" : "plain"), "type", type != null ? type.getLangKey() : ""));
 
@@ -262,16 +243,6 @@ public final class LogSubCommand extends MainSubCommand {
 		});
 	}
 
-	private void copyLastEntries(final List<Log> rawLogs, final List<Log> logs, final int numEntries) {
-		final int entriesToCopy = Math.min(numEntries, rawLogs.size());
-		final int startIndex = rawLogs.size() - entriesToCopy;
-
-		logs.clear();
-
-		for (int i = startIndex; i < rawLogs.size(); i++)
-			logs.add(rawLogs.get(i));
-	}
-
 	/*
 	 * Map chat key:value pairs parameters
 	 */
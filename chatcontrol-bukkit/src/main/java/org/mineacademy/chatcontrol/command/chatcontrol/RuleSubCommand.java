@@ -15,7 +15,10 @@ import org.bukkit.entity.Player;
 import org.mineacademy.chatcontrol.command.chatcontrol.ChatControlCommands.MainSubCommand;
 import org.mineacademy.chatcontrol.model.Permissions;
 import org.mineacademy.chatcontrol.model.RuleType;
+import org.mineacademy.chatcontrol.operator.Group;
 import org.mineacademy.chatcontrol.operator.Groups;
+import org.mineacademy.chatcontrol.operator.Operator;
+import org.mineacademy.chatcontrol.operator.OperatorStats;
 import org.mineacademy.chatcontrol.operator.Rule;
 import org.mineacademy.chatcontrol.operator.Rules;
 import org.mineacademy.fo.ChatUtil;
@@ -138,6 +141,97 @@ public final class RuleSubCommand extends MainSubCommand {
 					.send(this.audience);
 		}
 
+		else if ("timing".equals(param)) {
+			final List<Rule> rules = new ArrayList<>();
+
+			for (final RuleType type : RuleType.values())
+				for (final Rule rule : Rules.getInstance().getRules(type))
+					if (rule.getStats().getEvaluations().sum() > 0)
+						rules.add(rule);
+
+			this.checkBoolean(!rules.isEmpty(), Lang.component("command-rule-timing-no-data"));
+
+			rules.sort((first, second) -> Long.compare(second.getStats().getEvaluationNanos().sum(), first.getStats().getEvaluationNanos().sum()));
+
+			final List<SimpleComponent> lines = new ArrayList<>();
+
+			for (final Rule rule : rules) {
+				final OperatorStats stats = rule.getStats();
+				final long nanos = stats.getEvaluationNanos().sum();
+				final long evaluations = stats.getEvaluations().sum();
+				final String match = rule.getMatch();
+
+				lines.add(Lang.component("command-rule-timing-line",
+						"rule", rule.getName().isEmpty() ? (match.length() > 30 ? match.substring(0, 30) + "..." : match) : rule.getName(),
+						"type", rule.getType().getKey(),
+						"total", MathUtil.formatTwoDigits(nanos / 1_000_000D),
+						"average", MathUtil.formatTwoDigits(nanos / 1_000D / evaluations),
+						"evaluations", evaluations,
+						"timeouts", rule.getRegexTimeouts().get())
+						.onHoverLegacy(rule.toDisplayableString().split("\n")));
+			}
+
+			new ChatPaginator(15)
+					.setFoundationHeader(Lang.legacy("command-rule-timing-header", "amount", rules.size()))
+					.setPages(lines)
+					.send(this.audience);
+		}
+
+		else if ("stats".equals(param)) {
+			final List<Operator> operators = new ArrayList<>();
+
+			for (final RuleType type : RuleType.values())
+				for (final Rule rule : Rules.getInstance().getRules(type))
+					if (rule.getStats().getEvaluations().sum() > 0)
+						operators.add(rule);
+
+			for (final String groupName : Groups.getInstance().getGroupNames()) {
+				final Group group = Groups.getInstance().findGroup(groupName);
+
+				if (group.getStats().getEvaluations().sum() > 0)
+					operators.add(group);
+			}
+
+			this.checkBoolean(!operators.isEmpty(), Lang.component("command-rule-stats-no-data"));
+
+			operators.sort((first, second) -> Long.compare(second.getStats().getEvaluationNanos().sum(), first.getStats().getEvaluationNanos().sum()));
+
+			final List<SimpleComponent> lines = new ArrayList<>();
+
+			for (final Operator operator : operators) {
+				final OperatorStats stats = operator.getStats();
+				final String name;
+				final String kind;
+
+				if (operator instanceof Rule) {
+					final Rule rule = (Rule) operator;
+					final String match = rule.getMatch();
+
+					name = rule.getName().isEmpty() ? (match.length() > 30 ? match.substring(0, 30) + "..." : match) : rule.getName();
+					kind = rule.getType().getKey();
+
+				} else {
+					name = ((Group) operator).getGroup();
+					kind = "group";
+				}
+
+				lines.add(Lang.component("command-rule-stats-line",
+						"name", name,
+						"type", kind,
+						"evaluations", stats.getEvaluations().sum(),
+						"matches", stats.getMatches().sum(),
+						"total", MathUtil.formatTwoDigits(stats.getEvaluationNanos().sum() / 1_000_000D),
+						"p99", MathUtil.formatTwoDigits(stats.getEvaluationPercentile(0.99) / 1_000D),
+						"execution", MathUtil.formatTwoDigits(stats.getExecutionNanos().sum() / 1_000_000D))
+						.onHoverLegacy(operator.toDisplayableString().split("\n")));
+			}
+
+			new ChatPaginator(15)
+					.setFoundationHeader(Lang.legacy("command-rule-stats-header", "amount", operators.size()))
+					.setPages(lines)
+					.send(this.audience);
+		}
+
 		else if ("reload".equals(param)) {
 			Rules.getInstance().load();
 
@@ -640,7 +734,7 @@ public final class RuleSubCommand extends MainSubCommand {
 	@Override
 	protected List<String> tabComplete() {
 		if (this.args.length == 1)
-			return this.completeLastWord("info", "toggle", "create", "import", "list", "reload");
+			return this.completeLastWord("info", "toggle", "create", "import", "list", "timing", "stats", "reload");
 
 		if (this.args.length == 2)
 			if ("list".equals(this.args[0]))
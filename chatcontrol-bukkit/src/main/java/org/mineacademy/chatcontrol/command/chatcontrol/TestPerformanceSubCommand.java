@@ -2,11 +2,18 @@ package org.mineacademy.chatcontrol.command.chatcontrol;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 
+import org.mineacademy.chatcontrol.SyncedCache;
 import org.mineacademy.chatcontrol.command.chatcontrol.ChatControlCommands.MainSubCommand;
 import org.mineacademy.chatcontrol.model.Format;
+import org.mineacademy.chatcontrol.model.PlaceholderPrefix;
 import org.mineacademy.chatcontrol.model.WrappedSender;
+import org.mineacademy.chatcontrol.operator.PlayerMessageTemplate;
+import org.mineacademy.fo.CommonCore;
 import org.mineacademy.fo.debug.LagCatcher;
+import org.mineacademy.fo.model.SimpleComponent;
+import org.mineacademy.fo.model.Variables;
 
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
@@ -16,7 +23,7 @@ public final class TestPerformanceSubCommand extends MainSubCommand {
 	public TestPerformanceSubCommand() {
 		super("testperf");
 
-		this.setDescription("[Debug] Runs a format 500x and measures time taken.");
+		this.setDescription("[Debug] Runs a format or a message 500x and measures time taken.");
 		this.setUsage("<" + Arrays.stream(Param.values()).map(Param::getKey).reduce((a, b) -> a + "/" + b).get() + "> <value>");
 		this.setMinArguments(2);
 		this.setPermission("chatcontrol.command.testperf");
@@ -39,12 +46,52 @@ public final class TestPerformanceSubCommand extends MainSubCommand {
 		if (param == Param.FORMAT) {
 			final Format format = Format.parse(value);
 
-			final long nano = System.nanoTime();
+			long nano = System.nanoTime();
+
+			for (int i = 0; i < 500; i++)
+				format.buildUncompiled(wrapped);
+
+			final long uncompiled = System.nanoTime() - nano;
+			LagCatcher.took(nano, "building format without compiled parts");
+
+			nano = System.nanoTime();
 
 			for (int i = 0; i < 500; i++)
 				format.build(wrapped);
 
+			final long compiled = System.nanoTime() - nano;
 			LagCatcher.took(nano, "building format");
+
+			this.tellInfo("Per build: " + uncompiled / 500 + " ns before, " + compiled / 500 + " ns with compiled parts.");
+		}
+
+		else if (param == Param.MESSAGE) {
+			final String message = this.joinArgs(1);
+			final Format format = Format.parse("{message}");
+
+			// The sender stands in for each of the 500 receivers
+			final Map<String, Object> receiverPlaceholders = SyncedCache.getPlaceholders(wrapped.getName(), wrapped.getUniqueId(), PlaceholderPrefix.RECEIVER);
+
+			long nano = System.nanoTime();
+
+			for (int i = 0; i < 500; i++) {
+				final String replaced = Variables.builder(wrapped.getAudience()).placeholders(receiverPlaceholders).replaceLegacy(message);
+
+				format.build(wrapped, CommonCore.newHashMap("message", replaced));
+			}
+
+			LagCatcher.took(nano, "rendering message for each receiver");
+
+			nano = System.nanoTime();
+
+			final PlayerMessageTemplate template = PlayerMessageTemplate.compile(message, text -> Variables.builder(wrapped.getAudience()).replaceLegacy(text), true);
+			SimpleComponent shared = null;
+
+			for (int i = 0; i < 500; i++)
+				if (template.isReceiverDependent() || shared == null)
+					shared = format.build(wrapped, CommonCore.newHashMap("message", template.render(receiverPlaceholders)));
+
+			LagCatcher.took(nano, "rendering message once (" + (template.isReceiverDependent() ? "receiver variables spliced" : "shared") + ")");
 		}
 	}
 
@@ -76,7 +123,8 @@ public final class TestPerformanceSubCommand extends MainSubCommand {
 	@RequiredArgsConstructor
 	enum Param {
 
-		FORMAT("format");
+		FORMAT("format"),
+		MESSAGE("message");
 
 		@Getter
 		private final String key;
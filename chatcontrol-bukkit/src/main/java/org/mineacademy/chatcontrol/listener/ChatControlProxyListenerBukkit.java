@@ -1,5 +1,6 @@
 package org.mineacademy.chatcontrol.listener;
 
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -9,7 +10,9 @@ import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.TimeUnit;
 
+import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
+import org.bukkit.plugin.messaging.PluginMessageListenerRegistration;
 import org.mineacademy.chatcontrol.SenderCache;
 import org.mineacademy.chatcontrol.SyncedCache;
 import org.mineacademy.chatcontrol.model.Announce;
@@ -20,6 +23,9 @@ import org.mineacademy.chatcontrol.model.MuteType;
 import org.mineacademy.chatcontrol.model.Packets;
 import org.mineacademy.chatcontrol.model.Players;
 import org.mineacademy.chatcontrol.model.ProxyChat;
+import org.mineacademy.chatcontrol.model.ProxyCodec;
+import org.mineacademy.chatcontrol.model.ProxyMessageBatch;
+import org.mineacademy.chatcontrol.model.ProxyMessageParts;
 import org.mineacademy.chatcontrol.model.Spy;
 import org.mineacademy.chatcontrol.model.SyncType;
 import org.mineacademy.chatcontrol.model.ToggleType;
@@ -40,6 +46,7 @@ import org.mineacademy.fo.model.HookManager;
 import org.mineacademy.fo.model.SimpleComponent;
 import org.mineacademy.fo.model.SimpleSound;
 import org.mineacademy.fo.model.SimpleTime;
+import org.mineacademy.fo.platform.BukkitPlugin;
 import org.mineacademy.fo.platform.Platform;
 import org.mineacademy.fo.proxy.message.IncomingMessage;
 import org.mineacademy.fo.remain.CompMaterial;
@@ -58,6 +65,11 @@ public final class ChatControlProxyListenerBukkit extends org.mineacademy.fo.pro
 	@Getter
 	private final static ChatControlProxyListenerBukkit instance = new ChatControlProxyListenerBukkit();
 
+	/**
+	 * The channel proxy sends its packets on
+	 */
+	private static final String PROXY_CHANNEL = "BungeeCord";
+
 	/**
 	 * Stores server name to alias map updated from upstream
 	 */
@@ -100,7 +112,7 @@ public final class ChatControlProxyListenerBukkit extends org.mineacademy.fo.pro
 		if (!Settings.Proxy.ENABLED)
 			return;
 
-		if (this.packet != ChatControlProxyMessage.SYNCED_CACHE_BY_UUID && this.packet != ChatControlProxyMessage.SYNCED_CACHE_HEADER)
+		if (this.packet != ChatControlProxyMessage.SYNCED_CACHE_BY_UUID && this.packet != ChatControlProxyMessage.SYNCED_CACHE_BINARY && this.packet != ChatControlProxyMessage.SYNCED_CACHE_HEADER)
 			Debugger.debug("proxy", "Received proxy packet " + this.packet + " from server " + this.server);
 
 		if (this.packet == ChatControlProxyMessage.CHANNEL) {
@@ -184,6 +196,29 @@ public final class ChatControlProxyListenerBukkit extends org.mineacademy.fo.pro
 			SyncedCache.uploadClusterFromUids(syncType, mergedData);
 		}
 
+		else if (this.packet == ChatControlProxyMessage.SYNCED_CACHE_BINARY) {
+			final Map<SyncType, SerializedMap> mergedData = ProxyCodec.decodeSyncedCache(input.readString());
+
+			for (final Map.Entry<SyncType, SerializedMap> entry : mergedData.entrySet())
+				SyncedCache.uploadClusterFromUids(entry.getKey(), entry.getValue());
+		}
+
+		else if (this.packet == ChatControlProxyMessage.CODEC_HANDSHAKE)
+			ProxyChat.onCodecHandshake(Integer.parseInt(input.readString()));
+
+		else if (this.packet == ChatControlProxyMessage.MESSAGE_PART) {
+			final UUID messageId = input.readUUID();
+			final int index = Integer.parseInt(input.readString());
+			final int count = Integer.parseInt(input.readString());
+			final byte[] data = ProxyMessageParts.getInstance().receive(messageId, index, count, input.readString());
+
+			if (data != null)
+				this.dispatch(Arrays.asList(data));
+		}
+
+		else if (this.packet == ChatControlProxyMessage.BATCH)
+			this.dispatch(ProxyMessageBatch.decode(input.readString()));
+
 		else if (this.packet == ChatControlProxyMessage.DATABASE_UPDATE) {
 			final String originServerName = input.readString();
 			final UUID uniqueId = input.readUUID();
@@ -392,6 +427,38 @@ public final class ChatControlProxyListenerBukkit extends org.mineacademy.fo.pro
 		return false;
 	}
 
+	/*
+	 * Feed raw packets in order to our own listener of the channel proxy sends on right away, so that packets
+	 * which arrive after them are handled after them too. We skip the messenger so that other plugins on the
+	 * channel never see our packets, and restore the state of the packet being read once done.
+	 */
+	private void dispatch(final List<byte[]> packets) {
+		final Collection<? extends Player> players = Remain.getOnlinePlayers();
+
+		// Proxy only reaches us through a connected player, the sender itself is read from the packet
+		if (players.isEmpty()) {
+			CommonCore.log("Dropping " + packets.size() + " proxy packet(s) from " + this.server + " since no player is online to receive them through.");
+
+			return;
+		}
+
+		final Player player = players.iterator().next();
+		final ChatControlProxyMessage packet = this.packet;
+		final String server = this.server;
+		final UUID senderUid = this.senderUid;
+
+		try {
+			for (final PluginMessageListenerRegistration registration : Bukkit.getMessenger().getIncomingChannelRegistrations(BukkitPlugin.getInstance(), PROXY_CHANNEL))
+				for (final byte[] data : packets)
+					registration.getListener().onPluginMessageReceived(PROXY_CHANNEL, player, data);
+
+		} finally {
+			this.packet = packet;
+			this.server = server;
+			this.senderUid = senderUid;
+		}
+	}
+
 	/*
 	 * Sends a toast message to the player given he is not ignoring it nor the sender
 	 */
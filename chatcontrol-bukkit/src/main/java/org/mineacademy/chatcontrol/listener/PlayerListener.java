@@ -27,12 +27,14 @@ import org.bukkit.inventory.meta.ItemMeta;
 import org.mineacademy.chatcontrol.SenderCache;
 import org.mineacademy.chatcontrol.model.Channel;
 import org.mineacademy.chatcontrol.model.Colors;
+import org.mineacademy.chatcontrol.model.Format;
 import org.mineacademy.chatcontrol.model.Mute;
 import org.mineacademy.chatcontrol.model.Newcomer;
 import org.mineacademy.chatcontrol.model.Permissions;
 import org.mineacademy.chatcontrol.model.PlayerMessageType;
 import org.mineacademy.chatcontrol.model.Players;
 import org.mineacademy.chatcontrol.model.ProxyChat;
+import org.mineacademy.chatcontrol.model.RecentMessages;
 import org.mineacademy.chatcontrol.model.RuleType;
 import org.mineacademy.chatcontrol.model.Spy;
 import org.mineacademy.chatcontrol.model.ToggleType;
@@ -126,6 +128,9 @@ public final class PlayerListener implements Listener {
 		if (Newcomer.isNewcomer(player))
 			Newcomer.givePermissions(player);
 
+		// Fetch chat images of this player in the background before he chats
+		Format.prewarmImages(Platform.toPlayer(player));
+
 		// Disable Bukkit message if we handle that
 		if (Settings.Messages.APPLY_ON.contains(PlayerMessageType.JOIN))
 			event.setJoinMessage(null);
@@ -273,6 +278,8 @@ public final class PlayerListener implements Listener {
 		final Player player = event.getPlayer();
 		final SenderCache senderCache = SenderCache.from(player);
 
+		RecentMessages.getInstance().remove(player.getUniqueId());
+
 		if (senderCache.getCacheLoadingTask() != null) {
 			final Task task = senderCache.getCacheLoadingTask();
 
@@ -0,0 +1,564 @@
+package org.mineacademy.chatcontrol.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.UnaryOperator;
+import java.util.regex.Pattern;
+
+import javax.annotation.Nullable;
+
+import org.mineacademy.fo.CommonCore;
+import org.mineacademy.fo.model.JavaScriptExecutor;
+import org.mineacademy.fo.platform.FoundationPlayer;
+
+import lombok.AccessLevel;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * A JavaScript from settings parsed once and kept by its source.
+ *
+ * String literals holding variables are passed to the engine as bindings so that
+ * the source stays the same for every message and the engine can reuse what it compiled.
+ * Simple comparisons such as "{player_world}" == "world" are evaluated without the engine.
+ */
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+public final class CachedScript {
+
+	/**
+	 * How many scripts we keep at most, the least recently used are removed first
+	 */
+	private static final int CACHE_SIZE = 512;
+
+	/**
+	 * Parsed scripts by their source
+	 */
+	private static final Map<String, CachedScript> cache = Collections.synchronizedMap(new LinkedHashMap<String, CachedScript>(16, 0.75F, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(final Map.Entry<String, CachedScript> eldest) {
+			return this.size() > CACHE_SIZE;
+		}
+	});
+
+	/**
+	 * The name of bindings holding string literals, followed by their index
+	 */
+	private static final String BINDING_PREFIX = "chc_literal_";
+
+	/**
+	 * Operators the fast path understands, longest first
+	 */
+	private static final String[] OPERATORS = { "===", "!==", "==", "!=", "<=", ">=", "&&", "||", "<", ">" };
+
+	/**
+	 * A number as written in JavaScript source
+	 */
+	private static final Pattern NUMBER = Pattern.compile("-?\\d+(\\.\\d+)?");
+
+	/**
+	 * A single variable such as {player_health}
+	 */
+	private static final Pattern VARIABLE = Pattern.compile("\\{[^{}\\s]+\\}");
+
+	/**
+	 * A binding name such as value or killer
+	 */
+	private static final Pattern IDENTIFIER = Pattern.compile("[a-zA-Z_$][a-zA-Z0-9_$]*");
+
+	/**
+	 * The script as written in settings
+	 */
+	private final String rawSource;
+
+	/**
+	 * The script with string literals holding variables replaced by bindings
+	 */
+	private final String source;
+
+	/**
+	 * The content of string literals replaced by bindings, in the order of their index
+	 */
+	private final List<String> literals;
+
+	/**
+	 * Comparisons joined by || of comparisons joined by &&, null if the engine is needed
+	 */
+	@Nullable
+	private final List<List<Clause>> expression;
+
+	/**
+	 * Run the script for the given player
+	 *
+	 * @param replacer the function replacing variables in the script
+	 * @param audience
+	 * @return
+	 */
+	public Object run(final UnaryOperator<String> replacer, @Nullable final FoundationPlayer audience) {
+		final Boolean result = this.evaluate(replacer, Collections.emptyMap());
+
+		if (result != null)
+			return result;
+
+		// We can only bind literals when we bind the player ourselves, let Foundation handle the rest
+		if (this.literals.isEmpty() || audience == null || !audience.isPlayer())
+			return JavaScriptExecutor.run(replacer.apply(this.rawSource), audience);
+
+		return this.runEngine(replacer, CommonCore.newHashMap("player", audience.getPlayer()));
+	}
+
+	/**
+	 * Run the script with the given bindings
+	 *
+	 * @param replacer the function replacing variables in the script
+	 * @param bindings
+	 * @return
+	 */
+	public Object run(final UnaryOperator<String> replacer, final Map<String, Object> bindings) {
+		final Boolean result = this.evaluate(replacer, bindings);
+
+		return result != null ? result : this.runEngine(replacer, bindings);
+	}
+
+	/*
+	 * Run the script through the JavaScript engine with literals bound
+	 */
+	private Object runEngine(final UnaryOperator<String> replacer, final Map<String, Object> bindings) {
+		if (this.literals.isEmpty())
+			return JavaScriptExecutor.run(replacer.apply(this.source), bindings);
+
+		final Map<String, Object> allBindings = new HashMap<>(bindings);
+
+		for (int i = 0; i < this.literals.size(); i++)
+			allBindings.put(BINDING_PREFIX + i, replacer.apply(this.literals.get(i)));
+
+		return JavaScriptExecutor.run(replacer.apply(this.source), allBindings);
+	}
+
+	/*
+	 * Evaluate the script without the engine, returning null if it is too complex
+	 */
+	@Nullable
+	private Boolean evaluate(final UnaryOperator<String> replacer, final Map<String, Object> bindings) {
+		if (this.expression == null)
+			return null;
+
+		for (final List<Clause> conjunction : this.expression) {
+			boolean matches = true;
+
+			for (final Clause clause : conjunction) {
+				final Boolean result = clause.evaluate(replacer, bindings);
+
+				if (result == null)
+					return null;
+
+				if (!result) {
+					matches = false;
+
+					break;
+				}
+			}
+
+			if (matches)
+				return true;
+		}
+
+		return false;
+	}
+
+	/**
+	 * Return the parsed script for the given source, parsing it the first time
+	 *
+	 * @param source
+	 * @return
+	 */
+	public static CachedScript of(@NonNull final String source) {
+		CachedScript script = cache.get(source);
+
+		if (script == null) {
+			script = parse(source);
+
+			cache.put(source, script);
+		}
+
+		return script;
+	}
+
+	/**
+	 * Forget all parsed scripts, called on reload
+	 */
+	public static void clear() {
+		cache.clear();
+	}
+
+	/*
+	 * Parse the script and extract string literals holding variables
+	 */
+	private static CachedScript parse(final String rawSource) {
+		final List<String> literals = new ArrayList<>();
+		String source = rawSource;
+
+		// Without comments, regular expressions or escapes every quote pair is a string literal
+		if (rawSource.indexOf('/') == -1 && rawSource.indexOf('\\') == -1 && rawSource.indexOf('`') == -1) {
+			final StringBuilder builder = new StringBuilder(rawSource.length());
+
+			for (int i = 0; i < rawSource.length(); i++) {
+				final char c = rawSource.charAt(i);
+				final int end = c == '"' || c == '\'' ? rawSource.indexOf(c, i + 1) : -1;
+
+				if (end == -1) {
+					builder.append(c);
+
+					continue;
+				}
+
+				final String content = rawSource.substring(i + 1, end);
+
+				if (content.indexOf('{') != -1 || content.indexOf('%') != -1) {
+					builder.append(BINDING_PREFIX).append(literals.size());
+					literals.add(content);
+
+				} else
+					builder.append(rawSource, i, end + 1);
+
+				i = end;
+			}
+
+			source = builder.toString();
+		}
+
+		return new CachedScript(rawSource, source, literals, parseExpression(rawSource));
+	}
+
+	/*
+	 * Parse comparisons joined by && and ||, return null for anything else
+	 */
+	@Nullable
+	private static List<List<Clause>> parseExpression(final String source) {
+		final List<String> tokens = tokenize(source);
+
+		if (tokens == null || tokens.isEmpty())
+			return null;
+
+		final List<List<Clause>> expression = new ArrayList<>();
+		List<Clause> conjunction = new ArrayList<>();
+		int index = 0;
+
+		while (true) {
+			final Operand left = Operand.parse(tokens.get(index++));
+
+			if (left == null)
+				return null;
+
+			if (index < tokens.size() && isComparator(tokens.get(index))) {
+				final String comparator = tokens.get(index++);
+
+				if (index == tokens.size())
+					return null;
+
+				final Operand right = Operand.parse(tokens.get(index++));
+
+				if (right == null)
+					return null;
+
+				conjunction.add(new Clause(left, comparator, right));
+
+			} else
+				conjunction.add(new Clause(left, null, null));
+
+			if (index == tokens.size())
+				break;
+
+			final String joiner = tokens.get(index++);
+
+			if (index == tokens.size())
+				return null;
+
+			if ("||".equals(joiner)) {
+				expression.add(conjunction);
+				conjunction = new ArrayList<>();
+
+			} else if (!"&&".equals(joiner))
+				return null;
+		}
+
+		expression.add(conjunction);
+
+		return expression;
+	}
+
+	/*
+	 * Split the script into literals, operators and words, return null on anything else
+	 */
+	@Nullable
+	private static List<String> tokenize(String source) {
+		final List<String> tokens = new ArrayList<>();
+
+		source = source.trim();
+
+		if (source.endsWith(";"))
+			source = source.substring(0, source.length() - 1);
+
+		int index = 0;
+
+		while (index < source.length()) {
+			final char c = source.charAt(index);
+
+			if (Character.isWhitespace(c)) {
+				index++;
+
+				continue;
+			}
+
+			if (c == '"' || c == '\'') {
+				final int end = source.indexOf(c, index + 1);
+
+				if (end == -1 || source.substring(index, end).indexOf('\\') != -1)
+					return null;
+
+				tokens.add(source.substring(index, end + 1));
+				index = end + 1;
+
+				continue;
+			}
+
+			final String operator = findOperator(source, index);
+
+			if (operator != null) {
+				tokens.add(operator);
+				index += operator.length();
+
+				continue;
+			}
+
+			final int start = index;
+
+			while (index < source.length()) {
+				final char next = source.charAt(index);
+
+				if (next == '{') {
+					final int end = source.indexOf('}', index);
+
+					if (end == -1)
+						return null;
+
+					index = end + 1;
+					continue;
+				}
+
+				if (Character.isWhitespace(next) || "=!<>&|\"'".indexOf(next) != -1)
+					break;
+
+				if (!Character.isLetterOrDigit(next) && next != '.' && next != '_' && next != '$' && next != '-')
+					return null;
+
+				index++;
+			}
+
+			if (index == start)
+				return null;
+
+			tokens.add(source.substring(start, index));
+		}
+
+		return tokens;
+	}
+
+	/*
+	 * Return the operator starting at the given index or null
+	 */
+	@Nullable
+	private static String findOperator(final String source, final int index) {
+		for (final String operator : OPERATORS)
+			if (source.startsWith(operator, index))
+				return operator;
+
+		return null;
+	}
+
+	/*
+	 * Return true if the token compares two operands
+	 */
+	private static boolean isComparator(final String token) {
+		return !"&&".equals(token) && !"||".equals(token) && findOperator(token, 0) != null;
+	}
+
+	/*
+	 * Convert a replaced variable the way JavaScript would read it as code, or return null
+	 */
+	@Nullable
+	private static Object toCodeValue(final String value) {
+		if ("true".equals(value) || "false".equals(value))
+			return Boolean.valueOf(value);
+
+		if (NUMBER.matcher(value).matches())
+			return Double.parseDouble(value);
+
+		return null;
+	}
+
+	/*
+	 * One operand or a comparison of two
+	 */
+	@RequiredArgsConstructor
+	private static final class Clause {
+
+		private final Operand left;
+
+		@Nullable
+		private final String comparator;
+
+		@Nullable
+		private final Operand right;
+
+		/*
+		 * Return the result or null if the engine is needed
+		 */
+		@Nullable
+		Boolean evaluate(final UnaryOperator<String> replacer, final Map<String, Object> bindings) {
+			final Object left = this.left.evaluate(replacer, bindings);
+
+			if (this.comparator == null)
+				return left instanceof Boolean ? (Boolean) left : null;
+
+			final Object right = this.right.evaluate(replacer, bindings);
+
+			// Leave type coercion to the engine
+			if (left == null || right == null || left.getClass() != right.getClass())
+				return null;
+
+			final boolean equal = left instanceof Double ? ((Double) left).doubleValue() == ((Double) right).doubleValue() : left.equals(right);
+
+			switch (this.comparator) {
+				case "==":
+				case "===":
+					return equal;
+
+				case "!=":
+				case "!==":
+					return !equal;
+			}
+
+			final int compared;
+
+			if (left instanceof Double) {
+				final double leftNumber = (Double) left;
+				final double rightNumber = (Double) right;
+
+				// Every comparison with NaN is false
+				if (Double.isNaN(leftNumber) || Double.isNaN(rightNumber))
+					return false;
+
+				compared = Double.compare(leftNumber, rightNumber);
+
+			} else if (left instanceof String)
+				compared = ((String) left).compareTo((String) right);
+
+			else
+				return null;
+
+			switch (this.comparator) {
+				case "<":
+					return compared < 0;
+
+				case ">":
+					return compared > 0;
+
+				case "<=":
+					return compared <= 0;
+
+				case ">=":
+					return compared >= 0;
+			}
+
+			return null;
+		}
+	}
+
+	/*
+	 * A string literal, a constant, a variable or a binding
+	 */
+	@RequiredArgsConstructor
+	private static final class Operand {
+
+		/*
+		 * The kind of this operand
+		 */
+		private final Kind kind;
+
+		/*
+		 * The literal content, the variable, the binding name or the constant
+		 */
+		private final Object value;
+
+		/*
+		 * Return the value as JavaScript would see it or null if the engine is needed
+		 */
+		@Nullable
+		Object evaluate(final UnaryOperator<String> replacer, final Map<String, Object> bindings) {
+			switch (this.kind) {
+				case LITERAL: {
+					final String content = (String) this.value;
+
+					return content.indexOf('{') != -1 || content.indexOf('%') != -1 ? replacer.apply(content) : content;
+				}
+
+				case CONSTANT:
+					return this.value;
+
+				case VARIABLE:
+					return toCodeValue(replacer.apply((String) this.value));
+
+				case BINDING: {
+					final Object bound = bindings.get(this.value);
+
+					if (bound instanceof Number)
+						return ((Number) bound).doubleValue();
+
+					return bound instanceof String || bound instanceof Boolean ? bound : null;
+				}
+			}
+
+			return null;
+		}
+
+		/*
+		 * Parse the token or return null if the engine is needed
+		 */
+		@Nullable
+		static Operand parse(final String token) {
+			final char first = token.charAt(0);
+
+			if (first == '"' || first == '\'')
+				return new Operand(Kind.LITERAL, token.substring(1, token.length() - 1));
+
+			if (VARIABLE.matcher(token).matches())
+				return new Operand(Kind.VARIABLE, token);
+
+			final Object constant = toCodeValue(token);
+
+			if (constant != null)
+				return new Operand(Kind.CONSTANT, constant);
+
+			if (IDENTIFIER.matcher(token).matches())
+				return new Operand(Kind.BINDING, token);
+
+			return null;
+		}
+	}
+
+	/*
+	 * What an operand holds
+	 */
+	private enum Kind {
+		LITERAL,
+		CONSTANT,
+		VARIABLE,
+		BINDING
+	}
+}
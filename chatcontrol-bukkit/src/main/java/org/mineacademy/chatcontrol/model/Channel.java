@@ -10,6 +10,7 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
@@ -72,6 +73,16 @@ public final class Channel extends YamlConfig implements ConfigStringSerializabl
 	 */
 	private static final ConfigItems<Channel> loadedChannels = ConfigItems.fromFile("Channels.List", "settings.yml", Channel.class);
 
+	/**
+	 * How many times we sent a message rendered once to all receivers
+	 */
+	private static final LongAdder sharedRenders = new LongAdder();
+
+	/**
+	 * How many times we rendered a message for one receiver
+	 */
+	private static final LongAdder perReceiverRenders = new LongAdder();
+
 	/**
 	 * Get the channel name
 	 */
@@ -597,6 +608,8 @@ public final class Channel extends YamlConfig implements ConfigStringSerializabl
 		if (!Platform.callEvent(postEvent))
 			throw new EventHandledException(true);
 
+		final SimpleComponent builtComponent = formattedComponent;
+
 		consoleFormat = postEvent.getConsoleFormat();
 		formattedComponent = postEvent.getFormat();
 
@@ -622,16 +635,32 @@ public final class Channel extends YamlConfig implements ConfigStringSerializabl
 			// Sender/Receiver condition might prevent sending to anyone
 			boolean atLeastOneSuccessfulSent = false;
 
-			for (final Player receiver : receivers) {
-				final FoundationPlayer receiverAudience = Platform.toPlayer(receiver);
-				final SimpleComponent replaced = HookManager.replaceRelationPlaceholders(sender.getAudience(), receiverAudience, formattedComponent);
+			// Everyone sees the same message unless the format or the chat message depends on the receiver
+			// or a listener replaced the format with one we know nothing about. The component is only read from here on.
+			final boolean shared = !format.isReceiverDependent() && !state.getMessage().contains("%rel_") && formattedComponent == builtComponent;
 
-				if (!replaced.toPlain(receiverAudience).trim().isEmpty()) {
-					receiverAudience.sendMessage(replaced);
+			if (shared) {
+				if (!formattedComponent.toPlain(null).trim().isEmpty()) {
+					for (final Player receiver : receivers)
+						Platform.toPlayer(receiver).sendMessage(formattedComponent);
 
-					atLeastOneSuccessfulSent = true;
+					sharedRenders.add(receivers.size());
+					atLeastOneSuccessfulSent = !receivers.isEmpty();
+				}
+
+			} else
+				for (final Player receiver : receivers) {
+					final FoundationPlayer receiverAudience = Platform.toPlayer(receiver);
+					final SimpleComponent replaced = HookManager.replaceRelationPlaceholders(sender.getAudience(), receiverAudience, formattedComponent);
+
+					perReceiverRenders.increment();
+
+					if (!replaced.toPlain(receiverAudience).trim().isEmpty()) {
+						receiverAudience.sendMessage(replaced);
+
+						atLeastOneSuccessfulSent = true;
+					}
 				}
-			}
 
 			if (atLeastOneSuccessfulSent) {
 				final String finalConsoleFormat = consoleFormat;
@@ -1248,4 +1277,22 @@ public final class Channel extends YamlConfig implements ConfigStringSerializabl
 	public static List<String> getChannelNames() {
 		return loadedChannels.getItemNames();
 	}
+
+	/**
+	 * Return how many times we sent a message rendered once to all receivers
+	 *
+	 * @return
+	 */
+	public static long getSharedRenders() {
+		return sharedRenders.sum();
+	}
+
+	/**
+	 * Return how many times we rendered a message for one receiver
+	 *
+	 * @return
+	 */
+	public static long getPerReceiverRenders() {
+		return perReceiverRenders.sum();
+	}
 }
\ No newline at end of file
@@ -1,15 +1,14 @@
 package org.mineacademy.chatcontrol.model;
 
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.HashSet;
-import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
+import java.util.UUID;
 
 import javax.annotation.Nullable;
 
+import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
 import org.mineacademy.chatcontrol.SenderCache;
 import org.mineacademy.chatcontrol.SenderCache.Output;
@@ -22,6 +21,7 @@ import org.mineacademy.chatcontrol.settings.Settings.AntiCaps;
 import org.mineacademy.chatcontrol.settings.Settings.AntiSpam;
 import org.mineacademy.chatcontrol.settings.Settings.Grammar;
 import org.mineacademy.chatcontrol.settings.Settings.WarningPoints;
+import org.mineacademy.chatcontrol.util.SimilarityUtil;
 import org.mineacademy.fo.ChatUtil;
 import org.mineacademy.fo.Messenger;
 import org.mineacademy.fo.Valid;
@@ -94,6 +94,12 @@ public final class Checker {
 	@Getter
 	private boolean messageChanged;
 
+	/**
+	 * Side effects such as console commands collected while analyzing the message,
+	 * applied on the main thread once the check ends
+	 */
+	private final List<Runnable> effects = new ArrayList<>();
+
 	/**
 	 * Create a new checker
 	 *
@@ -107,7 +113,12 @@ public final class Checker {
 		this.message = message;
 		this.channel = channel;
 
-		this.filter();
+		try {
+			this.filter();
+
+		} finally {
+			this.applyEffects();
+		}
 	}
 
 	/**
@@ -177,87 +188,58 @@ public final class Checker {
 			final Player player = this.wrapped.getPlayer();
 
 			if (this.type == LogType.CHAT) {
-				final Map<String, Set<Player>> playerMessages = new LinkedHashMap<>();
-
-				final long joinFloodDelay = AntiBot.JOIN_FLOOD_THRESHOLD.getTimeSeconds() * 1000;
 				final long parrotDelay = AntiSpam.Chat.PARROT_DELAY.getTimeSeconds() * 1000;
 				final boolean parrotToggled = !player.hasPermission(Permissions.Bypass.PARROT) && AntiSpam.Chat.PARROT && !AntiSpam.Chat.PARROT_WHITELIST.isInListRegex(this.message);
 
-				boolean parrotTriggered = false;
-				int similarityRounded = 0;
+				// Only compare against recent messages that can possibly be similar enough
+				if (parrotToggled) {
+					final double similarity = RecentMessages.getInstance().findSimilar(player.getUniqueId(), this.message, now - parrotDelay, AntiSpam.Chat.PARROT_SIMILARITY,
+							uniqueId -> Remain.getPlayerByUUID(uniqueId) != null);
 
-				for (final Player online : Remain.getOnlinePlayers()) {
-					final SenderCache onlineCache = SenderCache.from(online);
-
-					final String lastMessage = online.equals(player) ? this.message : onlineCache.getLastChatMessage();
-
-					if (lastMessage == null)
-						continue;
-
-					final Set<Player> playersWhoTypedTheSame = playerMessages.getOrDefault(lastMessage, new HashSet<>());
+					if (similarity != -1)
+						this.cancel(Lang.component("checker-parrot",
+								"message", this.message,
+								"similarity", (int) Math.round(similarity * 100),
+								"delay", AntiSpam.Chat.PARROT_DELAY.getRaw()));
+				}
 
-					if (!online.equals(player) && parrotToggled) {
-						final Output otherLastOutput = onlineCache.getLastChat();
-						final double similarity = ChatUtil.getSimilarityPercentage(lastMessage, this.message);
+				// A given amount of players who recently joined typed the same
+				if (AntiBot.JOIN_FLOOD_ENABLED) {
+					final long joinFloodDelay = AntiBot.JOIN_FLOOD_THRESHOLD.getTimeSeconds() * 1000;
+					final Set<Player> triggerPlayers = new HashSet<>();
 
-						if (similarity >= AntiSpam.Chat.PARROT_SIMILARITY && (System.currentTimeMillis() - otherLastOutput.getTime()) < parrotDelay) {
-							parrotTriggered = true;
-							similarityRounded = (int) Math.round(similarity * 100);
+					final Set<UUID> sameMessagePlayers = RecentMessages.getInstance().getPlayersWithLastMessage(this.message);
+					sameMessagePlayers.add(player.getUniqueId());
 
-							break;
-						}
-					}
+					for (final UUID uniqueId : sameMessagePlayers) {
+						final Player online = Remain.getPlayerByUUID(uniqueId);
 
-					if (AntiBot.JOIN_FLOOD_ENABLED) {
-						if (onlineCache.isJoinFloodActivated())
+						if (online == null || !online.isOnline())
 							continue;
 
-						if ((System.currentTimeMillis() - onlineCache.getLastLogin()) < joinFloodDelay) {
-							playersWhoTypedTheSame.add(online);
+						final SenderCache onlineCache = SenderCache.from(online);
 
-							playerMessages.put(lastMessage, playersWhoTypedTheSame);
-						}
+						if (!onlineCache.isJoinFloodActivated() && (now - onlineCache.getLastLogin()) < joinFloodDelay)
+							triggerPlayers.add(online);
 					}
-				}
-
-				if (parrotTriggered)
-					this.cancel(Lang.component("checker-parrot",
-							"message", this.message,
-							"similarity", similarityRounded,
-							"delay", AntiSpam.Chat.PARROT_DELAY.getRaw()));
-
-				final List<Map.Entry<String, Set<Player>>> sortedPlayerMessages = new ArrayList<>(playerMessages.entrySet());
-				Collections.sort(sortedPlayerMessages, (first, second) -> Integer.compare(first.getValue().size(), second.getValue().size()));
 
-				// A given amount of players typed the same
-				if (AntiBot.JOIN_FLOOD_ENABLED)
-					for (final Map.Entry<String, Set<Player>> entry : sortedPlayerMessages) {
+					final int playerCount = triggerPlayers.size();
 
-						final Set<Player> triggerPlayers = entry.getValue();
-						final String message = entry.getKey();
-						final int playerCount = triggerPlayers.size();
+					// Then execute some nice commands for the players
+					if (playerCount >= AntiBot.JOIN_FLOOD_MIN_PLAYERS)
+						for (final Player triggerPlayer : triggerPlayers) {
+							for (final String command : AntiBot.JOIN_FLOOD_COMMANDS) {
+								final String replaced = command
+										.replace("{player_amount}", String.valueOf(playerCount))
+										.replace("{threshold}", AntiBot.JOIN_FLOOD_THRESHOLD.getRaw())
+										.replace("{message}", this.message);
 
-						if (AntiBot.JOIN_FLOOD_ENABLED) {
-							if (playerCount < AntiBot.JOIN_FLOOD_MIN_PLAYERS)
-								continue;
-
-							// Then execute some nice commands for the players
-							for (final Player triggerPlayer : triggerPlayers) {
-								final SenderCache triggerCache = SenderCache.from(triggerPlayer);
-
-								if (!triggerPlayer.isOnline() || triggerCache.isJoinFloodActivated())
-									continue;
-
-								for (final String command : AntiBot.JOIN_FLOOD_COMMANDS)
-									Platform.dispatchConsoleCommand(Platform.toPlayer(triggerPlayer), command
-											.replace("{player_amount}", String.valueOf(playerCount))
-											.replace("{threshold}", AntiBot.JOIN_FLOOD_THRESHOLD.getRaw())
-											.replace("{message}", message));
-
-								triggerCache.setJoinFloodActivated(true);
+								this.effects.add(() -> Platform.dispatchConsoleCommand(Platform.toPlayer(triggerPlayer), replaced));
 							}
+
+							SenderCache.from(triggerPlayer).setJoinFloodActivated(true);
 						}
-					}
+				}
 			}
 
 			if (senderCache.hasJoinLocation() && !senderCache.isMovedFromJoin()) {
@@ -323,16 +305,13 @@ public final class Checker {
 
 		// Anticaps
 		if (this.get(AntiCaps.ENABLED, AntiCaps.ENABLED_IN_COMMANDS.isInList(label)) && !this.hasPerm(Permissions.Bypass.CAPS) && this.message.length() >= AntiCaps.MIN_MESSAGE_LENGTH) {
-			final Set<String> onlineNames = SyncedCache.getNamesAndNicks();
 			final String[] wordsCopy = CompChatColor.stripColorCodes(this.message).split(" ");
 
 			for (int i = 0; i < wordsCopy.length; i++) {
 				final String word = wordsCopy[i];
 
-				for (final String onlineName : onlineNames)
-					if (onlineName.equalsIgnoreCase(word))
-						wordsCopy[i] = word.toLowerCase();
-
+				if (SyncedCache.isNameOrNick(word))
+					wordsCopy[i] = word.toLowerCase();
 			}
 
 			final String messageWithPlayerNamesIgnored = String.join(" ", wordsCopy);
@@ -364,13 +343,10 @@ public final class Checker {
 					}
 
 					// Exclude user names
-					for (final String onlineName : onlineNames)
-						if (onlineName.equalsIgnoreCase(word)) {
-							whitelisted = true;
-							capsAllowed = true;
-
-							continue;
-						}
+					if (SyncedCache.isNameOrNick(word)) {
+						whitelisted = true;
+						capsAllowed = true;
+					}
 
 					if (!whitelisted) {
 						if (!capsAllowed) {
@@ -444,9 +420,9 @@ public final class Checker {
 					if (isWhitelisted)
 						continue;
 
-					final double similarity = ChatUtil.getSimilarityPercentage(output.getOutput(), this.message);
+					final double similarity = SimilarityUtil.getSimilarity(output.getOutput(), this.message, threshold);
 
-					if (similarity >= threshold && ++breaches >= this.get(Settings.AntiSpam.Chat.SIMILARITY_START_AT, Settings.AntiSpam.Commands.SIMILARITY_START_AT)) {
+					if (similarity != -1 && ++breaches >= this.get(Settings.AntiSpam.Chat.SIMILARITY_START_AT, Settings.AntiSpam.Commands.SIMILARITY_START_AT)) {
 						this.get(WarningPoints.TRIGGER_CHAT_SIMILARITY, WarningPoints.TRIGGER_COMMAND_SIMILARITY)
 								.execute(this.wrapped.getSender(),
 										Lang.component("checker-similarity-" + (this.type == LogType.CHAT ? "chat" : "command"), "similarity", String.valueOf(Math.round(similarity * 100))),
@@ -457,9 +433,13 @@ public final class Checker {
 		}
 
 		// Cache last message before grammar
-		if (this.type == LogType.CHAT)
+		if (this.type == LogType.CHAT) {
 			senderCache.cacheMessage(this.message, this.channel);
 
+			if (this.wrapped.isPlayer())
+				RecentMessages.getInstance().record(this.wrapped.getPlayer().getUniqueId(), this.message, AntiSpam.Chat.PARROT_DELAY.getTimeSeconds() * 1000);
+		}
+
 		else if (this.type == LogType.COMMAND)
 			senderCache.cacheCommand(this.message);
 
@@ -486,6 +466,29 @@ public final class Checker {
 				Messenger.warn(this.wrapped.getSender(), component);
 	}
 
+	/*
+	 * Run collected side effects now if we are on the main thread or schedule them for the next tick
+	 */
+	private void applyEffects() {
+		if (this.effects.isEmpty())
+			return;
+
+		if (Bukkit.isPrimaryThread())
+			for (final Runnable effect : this.effects)
+				effect.run();
+
+		else {
+			final List<Runnable> effects = new ArrayList<>(this.effects);
+
+			Platform.runTask(() -> {
+				for (final Runnable effect : effects)
+					effect.run();
+			});
+		}
+
+		this.effects.clear();
+	}
+
 	/*
 	 * Return if the sender has the given permission
 	 */
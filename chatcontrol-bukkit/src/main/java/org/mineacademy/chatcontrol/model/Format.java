@@ -1,6 +1,5 @@
 package org.mineacademy.chatcontrol.model;
 
-import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -9,6 +8,9 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.UUID;
+import java.util.function.UnaryOperator;
+
+import javax.annotation.Nullable;
 
 import org.bukkit.ChatColor;
 import org.bukkit.inventory.ItemStack;
@@ -30,12 +32,12 @@ import org.mineacademy.fo.model.ChatImage;
 import org.mineacademy.fo.model.CompChatColor;
 import org.mineacademy.fo.model.ConfigSerializable;
 import org.mineacademy.fo.model.HookManager;
-import org.mineacademy.fo.model.JavaScriptExecutor;
 import org.mineacademy.fo.model.RequireVariable;
 import org.mineacademy.fo.model.SimpleComponent;
 import org.mineacademy.fo.model.Tuple;
 import org.mineacademy.fo.model.Variables;
 import org.mineacademy.fo.model.Variables.ToLegacyMode;
+import org.mineacademy.fo.platform.FoundationPlayer;
 import org.mineacademy.fo.remain.Remain;
 import org.mineacademy.fo.settings.ConfigItems;
 import org.mineacademy.fo.settings.YamlConfig;
@@ -73,6 +75,13 @@ public final class Format extends YamlConfig {
 	 */
 	private List<Part> parts = new ArrayList<>();
 
+	/**
+	 * Whether a part is shown conditionally or has relational placeholders,
+	 * so that each receiver may see the format differently
+	 */
+	@Getter
+	private boolean receiverDependent = false;
+
 	/*
 	 * Construct a new format (called automatically when loading from a file)
 	 */
@@ -106,6 +115,8 @@ public final class Format extends YamlConfig {
 			} catch (final FoException ex) {
 				ex.printStackTrace();
 			}
+
+		this.receiverDependent = this.parts.stream().anyMatch(Part::isReceiverDependent);
 	}
 
 	@Override
@@ -132,6 +143,24 @@ public final class Format extends YamlConfig {
 	 * @return
 	 */
 	public SimpleComponent build(final WrappedSender sender, @NonNull final Map<String, Object> placeholders) {
+		return this.build(sender, placeholders, true);
+	}
+
+	/**
+	 * Build the format replacing every part from scratch instead of using what was
+	 * compiled at load, used to measure the difference
+	 *
+	 * @param sender
+	 * @return
+	 */
+	public SimpleComponent buildUncompiled(final WrappedSender sender) {
+		return this.build(sender, new HashMap<>(), false);
+	}
+
+	/*
+	 * Build the format, optionally using parts compiled at load
+	 */
+	private SimpleComponent build(final WrappedSender sender, final Map<String, Object> placeholders, final boolean compiled) {
 		SimpleComponent component = SimpleComponent.empty();
 		UUID messageId;
 		int index = 0;
@@ -159,7 +188,7 @@ public final class Format extends YamlConfig {
 		final Variables variables = Variables.builder(sender != null ? sender.getAudience() : null).cache(true).placeholders(placeholders);
 
 		for (final Part part : this.parts) {
-			final SimpleComponent partComponent = part.build(sender, variables);
+			final SimpleComponent partComponent = part.build(sender, variables, compiled);
 
 			if (partComponent != null) {
 				component = component.append(partComponent);
@@ -282,7 +311,7 @@ public final class Format extends YamlConfig {
 		private String imageHead;
 
 		/**
-		 * The remote URL to get the image (blocking!)
+		 * The remote URL to get the image, fetched in the background
 		 */
 		private String imageUrl;
 
@@ -296,6 +325,27 @@ public final class Format extends YamlConfig {
 		 */
 		private ChatImage.FillerCharacter imageFillterCharacter;
 
+		/**
+		 * Message lines without variables centered at load, null for lines replaced on each build
+		 */
+		private String[] compiledLines;
+
+		/**
+		 * The image rows drawn at load when Image_File is its only source
+		 */
+		private List<String> compiledImageRows;
+
+		/**
+		 * The message built at load when the message has no variables, kept as an immutable
+		 * Adventure component and wrapped in a new SimpleComponent for each build
+		 */
+		private Component compiledMessage;
+
+		/**
+		 * The hover built at load when the hover has no variables
+		 */
+		private Component compiledHover;
+
 		/**
 		 * Turn this class into a saveable format to the file
 		 */
@@ -332,9 +382,10 @@ public final class Format extends YamlConfig {
 		 *
 		 * @param sender
 		 * @param variables
+		 * @param compiled whether to use what was compiled at load
 		 * @return
 		 */
-		public SimpleComponent build(final WrappedSender sender, final Variables variables) {
+		public SimpleComponent build(final WrappedSender sender, final Variables variables, final boolean compiled) {
 
 			// Ugly hack for channel name to avoid having to parse variables in variables, we just hardcode support for this one
 			final String channelName = (String) variables.placeholders().getOrDefault("channel", "");
@@ -345,13 +396,13 @@ public final class Format extends YamlConfig {
 			variables.toLegacyMode(ToLegacyMode.PLAIN);
 
 			if (this.senderCondition != null) {
-				final String replacedScript = variables.replaceLegacy(this.senderCondition.replace("{channel}", channelName));
+				final UnaryOperator<String> replacer = script -> variables.replaceLegacy(script.replace("{channel}", channelName));
 
 				try {
 					if (sender == null)
 						return null;
 
-					final Object result = JavaScriptExecutor.run(replacedScript, sender.getAudience());
+					final Object result = CachedScript.of(this.senderCondition).run(replacer, sender.getAudience());
 
 					if (result != null) {
 						ValidCore.checkBoolean(result instanceof Boolean, "JavaScript Sender_Condition must return boolean not " + (result == null ? "null" : result.getClass()) + " in format " + this.formatName + "." + this.name);
@@ -366,7 +417,7 @@ public final class Format extends YamlConfig {
 							"Path: " + this.formatName + "." + name + " (line " + ex.getErrorLine() + ")",
 							"Sender: " + (sender != null ? sender.getName() : "null"),
 							"Raw code: " + this.senderCondition,
-							"Executed code: " + replacedScript,
+							"Executed code: " + replacer.apply(this.senderCondition),
 							"Error: " + ex.getMessage(),
 							"",
 							"Check that Sender_Conditon is a JavaScript",
@@ -382,104 +433,76 @@ public final class Format extends YamlConfig {
 
 			variables.toLegacyMode(ToLegacyMode.MINI);
 
-			// Support chat images
-			final ChatImage image = ChatImage.builder();
+			SimpleComponent component;
 
-			if (this.imageHeight != null)
-				image.height(this.imageHeight);
+			if (compiled && this.compiledMessage != null)
+				component = SimpleComponent.fromAdventure(this.compiledMessage);
 
-			if (this.imageFillterCharacter != null)
-				image.fillerCharacter(this.imageFillterCharacter);
-
-			if (this.imageHead != null)
-				try {
-					image.drawFromHead(variables.replaceLegacy(this.imageHead));
+			else {
 
-				} catch (final IOException ex) {
-					CommonCore.logTimed(60 * 30, "(This error only shows every 30min) Unable to look up player head from head: " + this.imageHead + ". Error: " + ex.toString() + " Format part: " + this);
-				}
+				// Support chat images, sent without the image until it is rendered
+				final List<String> imageRows = compiled && this.compiledImageRows != null ? this.compiledImageRows : this.findImageRows(variables, false);
 
-			if (this.imageUrl != null)
-				try {
-					image.drawFromUrl(variables.replaceLegacy(this.imageUrl));
+				// Get the actual message, support multiline
+				final List<String> textLines = new ArrayList<>();
 
-				} catch (final IOException ex) {
-					CommonCore.logTimed(60 * 30, "(This error only shows every 30min) Unable to look up player head from URL: " + this.imageUrl + ". Error: " + ex.toString() + " Format part: " + this);
-				}
+				// Compile the list
+				for (int i = 0; i < this.messages.size(); i++) {
+					if (compiled && this.compiledLines[i] != null) {
+						textLines.add(this.compiledLines[i]);
 
-			if (this.imageFile != null)
-				try {
-					image.drawFromFile(FileUtil.getFile("images/" + this.imageFile));
+						continue;
+					}
 
-				} catch (final IOException ex) {
-					CommonCore.logTimed(60 * 30, "(This error only shows every 30min) Unable to look up player head from file: " + this.imageFile + ". Error: " + ex.toString() + " Format part: " + this);
-				}
+					String line = this.messages.get(i);
 
-			// Get the actual message, support multilineň
-			final List<String> textLines = new ArrayList<>();
+					if (sender != null)
+						line = HookManager.replaceFontImagesLegacy(sender.getPlayer(), line);
 
-			// Compile the list
-			for (String line : this.messages) {
-				if (sender != null)
-					line = HookManager.replaceFontImagesLegacy(sender.getPlayer(), line);
+					textLines.add(center(variables.replaceLegacy(line)));
+				}
 
-				line = variables.replaceLegacy(line);
+				String message = this.joinMessage(imageRows, textLines);
 
-				if (line.startsWith("<center>"))
-					textLines.add(ChatUtil.center(line.substring(8).trim()));
-				else
-					textLines.add(line);
-			}
+				// Adventure bug workaround: The Componennt#replaceText() does not work in gradients, hover, click and other events,
+				// so we need to replace variables at the legacy level.
+				{
+					final List<String> parts = new ArrayList<>();
+					int start = 0;
 
-			String message = image.hasLines() ? String.join("\n", image.toString(textLines)) : String.join("\n", textLines);
+					while (true) {
+						final int from = message.indexOf("<gradient:", start);
 
-			// Use MiniMessage for gradients
-			if (this.gradient != null) {
-				final String from = this.gradient.getKey().asHexString();
-				final String to = this.gradient.getValue().asHexString();
+						if (from == -1)
+							break;
 
-				// Remove alpha channels
-				message = "<gradient:#" + from.substring(3) + ":#" + to.substring(3) + ">" + message + "</gradient>";
-			}
-
-			// Adventure bug workaround: The Componennt#replaceText() does not work in gradients, hover, click and other events,
-			// so we need to replace variables at the legacy level.
-			{
-				final List<String> parts = new ArrayList<>();
-				int start = 0;
-
-				while (true) {
-					final int from = message.indexOf("<gradient:", start);
+						final int to = message.indexOf(">", from);
 
-					if (from == -1)
-						break;
+						if (to == -1)
+							break;
 
-					final int to = message.indexOf(">", from);
+						final String beforeGradient = message.substring(start, from);
+						final String gradient = message.substring(from, to + 1);
 
-					if (to == -1)
-						break;
+						final int end = message.indexOf("</gradient>", to);
 
-					final String beforeGradient = message.substring(start, from);
-					final String gradient = message.substring(from, to + 1);
+						if (end == -1)
+							break;
 
-					final int end = message.indexOf("</gradient>", to);
+						final String text = message.substring(to + 1, end);
 
-					if (end == -1)
-						break;
+						parts.add(beforeGradient + gradient + variables.replaceLegacy(text));
+						start = end + "</gradient>".length();
+					}
 
-					final String text = message.substring(to + 1, end);
+					parts.add(message.substring(start));
 
-					parts.add(beforeGradient + gradient + variables.replaceLegacy(text));
-					start = end + "</gradient>".length();
+					message = String.join("", parts);
 				}
 
-				parts.add(message.substring(start));
-
-				message = String.join("", parts);
+				component = SimpleComponent.fromMiniAmpersand(message);
 			}
 
-			SimpleComponent component = SimpleComponent.fromMiniAmpersand(message);
-
 			// This is about 2x faster but click/hover are lost
 			//SimpleComponent component = SimpleComponent.fromSection(CompChatColor.convertMiniToLegacy(message));
 
@@ -508,36 +531,11 @@ public final class Format extends YamlConfig {
 
 			variables.toLegacyMode(gradientSupport ? ToLegacyMode.MINI : ToLegacyMode.LEGACY);
 
-			if (this.hoverText != null && !this.hoverText.isEmpty()) {
-				String replacedHoverText = "<gray>" + variables.replaceLegacy(this.hoverText);
-
-				if (gradientSupport)
-					replacedHoverText = CompChatColor.convertLegacyToMini(replacedHoverText, true);
-				else
-					replacedHoverText = CompChatColor.convertMiniToLegacy(ChatColor.translateAlternateColorCodes('&', replacedHoverText));
-
-				final String[] lines = replacedHoverText.split("\n");
+			if (compiled && this.compiledHover != null)
+				component = component.onHover(this.compiledHover);
 
-				Component joined = Component.empty();
-
-				for (int i = 0; i < lines.length; i++) {
-					String line = lines[i];
-
-					// Receiver conditions will be lost
-					if (MinecraftVersion.hasVersion() && MinecraftVersion.olderThan(V.v1_13) && MiniMessage.miniMessage().stripTags(line).length() > SimpleComponent.LEGACY_HOVER_LINE_LENGTH_LIMIT)
-						line = String.join("\n", CommonCore.split(line, SimpleComponent.LEGACY_HOVER_LINE_LENGTH_LIMIT));
-
-					if (gradientSupport)
-						joined = joined.append(SimpleComponent.MINIMESSAGE_PARSER.deserialize(line));
-					else
-						joined = joined.append(Component.text(line));
-
-					if (i < lines.length - 1)
-						joined = joined.append(Component.newline());
-				}
-
-				component = component.onHover(joined);
-			}
+			else if (this.hoverText != null && !this.hoverText.isEmpty())
+				component = component.onHover(buildHover(variables.replaceLegacy(this.hoverText)));
 
 			variables.toLegacyMode(ToLegacyMode.PLAIN);
 
@@ -547,7 +545,7 @@ public final class Format extends YamlConfig {
 
 				} else
 					try {
-						final Object result = JavaScriptExecutor.run(variables.replaceLegacy(this.hoverItem), sender.getAudience());
+						final Object result = CachedScript.of(this.hoverItem).run(text -> variables.replaceLegacy(text), sender.getAudience());
 
 						if (result != null) {
 							ValidCore.checkBoolean(result instanceof ItemStack, "Hover_Item must return ItemStack not " + result.getClass() + " for format " + this.formatName + "." + this.name);
@@ -572,25 +570,180 @@ public final class Format extends YamlConfig {
 			}
 
 			if (this.openUrl != null && !this.openUrl.isEmpty())
-				component = component.onClickOpenUrl(variables.replaceLegacy(this.openUrl));
+				component = component.onClickOpenUrl(replace(variables, this.openUrl, compiled));
 
 			if (this.suggestCommand != null && !this.suggestCommand.isEmpty())
-				component = component.onClickSuggestCmd(variables.replaceLegacy(this.suggestCommand));
+				component = component.onClickSuggestCmd(replace(variables, this.suggestCommand, compiled));
 
 			if (this.runCommand != null && !this.runCommand.isEmpty())
-				component = component.onClickRunCmd(variables.replaceLegacy(this.runCommand));
+				component = component.onClickRunCmd(replace(variables, this.runCommand, compiled));
 
 			if (this.insertion != null && !this.insertion.isEmpty())
-				component = component.onClickInsert(variables.replaceLegacy(this.insertion));
+				component = component.onClickInsert(replace(variables, this.insertion, compiled));
 
 			if (this.copyToClipboard != null && !this.copyToClipboard.isEmpty())
-				component = component.onClickCopyToClipboard(variables.replaceLegacy(this.copyToClipboard));
+				component = component.onClickCopyToClipboard(replace(variables, this.copyToClipboard, compiled));
 
 			variables.toLegacyMode(ToLegacyMode.MINI);
 
 			return component;
 		}
 
+		/*
+		 * Return true if receivers may see this part differently
+		 */
+		private boolean isReceiverDependent() {
+			if (!ValidCore.isNullOrEmpty(this.receiverCondition) || !ValidCore.isNullOrEmpty(this.receiverPermission) || this.receiverRequireVariable != null)
+				return true;
+
+			for (final String text : Arrays.asList(String.join("\n", this.messages), this.hoverText, this.openUrl, this.suggestCommand, this.runCommand, this.insertion, this.copyToClipboard))
+				if (text != null && text.contains("%rel_"))
+					return true;
+
+			return false;
+		}
+
+		/*
+		 * Resolve what does not change between builds
+		 */
+		private void compile() {
+			final boolean imageFileOnly = this.imageHead == null && this.imageUrl == null;
+			boolean constant = imageFileOnly;
+
+			this.compiledLines = new String[this.messages.size()];
+
+			for (int i = 0; i < this.messages.size(); i++) {
+				final String line = this.messages.get(i);
+
+				// Colons may be font images which depend on the sender
+				if (!hasVariables(line) && line.indexOf(':') == -1)
+					this.compiledLines[i] = center(line);
+				else
+					constant = false;
+			}
+
+			if (imageFileOnly && this.imageFile != null)
+				this.compiledImageRows = this.findImageRows(null, true);
+
+			if (constant)
+				this.compiledMessage = SimpleComponent.fromMiniAmpersand(this.joinMessage(this.compiledImageRows, Arrays.asList(this.compiledLines))).toAdventure(null);
+
+			if (this.hoverText != null && !this.hoverText.isEmpty() && !hasVariables(this.hoverText))
+				this.compiledHover = buildHover(this.hoverText);
+		}
+
+		/*
+		 * Return the rendered image rows or null if there is no image or it is still rendering,
+		 * variables are only used for head and URL sources
+		 */
+		@Nullable
+		private List<String> findImageRows(final Variables variables, final boolean now) {
+			final ImageCache.Source source;
+			final String value;
+
+			// Later sources used to draw over earlier ones
+			if (this.imageFile != null) {
+				source = ImageCache.Source.FILE;
+				value = this.imageFile;
+
+			} else if (this.imageUrl != null) {
+				source = ImageCache.Source.URL;
+				value = variables.replaceLegacy(this.imageUrl);
+
+			} else if (this.imageHead != null) {
+				source = ImageCache.Source.HEAD;
+				value = variables.replaceLegacy(this.imageHead);
+
+			} else
+				return null;
+
+			final ImageCache cache = ImageCache.getInstance();
+
+			return now ? cache.getRowsNow(source, value, this.imageHeight, this.imageFillterCharacter) : cache.getRows(source, value, this.imageHeight, this.imageFillterCharacter);
+		}
+
+		/*
+		 * Start rendering head and URL images for the given variables
+		 */
+		private void prewarmImages(final Variables variables) {
+			if (this.imageFile == null && (this.imageHead != null || this.imageUrl != null))
+				this.findImageRows(variables, false);
+		}
+
+		/*
+		 * Join message lines next to the image and wrap them in the gradient
+		 */
+		private String joinMessage(@Nullable final List<String> imageRows, final List<String> textLines) {
+			String message = String.join("\n", imageRows != null && !imageRows.isEmpty() ? ImageCache.compose(imageRows, textLines) : textLines);
+
+			// Use MiniMessage for gradients
+			if (this.gradient != null) {
+				final String from = this.gradient.getKey().asHexString();
+				final String to = this.gradient.getValue().asHexString();
+
+				// Remove alpha channels
+				message = "<gradient:#" + from.substring(3) + ":#" + to.substring(3) + ">" + message + "</gradient>";
+			}
+
+			return message;
+		}
+
+		/*
+		 * Build the hover component from the hover text with variables replaced
+		 */
+		private static Component buildHover(final String hoverText) {
+			final boolean gradientSupport = Settings.Performance.SUPPORT_GRADIENTS_IN_HOVER;
+			String replacedHoverText = "<gray>" + hoverText;
+
+			if (gradientSupport)
+				replacedHoverText = CompChatColor.convertLegacyToMini(replacedHoverText, true);
+			else
+				replacedHoverText = CompChatColor.convertMiniToLegacy(ChatColor.translateAlternateColorCodes('&', replacedHoverText));
+
+			final String[] lines = replacedHoverText.split("\n");
+
+			Component joined = Component.empty();
+
+			for (int i = 0; i < lines.length; i++) {
+				String line = lines[i];
+
+				// Receiver conditions will be lost
+				if (MinecraftVersion.hasVersion() && MinecraftVersion.olderThan(V.v1_13) && MiniMessage.miniMessage().stripTags(line).length() > SimpleComponent.LEGACY_HOVER_LINE_LENGTH_LIMIT)
+					line = String.join("\n", CommonCore.split(line, SimpleComponent.LEGACY_HOVER_LINE_LENGTH_LIMIT));
+
+				if (gradientSupport)
+					joined = joined.append(SimpleComponent.MINIMESSAGE_PARSER.deserialize(line));
+				else
+					joined = joined.append(Component.text(line));
+
+				if (i < lines.length - 1)
+					joined = joined.append(Component.newline());
+			}
+
+			return joined;
+		}
+
+		/*
+		 * Replace variables unless the text has none
+		 */
+		private static String replace(final Variables variables, final String text, final boolean compiled) {
+			return compiled && !hasVariables(text) ? text : variables.replaceLegacy(text);
+		}
+
+		/*
+		 * Return true if the text may contain variables or PlaceholderAPI placeholders
+		 */
+		private static boolean hasVariables(final String text) {
+			return text.indexOf('{') != -1 || text.indexOf('%') != -1;
+		}
+
+		/*
+		 * Center the line if it starts with <center>
+		 */
+		private static String center(final String line) {
+			return line.startsWith("<center>") ? ChatUtil.center(line.substring(8).trim()) : line;
+		}
+
 		public static Part deserialize(final SerializedMap map, final String formatName, final String partName) {
 			final Part part = new Part(formatName, partName);
 
@@ -663,6 +816,8 @@ public final class Format extends YamlConfig {
 			if (!map.isEmpty())
 				Common.warning("Format " + formatName + " has part '" + partName + "' with unrecognized keys '" + map.keySet() + "', see https://github.com/kangarko/chatcontrol/wiki/Formats for what keys you can use in formats.");
 
+			part.compile();
+
 			return part;
 		}
 
@@ -676,6 +831,7 @@ public final class Format extends YamlConfig {
 			final Part format = new Part("legacy-format", "legacy-part=" + legacyText);
 
 			format.messages = Arrays.asList(legacyText);
+			format.compile();
 
 			return format;
 		}
@@ -732,6 +888,8 @@ public final class Format extends YamlConfig {
 		final Format format = new Format("literal-" + literal, true);
 
 		format.parts = Arrays.asList(Part.fromLegacy(literal));
+		format.receiverDependent = format.parts.get(0).isReceiverDependent();
+
 		return format;
 	}
 
@@ -739,6 +897,7 @@ public final class Format extends YamlConfig {
 	 * @see ConfigItems#loadItems()
 	 */
 	public static void loadFormats() {
+		ImageCache.getInstance().clear();
 		loadedFormats.loadItems();
 
 		// Initialize to prevent that big delay first time a player is chatting
@@ -763,6 +922,21 @@ public final class Format extends YamlConfig {
 			}
 	}
 
+	/**
+	 * Start rendering head and URL images of all formats for the given player
+	 * so that they are ready by the time he chats
+	 *
+	 * @param audience
+	 */
+	public static void prewarmImages(final FoundationPlayer audience) {
+		final Map<String, Object> placeholders = CommonCore.newHashMap("sender", audience.getName(), "sender_name", audience.getName());
+		final Variables variables = Variables.builder(audience).placeholders(placeholders);
+
+		for (final Format format : loadedFormats.getItems())
+			for (final Part part : format.parts)
+				part.prewarmImages(variables);
+	}
+
 	/**
 	 * @param format
 	 * @see ConfigItems#removeItem(org.mineacademy.fo.settings.YamlConfig)
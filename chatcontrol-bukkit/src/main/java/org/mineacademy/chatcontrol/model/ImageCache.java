@@ -0,0 +1,271 @@
+package org.mineacademy.chatcontrol.model;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Nullable;
+
+import org.mineacademy.chatcontrol.settings.Settings;
+import org.mineacademy.fo.CommonCore;
+import org.mineacademy.fo.FileUtil;
+import org.mineacademy.fo.collection.ExpiringMap;
+import org.mineacademy.fo.model.ChatImage;
+import org.mineacademy.fo.platform.Platform;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Renders chat images from player heads, URLs and files in the background and keeps
+ * their rendered rows so that building a format never waits for network or disk.
+ *
+ * Heads and URLs are also stored in images/cache/ so that restarts do not fetch them again.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class ImageCache {
+
+	/**
+	 * The singleton of this class
+	 */
+	@Getter
+	private static final ImageCache instance = new ImageCache();
+
+	/**
+	 * The folder in images/ holding rendered heads and URLs
+	 */
+	private static final String DISK_FOLDER = "images/cache/";
+
+	/**
+	 * Rendered rows by their key, the least recently used are removed first
+	 */
+	private final Map<String, List<String>> rendered = Collections.synchronizedMap(new LinkedHashMap<String, List<String>>(16, 0.75F, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(final Map.Entry<String, List<String>> eldest) {
+			return this.size() > Settings.Performance.IMAGE_CACHE_SIZE;
+		}
+	});
+
+	/**
+	 * Keys being rendered right now so we do not fetch the same image twice
+	 */
+	private final Set<String> loading = ConcurrentHashMap.newKeySet();
+
+	/**
+	 * Keys which failed to render, we do not retry them for a while
+	 */
+	private final Map<String, Boolean> failed = ExpiringMap.builder().expiration(30, TimeUnit.MINUTES).build();
+
+	/**
+	 * Return the rendered rows of the image, or null and start rendering it in the background
+	 * if we do not have them yet, in which case the message should be sent without the image
+	 *
+	 * @param source
+	 * @param value the player name, the URL or the file name in images/ folder
+	 * @param height
+	 * @param fillerCharacter
+	 * @return
+	 */
+	@Nullable
+	public List<String> getRows(final Source source, final String value, @Nullable final Integer height, @Nullable final ChatImage.FillerCharacter fillerCharacter) {
+		final String key = createKey(source, value, height, fillerCharacter);
+		final List<String> rows = this.rendered.get(key);
+
+		if (rows == null && !this.failed.containsKey(key) && this.loading.add(key))
+			Platform.runTaskAsync(() -> {
+				try {
+					this.load(key, source, value, height, fillerCharacter);
+
+				} finally {
+					this.loading.remove(key);
+				}
+			});
+
+		return rows;
+	}
+
+	/**
+	 * Return the rendered rows of the image, rendering it on this thread if we do not have them yet
+	 *
+	 * @param source
+	 * @param value
+	 * @param height
+	 * @param fillerCharacter
+	 * @return
+	 */
+	@Nullable
+	public List<String> getRowsNow(final Source source, final String value, @Nullable final Integer height, @Nullable final ChatImage.FillerCharacter fillerCharacter) {
+		final String key = createKey(source, value, height, fillerCharacter);
+		final List<String> rows = this.rendered.get(key);
+
+		return rows != null ? rows : this.load(key, source, value, height, fillerCharacter);
+	}
+
+	/**
+	 * Forget rendered images, called on reload so that changed files are drawn again
+	 */
+	public void clear() {
+		this.rendered.clear();
+		this.failed.clear();
+	}
+
+	/*
+	 * Render the image from disk cache or its source and store it
+	 */
+	@Nullable
+	private List<String> load(final String key, final Source source, final String value, @Nullable final Integer height, @Nullable final ChatImage.FillerCharacter fillerCharacter) {
+		final boolean diskCache = source != Source.FILE && Settings.Performance.IMAGE_DISK_CACHE.isEnabled();
+		List<String> rows = diskCache ? this.readFromDisk(key) : null;
+
+		if (rows == null) {
+			final ChatImage image = ChatImage.builder();
+
+			if (height != null)
+				image.height(height);
+
+			if (fillerCharacter != null)
+				image.fillerCharacter(fillerCharacter);
+
+			try {
+				if (source == Source.HEAD)
+					image.drawFromHead(value);
+
+				else if (source == Source.URL)
+					image.drawFromUrl(value);
+
+				else
+					image.drawFromFile(FileUtil.getFile("images/" + value));
+
+			} catch (final IOException ex) {
+				CommonCore.logTimed(60 * 30, "(This error only shows every 30min) Unable to look up image from " + source.getKey() + ": " + value + ". Error: " + ex.toString());
+
+				this.failed.put(key, true);
+				return null;
+			}
+
+			rows = image.hasLines() ? Arrays.asList(String.join("\n", image.toString(new ArrayList<>())).split("\n")) : new ArrayList<>();
+
+			if (diskCache)
+				this.writeToDisk(key, rows);
+		}
+
+		rows = Collections.unmodifiableList(rows);
+		this.rendered.put(key, rows);
+
+		return rows;
+	}
+
+	/*
+	 * Read rows rendered on an earlier start unless they expired
+	 */
+	@Nullable
+	private List<String> readFromDisk(final String key) {
+		final File file = getDiskFile(key);
+
+		if (!file.exists())
+			return null;
+
+		if (file.lastModified() < System.currentTimeMillis() - Settings.Performance.IMAGE_DISK_CACHE.getTimeMilliseconds()) {
+			file.delete();
+
+			return null;
+		}
+
+		final List<String> lines = FileUtil.readLinesFromFile(file);
+
+		// The first line is the key to rule out name collisions
+		return !lines.isEmpty() && lines.get(0).equals(key) ? new ArrayList<>(lines.subList(1, lines.size())) : null;
+	}
+
+	/*
+	 * Store rendered rows for the next start
+	 */
+	private void writeToDisk(final String key, final List<String> rows) {
+		final List<String> lines = new ArrayList<>(rows.size() + 1);
+
+		lines.add(key);
+		lines.addAll(rows);
+
+		final File file = getDiskFile(key);
+
+		if (file.exists())
+			file.delete();
+
+		FileUtil.write(FileUtil.createIfNotExists(DISK_FOLDER + file.getName()), lines);
+	}
+
+	/*
+	 * Return the file in the disk cache for the given key
+	 */
+	private static File getDiskFile(final String key) {
+		return FileUtil.getFile(DISK_FOLDER + UUID.nameUUIDFromBytes(key.getBytes(StandardCharsets.UTF_8)) + ".txt");
+	}
+
+	/*
+	 * Create the key identifying a rendered image
+	 */
+	private static String createKey(final Source source, final String value, @Nullable final Integer height, @Nullable final ChatImage.FillerCharacter fillerCharacter) {
+		return source.getKey() + "|" + value + "|" + (height != null ? height : "") + "|" + (fillerCharacter != null ? fillerCharacter.name() : "");
+	}
+
+	/**
+	 * Put the text next to the image rows, lines beyond the image height follow below it
+	 *
+	 * @param rows
+	 * @param textLines
+	 * @return
+	 */
+	public static List<String> compose(final List<String> rows, final List<String> textLines) {
+		final List<String> lines = new ArrayList<>(Math.max(rows.size(), textLines.size()));
+
+		for (int i = 0; i < rows.size(); i++)
+			lines.add(i < textLines.size() ? rows.get(i) + " " + textLines.get(i) : rows.get(i));
+
+		for (int i = rows.size(); i < textLines.size(); i++)
+			lines.add(textLines.get(i));
+
+		return lines;
+	}
+
+	/**
+	 * Where an image comes from
+	 */
+	@Getter
+	@RequiredArgsConstructor
+	public enum Source {
+
+		/**
+		 * A player head by the player name
+		 */
+		HEAD("head"),
+
+		/**
+		 * A remote image
+		 */
+		URL("url"),
+
+		/**
+		 * A file in images/ folder
+		 */
+		FILE("file");
+
+		/**
+		 * The key used in the cache
+		 */
+		private final String key;
+	}
+}
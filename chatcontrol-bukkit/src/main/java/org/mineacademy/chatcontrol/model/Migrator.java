@@ -536,8 +536,10 @@ public final class Migrator {
 
 					CommonCore.log("Migrating " + mails.size() + " mails");
 
-					for (final Mail mail : mails)
+					for (final Mail mail : mails) {
 						database.insertToQueue(mail);
+						database.insertMailRecipients(mail);
+					}
 				}
 			}
 
@@ -2,12 +2,15 @@ package org.mineacademy.chatcontrol.model;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 import org.bukkit.entity.Player;
@@ -37,6 +40,39 @@ public final class ProxyChat {
 	 */
 	public static final String CHANNEL_NAME = "plugin:chcred";
 
+	/**
+	 * Every how many sync runs we send all synced data again instead of only what changed,
+	 * so that servers which missed a message resync. Servers which just got players do not
+	 * wait for this since proxy sends them all data it knows right away.
+	 */
+	private static final int FULL_SYNC_INTERVAL = 30;
+
+	/**
+	 * Approximate payload bytes of synced data sent to proxy
+	 */
+	private static final AtomicLong syncBytesSent = new AtomicLong();
+
+	/**
+	 * Approximate payload bytes of synced data we did not send because it did not change
+	 */
+	private static final AtomicLong syncBytesSaved = new AtomicLong();
+
+	/**
+	 * How many full synced data snapshots we sent
+	 */
+	private static final AtomicLong fullSyncs = new AtomicLong();
+
+	/**
+	 * The longest Base64 binary payload we send in one plugin message, larger
+	 * payloads fall back to the legacy format split by sync type
+	 */
+	private static final int MAX_BINARY_PAYLOAD_LENGTH = 30_000;
+
+	/**
+	 * Whether proxy answered our codec handshake since we last had players, we only send binary synced data if so
+	 */
+	private static volatile boolean binaryCodecSupported = false;
+
 	/**
 	 * Return the prefix for proxy.
 	 *
@@ -88,11 +124,62 @@ public final class ProxyChat {
 		}
 	}
 
+	/**
+	 * Return approximate payload bytes of synced data sent to proxy
+	 *
+	 * @return
+	 */
+	public static long getSyncBytesSent() {
+		return syncBytesSent.get();
+	}
+
+	/**
+	 * Return approximate payload bytes of synced data not sent since it did not change
+	 *
+	 * @return
+	 */
+	public static long getSyncBytesSaved() {
+		return syncBytesSaved.get();
+	}
+
+	/**
+	 * Return how many full synced data snapshots were sent
+	 *
+	 * @return
+	 */
+	public static long getFullSyncs() {
+		return fullSyncs.get();
+	}
+
+	/**
+	 * Called when proxy answers our codec handshake with the version both of us support
+	 *
+	 * @param version
+	 */
+	public static void onCodecHandshake(final int version) {
+		binaryCodecSupported = version == ProxyCodec.VERSION;
+	}
+
 	/**
 	 * Represents uploading data to proxy
 	 */
 	private static final class SyncTask extends SimpleRunnable {
 
+		/**
+		 * The values we last sent for each online player, used to only send what changed
+		 */
+		private Map<UUID, Map<SyncType, String>> lastSent = new HashMap<>();
+
+		/**
+		 * How many times this task ran
+		 */
+		private long runs = 0;
+
+		/**
+		 * Whether we sent the codec handshake since we last had players
+		 */
+		private boolean handshakeSent = false;
+
 		/**
 		 * @see java.lang.Runnable#run()
 		 */
@@ -101,25 +188,73 @@ public final class ProxyChat {
 			final Collection<? extends Player> players = Remain.getOnlinePlayers();
 
 			if (Settings.Proxy.ENABLED) {
+
+				// Proxy restarts disconnect everyone, so having no players ends our connection
+				// and we handshake again once a player carries our plugin messages
+				if (players.isEmpty()) {
+					this.handshakeSent = false;
+					binaryCodecSupported = false;
+
+				} else if (!this.handshakeSent) {
+					ProxyUtil.sendPluginMessage(ChatControlProxyMessage.CODEC_HANDSHAKE, String.valueOf(ProxyCodec.VERSION));
+
+					this.handshakeSent = true;
+				}
+
 				final Map<SyncType, SerializedMap> syncTypeDataMap = new HashMap<>();
+				final Map<UUID, Map<SyncType, String>> sent = new HashMap<>();
+				final boolean fullSync = this.runs++ % FULL_SYNC_INTERVAL == 0;
 
 				for (final Player online : players) {
 					final SenderCache senderCache = SenderCache.from(online);
 
 					if (senderCache.isDatabaseLoaded()) {
 						final WrappedSender wrapped = WrappedSender.fromPlayerCaches(online, PlayerCache.fromCached(online), senderCache);
+						final String uniqueId = online.getUniqueId().toString();
+
+						final Map<SyncType, String> previous = this.lastSent.get(online.getUniqueId());
+						final Map<SyncType, String> current = new EnumMap<>(SyncType.class);
+
+						for (final SyncType syncType : SyncType.values()) {
+							final String value = compileValue(syncType, wrapped);
+							final long size = uniqueId.length() + (value == null ? 0 : value.length());
 
-						for (final SyncType syncType : SyncType.values())
-							syncTypeDataMap.computeIfAbsent(syncType, key -> new SerializedMap()).put(online.getUniqueId().toString(), compileValue(syncType, wrapped));
+							current.put(syncType, value);
+
+							// Only send values that changed since the last time, unless we resync
+							if (fullSync || previous == null || !Objects.equals(previous.get(syncType), value)) {
+								syncTypeDataMap.computeIfAbsent(syncType, key -> new SerializedMap()).put(uniqueId, value);
+
+								syncBytesSent.addAndGet(size);
+
+							} else
+								syncBytesSaved.addAndGet(size);
+						}
+
+						sent.put(online.getUniqueId(), current);
 					}
 				}
 
-				for (final Map.Entry<SyncType, SerializedMap> entry : syncTypeDataMap.entrySet()) {
-					final SyncType syncType = entry.getKey();
-					final SerializedMap uniqueIdsWithData = entry.getValue();
+				this.lastSent = sent;
 
-					ProxyUtil.sendPluginMessage(ChatControlProxyMessage.SYNCED_CACHE_BY_UUID, syncType.toString(), uniqueIdsWithData);
-				}
+				if (fullSync)
+					fullSyncs.incrementAndGet();
+
+				if (syncTypeDataMap.isEmpty())
+					return;
+
+				final String binaryPayload = binaryCodecSupported ? ProxyCodec.encodeSyncedCache(syncTypeDataMap) : null;
+
+				if (binaryPayload != null && binaryPayload.length() <= MAX_BINARY_PAYLOAD_LENGTH)
+					ProxyUtil.sendPluginMessage(ChatControlProxyMessage.SYNCED_CACHE_BINARY, binaryPayload);
+
+				else
+					for (final Map.Entry<SyncType, SerializedMap> entry : syncTypeDataMap.entrySet()) {
+						final SyncType syncType = entry.getKey();
+						final SerializedMap uniqueIdsWithData = entry.getValue();
+
+						ProxyUtil.sendPluginMessage(ChatControlProxyMessage.SYNCED_CACHE_BY_UUID, syncType.toString(), uniqueIdsWithData);
+					}
 
 			} else {
 				final Set<UUID> onlinePlayerUniqueIds = new HashSet<>();
@@ -0,0 +1,311 @@
+package org.mineacademy.chatcontrol.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.function.Predicate;
+
+import org.mineacademy.chatcontrol.util.SimilarityUtil;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Represents an index of the last chat message of each player, used to find
+ * parrots and join floods without comparing the message against every online player.
+ *
+ * Messages are bucketed by length and carry a sorted trigram signature so that we
+ * only run the expensive similarity check on messages that can possibly reach the threshold.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class RecentMessages {
+
+	/**
+	 * The singleton instance
+	 */
+	@Getter
+	private static final RecentMessages instance = new RecentMessages();
+
+	/**
+	 * The last message still in the window for each player, in the order they were sent
+	 * so that older ones are pruned from the head and replacing one is constant time
+	 */
+	private final Map<UUID, Entry> window = new LinkedHashMap<>();
+
+	/**
+	 * Messages in the window by their lowercase length
+	 */
+	private final NavigableMap<Integer, Set<Entry>> entriesByLength = new TreeMap<>();
+
+	/**
+	 * The last message of each online player, kept for join flood
+	 */
+	private final Map<UUID, String> lastMessages = new HashMap<>();
+
+	/**
+	 * Players by their last message, kept for join flood
+	 */
+	private final Map<String, Set<UUID>> playersByMessage = new HashMap<>();
+
+	/**
+	 * Record the given message as the last message of the given player
+	 *
+	 * @param uniqueId
+	 * @param message
+	 * @param retentionMillis how long messages should stay in the parrot window
+	 */
+	public synchronized void record(final UUID uniqueId, final String message, final long retentionMillis) {
+		final long now = System.currentTimeMillis();
+
+		this.prune(now - retentionMillis);
+
+		final Entry previous = this.window.remove(uniqueId);
+
+		if (previous != null)
+			this.removeFromLength(previous);
+
+		final Entry entry = new Entry(uniqueId, message, message.toLowerCase(), now);
+
+		this.window.put(uniqueId, entry);
+		this.entriesByLength.computeIfAbsent(entry.getLowercase().length(), key -> new HashSet<>()).add(entry);
+
+		final String previousMessage = this.lastMessages.put(uniqueId, message);
+
+		if (previousMessage != null) {
+			final Set<UUID> players = this.playersByMessage.get(previousMessage);
+
+			if (players != null) {
+				players.remove(uniqueId);
+
+				if (players.isEmpty())
+					this.playersByMessage.remove(previousMessage);
+			}
+		}
+
+		this.playersByMessage.computeIfAbsent(message, key -> new HashSet<>()).add(uniqueId);
+	}
+
+	/**
+	 * Forget all messages of the given player, called when they quit
+	 *
+	 * @param uniqueId
+	 */
+	public synchronized void remove(final UUID uniqueId) {
+		final Entry entry = this.window.remove(uniqueId);
+
+		if (entry != null)
+			this.removeFromLength(entry);
+
+		final String message = this.lastMessages.remove(uniqueId);
+
+		if (message != null) {
+			final Set<UUID> players = this.playersByMessage.get(message);
+
+			if (players != null) {
+				players.remove(uniqueId);
+
+				if (players.isEmpty())
+					this.playersByMessage.remove(message);
+			}
+		}
+	}
+
+	/**
+	 * Return the similarity of the given message to the first last message of another
+	 * player sent after the given time that reaches the threshold, or -1 if none does
+	 *
+	 * @param sender the player whose own messages are ignored
+	 * @param message
+	 * @param since
+	 * @param threshold from 0 to 1
+	 * @param isOnline filter to skip players who are no longer online
+	 * @return
+	 */
+	public double findSimilar(final UUID sender, final String message, final long since, final double threshold, final Predicate<UUID> isOnline) {
+		if (threshold > 1)
+			return -1;
+
+		final Entry query = new Entry(sender, message, message.toLowerCase(), System.currentTimeMillis());
+		final List<Entry> candidates = new ArrayList<>();
+
+		synchronized (this) {
+			this.prune(since);
+
+			final int length = query.getLowercase().length();
+			final Collection<Set<Entry>> buckets;
+
+			// Similarity is (longer - distance) / longer and distance is at least the length difference
+			if (threshold <= 0)
+				buckets = this.entriesByLength.values();
+
+			else
+				buckets = this.entriesByLength.subMap((int) Math.ceil(length * threshold - 1e-9), true, (int) Math.floor(length / threshold + 1e-9), true).values();
+
+			for (final Set<Entry> bucket : buckets)
+				for (final Entry entry : bucket)
+					if (!entry.getUniqueId().equals(sender) && canReach(query, entry, threshold))
+						candidates.add(entry);
+		}
+
+		for (final Entry candidate : candidates) {
+			if (!isOnline.test(candidate.getUniqueId()))
+				continue;
+
+			final double similarity = SimilarityUtil.getSimilarity(candidate.getMessage(), message, threshold);
+
+			if (similarity != -1)
+				return similarity;
+		}
+
+		return -1;
+	}
+
+	/**
+	 * Return players whose last recorded message equals the given one
+	 *
+	 * @param message
+	 * @return
+	 */
+	public synchronized Set<UUID> getPlayersWithLastMessage(final String message) {
+		final Set<UUID> players = this.playersByMessage.get(message);
+
+		return players == null ? new HashSet<>() : new HashSet<>(players);
+	}
+
+	/*
+	 * Remove messages sent before the given time from the parrot window
+	 */
+	private void prune(final long before) {
+		for (final Iterator<Entry> it = this.window.values().iterator(); it.hasNext();) {
+			final Entry entry = it.next();
+
+			if (entry.getTime() >= before)
+				break;
+
+			it.remove();
+			this.removeFromLength(entry);
+		}
+	}
+
+	/*
+	 * Remove the entry from its length bucket
+	 */
+	private void removeFromLength(final Entry entry) {
+		final int length = entry.getLowercase().length();
+		final Set<Entry> bucket = this.entriesByLength.get(length);
+
+		if (bucket != null) {
+			bucket.remove(entry);
+
+			if (bucket.isEmpty())
+				this.entriesByLength.remove(length);
+		}
+	}
+
+	/*
+	 * Return false if the two messages share too few trigrams to reach the similarity threshold.
+	 *
+	 * Each edit touches at most three trigrams of the longer message, so with at most
+	 * floor(longer * (1 - threshold)) edits at least (longer - 2) - 3 * edits trigrams must be shared.
+	 */
+	private static boolean canReach(final Entry first, final Entry second, final double threshold) {
+		final int longer = Math.max(first.getLowercase().length(), second.getLowercase().length());
+		final int maxEdits = (int) Math.floor(longer * (1 - threshold) + 1e-9);
+		final int minShared = longer - 2 - 3 * maxEdits;
+
+		if (minShared <= 0)
+			return true;
+
+		final int[] firstTrigrams = first.getTrigrams();
+		final int[] secondTrigrams = second.getTrigrams();
+
+		int shared = 0;
+
+		for (int i = 0, j = 0; i < firstTrigrams.length && j < secondTrigrams.length;)
+			if (firstTrigrams[i] == secondTrigrams[j]) {
+				shared++;
+				i++;
+				j++;
+
+			} else if (firstTrigrams[i] < secondTrigrams[j])
+				i++;
+
+			else
+				j++;
+
+		return shared >= minShared;
+	}
+
+	/*
+	 * Return the sorted hashes of all trigrams in the message, with duplicates
+	 */
+	private static int[] computeTrigrams(final String message) {
+		if (message.length() < 3)
+			return new int[0];
+
+		final int[] trigrams = new int[message.length() - 2];
+
+		for (int i = 0; i < trigrams.length; i++)
+			trigrams[i] = (message.charAt(i) * 31 + message.charAt(i + 1)) * 31 + message.charAt(i + 2);
+
+		Arrays.sort(trigrams);
+		return trigrams;
+	}
+
+	/**
+	 * Represents a single message in the window
+	 */
+	@Getter
+	@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+	private static final class Entry {
+
+		/**
+		 * The player who sent the message
+		 */
+		private final UUID uniqueId;
+
+		/**
+		 * The message as sent
+		 */
+		private final String message;
+
+		/**
+		 * The lowercase message, used for filtering
+		 */
+		private final String lowercase;
+
+		/**
+		 * When the message was sent
+		 */
+		private final long time;
+
+		/**
+		 * The lazily computed trigram signature
+		 */
+		private int[] trigrams;
+
+		/**
+		 * Return the sorted trigram hashes of this message
+		 *
+		 * @return
+		 */
+		public int[] getTrigrams() {
+			if (this.trigrams == null)
+				this.trigrams = computeTrigrams(this.lowercase);
+
+			return this.trigrams;
+		}
+	}
+}
@@ -297,6 +297,30 @@ public final class WarningPoints {
 		return action != null && action.execute(Platform.toPlayer(player));
 	}
 
+	/**
+	 * Return if giving the points would run a warn action, without giving them.
+	 * Used to decide about warn messages before the points are given on the main thread.
+	 *
+	 * @param player
+	 * @param setName
+	 * @param pendingPoints points already queued for the player in this set but not given yet
+	 * @param exactAmount
+	 * @return
+	 */
+	public boolean willWarn(final Player player, final String setName, final int pendingPoints, final double exactAmount) {
+		if (!Settings.WarningPoints.ENABLED || player.hasPermission(Permissions.Bypass.WARNING_POINTS) || exactAmount < 1)
+			return false;
+
+		final WarnSet set = this.getSet(setName);
+
+		if (set == null)
+			return false;
+
+		final int points = PlayerCache.fromCached(player).getWarnPoints(setName) + pendingPoints + (int) Math.round(exactAmount);
+
+		return this.findHighestAction(set, points, player) != null;
+	}
+
 	//
 	// Give the warning points to the player's data.yml section.
 	// Returns new points
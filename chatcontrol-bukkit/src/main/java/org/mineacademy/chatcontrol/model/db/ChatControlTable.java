@@ -62,6 +62,21 @@ public enum ChatControlTable implements Table {
 		}
 	},
 
+	MAIL_RECIPIENTS("mail_recipients", "ChatControl_Mail_Recipients", MailRecipient.class) {
+
+		@Override
+		public void onTableCreate(final TableCreator creator) {
+			creator
+					.addAutoIncrement("Id", "int")
+					.addNotNull("Mail_UUID", "varchar(64)")
+					.addNotNull("Recipient", "varchar(64)")
+					.addDefault("Opened", "tinyint(1)", "0")
+					.addDefault("Open_Time", "bigint(20)", "-1")
+					.addDefault("Deleted", "tinyint(1)", "0")
+					.setPrimaryColumn("Id");
+		}
+	},
+
 	SETTINGS("settings", "ChatControl_Settings", ServerSettings.class) {
 
 		@Override
@@ -1,8 +1,11 @@
 package org.mineacademy.chatcontrol.model.db;
 
+import java.sql.Connection;
+import java.sql.DriverManager;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.sql.Timestamp;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -10,8 +13,10 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 import java.util.function.Consumer;
 
@@ -56,6 +61,23 @@ public final class Database extends SimpleDatabase {
 	@Getter
 	private static final Database instance = new Database();
 
+	/**
+	 * Where we connected to, used to open the log writer connection
+	 */
+	private String url;
+	private String user;
+	private String password;
+
+	/**
+	 * How far back before the last backfill we look for mails without recipient rows
+	 */
+	private static final long MAIL_BACKFILL_MARGIN_MILLIS = 5 * 60 * 1000;
+
+	/**
+	 * The date of the newest mail when we last copied recipients of mails from older servers, -1 if never
+	 */
+	private volatile long mailBackfillDate = -1;
+
 	/**
 	 * The map of UUID to player name
 	 */
@@ -66,6 +88,13 @@ public final class Database extends SimpleDatabase {
 	 */
 	private final Map<String, UUID> nameToUniqueId = new HashMap<>();
 
+	/**
+	 * Start the task periodically copying recipients of mails sent by servers running an older version
+	 */
+	public static void scheduleTask() {
+		Platform.runTaskTimerAsync(20 * 60, () -> instance.backfillMailRecipients());
+	}
+
 	/**
 	 * Called manually after the plugin is started to prevent NPE because settings#log#clean_after is loaded after the database is connected
 	 * so we cannot call this in onConnected()
@@ -77,6 +106,15 @@ public final class Database extends SimpleDatabase {
 		// Upgrade table structure
 		this.migrateMailTable(ChatControlTable.MAIL);
 
+		// Index columns we filter by, /chc log by type, sender and date, inboxes by recipient
+		this.createIndex(ChatControlTable.LOGS, "Type_Sender_Date", false, "Type, Sender COLLATE NOCASE, Date", "Type(32), Sender(64), Date");
+		this.createIndex(ChatControlTable.MAIL_RECIPIENTS, "Mail_Recipient", true, "Mail_UUID, Recipient", "Mail_UUID, Recipient");
+		this.createIndex(ChatControlTable.MAIL_RECIPIENTS, "Recipient", false, "Recipient", "Recipient");
+		this.createIndex(ChatControlTable.MAIL, "Send_Date", false, "Send_Date", "Send_Date");
+
+		// Copy recipients of mails sent before the recipients table existed
+		this.backfillMailRecipients();
+
 		// Load caches
 		this.selectColumns(ChatControlTable.PLAYERS, Arrays.asList("UUID", "Name"), resultSet -> {
 			final String uuid = resultSet.getString("UUID");
@@ -100,8 +138,10 @@ public final class Database extends SimpleDatabase {
 		if (Settings.Log.CLEAN_AFTER.isEnabled())
 			this.deleteOlderThan(ChatControlTable.LOGS, new Timestamp(System.currentTimeMillis() - Settings.Log.CLEAN_AFTER.getTimeSeconds() * 1000));
 
-		if (Settings.Mail.CLEAN_AFTER.isEnabled())
+		if (Settings.Mail.CLEAN_AFTER.isEnabled()) {
 			this.updateUnsafe("DELETE FROM " + ChatControlTable.MAIL.getName() + " WHERE Send_Date < " + (System.currentTimeMillis() - Settings.Mail.CLEAN_AFTER.getTimeMilliseconds()));
+			this.updateUnsafe("DELETE FROM " + ChatControlTable.MAIL_RECIPIENTS.getName() + " WHERE Mail_UUID NOT IN (SELECT UUID FROM " + ChatControlTable.MAIL.getName() + ")");
+		}
 
 		if (Settings.CLEAR_DATA_IF_INACTIVE.isEnabled())
 			this.updateUnsafe("DELETE FROM " + ChatControlTable.PLAYERS.getName() + " WHERE LastModified < " + (System.currentTimeMillis() - Settings.CLEAR_DATA_IF_INACTIVE.getTimeMilliseconds()));
@@ -123,6 +163,41 @@ public final class Database extends SimpleDatabase {
 		return ChatControlTable.values();
 	}
 
+	/*
+	 * Create the index unless it exists, MySQL needs a prefix length for text columns
+	 */
+	private void createIndex(final Table table, final String name, final boolean unique, final String sqliteColumns, final String mysqlColumns) {
+		final String indexName = table.getName() + "_" + name;
+		final String create = "CREATE " + (unique ? "UNIQUE " : "") + "INDEX ";
+
+		try {
+			if (this.isSQLite())
+				this.updateUnsafe(create + "IF NOT EXISTS " + indexName + " ON " + table.getName() + " (" + sqliteColumns + ")");
+
+			else {
+
+				// MySQL has no IF NOT EXISTS for indexes
+				try (PreparedStatement statement = this.prepareStatement("SHOW INDEX FROM " + table.getName() + " WHERE Key_name = ?")) {
+					statement.setString(1, indexName);
+
+					try (ResultSet resultSet = statement.executeQuery()) {
+						if (resultSet.next())
+							return;
+					}
+				}
+
+				CommonCore.log("Indexing " + table.getName() + " table, this may take a while on large tables...");
+
+				try (PreparedStatement statement = this.prepareStatement(create + indexName + " ON " + table.getName() + " (" + mysqlColumns + ")")) {
+					statement.executeUpdate();
+				}
+			}
+
+		} catch (final SQLException ex) {
+			CommonCore.error(ex, "Error indexing " + table.getName() + " table.");
+		}
+	}
+
 	/* -------------------------------------------------------------------------------*/
 	/* Name to UUID cache */
 	/* -------------------------------------------------------------------------------*/
@@ -284,6 +359,141 @@ public final class Database extends SimpleDatabase {
 		return this.getRowsWhere(ChatControlTable.LOGS, Where.builder().equals("Type", type.getKey()));
 	}
 
+	/**
+	 * Connect to the database and remember where, so that the log writer can open its own connection
+	 *
+	 * @param url
+	 * @param user
+	 * @param password
+	 */
+	public void connectTo(final String url, @Nullable final String user, @Nullable final String password) {
+		this.url = url;
+		this.user = user;
+		this.password = password;
+
+		if (user == null)
+			this.connect(url);
+
+		else
+			this.connect(url, user, password);
+	}
+
+	/**
+	 * Open a new connection to the database we are connected to with auto commit off,
+	 * used by the log writer so its transactions do not mix with statements from other threads
+	 *
+	 * @return
+	 * @throws SQLException
+	 */
+	Connection openLogConnection() throws SQLException {
+		ValidCore.checkNotNull(this.url, "Cannot open a log connection before connecting to the database");
+
+		final Connection connection = this.user == null ? DriverManager.getConnection(this.url) : DriverManager.getConnection(this.url, this.user, this.password);
+
+		// Wait for the main connection to finish writing instead of failing right away
+		if (this.url.startsWith("jdbc:sqlite:"))
+			try (Statement statement = connection.createStatement()) {
+				statement.execute("PRAGMA busy_timeout = 5000");
+			}
+
+		connection.setAutoCommit(false);
+
+		return connection;
+	}
+
+	/**
+	 * Insert the given logs in one batch on the given connection and commit them at once,
+	 * rolling back all of them if any fails
+	 *
+	 * @param connection
+	 * @param logs
+	 * @throws SQLException
+	 */
+	void insertLogs(final Connection connection, final List<Log> logs) throws SQLException {
+		final String sql = "INSERT INTO " + ChatControlTable.LOGS.getName() + " (Server, Date, Type, Sender, Receiver, Content, ChannelName, RuleName, RuleGroupName) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+		try (PreparedStatement statement = connection.prepareStatement(sql)) {
+			for (final Log log : logs) {
+				statement.setString(1, log.getServer());
+				statement.setTimestamp(2, new Timestamp(log.getDate()));
+				statement.setString(3, log.getType().getKey());
+				statement.setString(4, log.getSender());
+				statement.setString(5, log.getReceivers().isEmpty() ? null : CommonCore.convertListToJson(log.getReceivers()));
+				statement.setString(6, log.getContent());
+				statement.setString(7, log.getChannelName());
+				statement.setString(8, log.getRuleName());
+				statement.setString(9, log.getRuleGroupName());
+
+				statement.addBatch();
+			}
+
+			statement.executeBatch();
+			connection.commit();
+
+		} catch (final SQLException ex) {
+			try {
+				connection.rollback();
+
+			} catch (final SQLException rollbackEx) {
+				ex.addSuppressed(rollbackEx);
+			}
+
+			throw ex;
+		}
+	}
+
+	/**
+	 * Return logs matching the given query, newest first
+	 *
+	 * @param query
+	 * @return
+	 */
+	public List<Log> getLogs(final LogQuery query) {
+		final List<Log> logs = new ArrayList<>();
+
+		this.streamLogs(query, logs::add);
+
+		return logs;
+	}
+
+	/**
+	 * Pass logs matching the given query to the consumer one by one as they are read, newest first,
+	 * without keeping them in memory.
+	 *
+	 * @param query
+	 * @param consumer
+	 * @return the lowest id read to pass to {@link LogQuery#beforeId(int)} for the next page, or -1 if nothing matched
+	 */
+	public int streamLogs(final LogQuery query, final Consumer<Log> consumer) {
+		final Table table = ChatControlTable.LOGS;
+		final List<Object> values = new ArrayList<>();
+		final String sql = query.toSql(this.isSQLite(), values);
+		int lowestId = -1;
+
+		try (PreparedStatement statement = this.prepareStatement(sql)) {
+			for (int i = 0; i < values.size(); i++)
+				statement.setObject(i + 1, values.get(i));
+
+			try (ResultSet resultSet = statement.executeQuery()) {
+				while (resultSet.next()) {
+					lowestId = resultSet.getInt("Id");
+
+					try {
+						consumer.accept(new Log(SimpleResultSet.wrap(table, resultSet)));
+
+					} catch (final SQLException ex) {
+						CommonCore.error(ex, "Skipping malformed log with id " + lowestId + " in " + table.getName() + " table.");
+					}
+				}
+			}
+
+		} catch (final Throwable t) {
+			CommonCore.error(t, "Error reading logs from " + table.getName() + " table with query: " + sql);
+		}
+
+		return lowestId;
+	}
+
 	/* ------------------------------------------------------------------------------- */
 	/* Mail */
 	/* ------------------------------------------------------------------------------- */
@@ -364,6 +574,61 @@ public final class Database extends SimpleDatabase {
 		}
 	}
 
+	/**
+	 * Copy recipients of mails which have none in the recipients table yet, such as mails
+	 * sent before the table existed or by servers on the same database running an older version.
+	 *
+	 * Only looks for such mails when a mail newer than the last backfill was sent.
+	 */
+	public void backfillMailRecipients() {
+		final Table mailTable = ChatControlTable.MAIL;
+		final Table recipientsTable = ChatControlTable.MAIL_RECIPIENTS;
+
+		if (!this.isConnected())
+			return;
+
+		final long latestDate;
+
+		try (PreparedStatement statement = this.prepareStatement("SELECT MAX(Send_Date) AS Latest FROM " + mailTable.getName());
+				ResultSet resultSet = statement.executeQuery()) {
+
+			latestDate = resultSet.next() ? resultSet.getLong("Latest") : 0;
+
+		} catch (final SQLException ex) {
+			CommonCore.error(ex, "Error reading the latest mail date from " + mailTable.getName() + " table.");
+
+			return;
+		}
+
+		if (latestDate <= this.mailBackfillDate)
+			return;
+
+		final List<Mail> mails = new ArrayList<>();
+
+		// Look back a while since servers on the same database may have clocks slightly apart
+		try (PreparedStatement statement = this.prepareStatement("SELECT * FROM " + mailTable.getName() + " WHERE Send_Date >= ? AND UUID NOT IN (SELECT Mail_UUID FROM " + recipientsTable.getName() + ")")) {
+			statement.setLong(1, this.mailBackfillDate == -1 ? Long.MIN_VALUE : this.mailBackfillDate - MAIL_BACKFILL_MARGIN_MILLIS);
+
+			try (ResultSet resultSet = statement.executeQuery()) {
+				while (resultSet.next())
+					mails.add(new Mail(SimpleResultSet.wrap(mailTable, resultSet)));
+			}
+
+		} catch (final SQLException ex) {
+			CommonCore.error(ex, "Error migrating mail recipients to " + recipientsTable.getName() + " table.");
+
+			return;
+		}
+
+		for (final Mail mail : mails)
+			this.insertMailRecipients(mail);
+
+		this.mailBackfillDate = latestDate;
+
+		if (!mails.isEmpty())
+			CommonCore.log("Moved recipients of " + mails.size() + " mails to the " + recipientsTable.getName() + " table.");
+	}
+
 	/**
 	 * Return all mails that the recipient got
 	 *
@@ -371,7 +636,27 @@ public final class Database extends SimpleDatabase {
 	 * @return
 	 */
 	public List<Mail> findMailsTo(final UUID recipient) {
-		final List<Mail> found = this.getRowsWhere(ChatControlTable.MAIL, Where.builder().like("Recipients", recipient.toString()));
+		final List<MailRecipient> rows = this.getRowsWhere(ChatControlTable.MAIL_RECIPIENTS, Where.builder().equals("Recipient", recipient.toString()));
+		final List<Mail> found = new ArrayList<>();
+
+		for (final List<UUID> mailIds : partition(CommonCore.convertList(rows, MailRecipient::getMailId))) {
+			final Table table = ChatControlTable.MAIL;
+
+			try (PreparedStatement statement = this.prepareStatement("SELECT * FROM " + table.getName() + " WHERE UUID IN (" + placeholders(mailIds.size()) + ")")) {
+				for (int i = 0; i < mailIds.size(); i++)
+					statement.setString(i + 1, mailIds.get(i).toString());
+
+				try (ResultSet resultSet = statement.executeQuery()) {
+					while (resultSet.next())
+						found.add(new Mail(SimpleResultSet.wrap(table, resultSet)));
+				}
+
+			} catch (final SQLException ex) {
+				CommonCore.error(ex, "Error reading mails to " + recipient + " from " + table.getName() + " table.");
+			}
+		}
+
+		this.loadMailRecipients(found);
 		Collections.sort(found, Comparator.comparing(Mail::getDate).reversed());
 
 		return found;
@@ -385,6 +670,8 @@ public final class Database extends SimpleDatabase {
 	 */
 	public List<Mail> findMailsFrom(final UUID sender) {
 		final List<Mail> filtered = this.getRowsWhere(ChatControlTable.MAIL, Where.builder().equals("Sender", sender.toString()));
+
+		this.loadMailRecipients(filtered);
 		Collections.sort(filtered, Comparator.comparing(Mail::getDate).reversed());
 
 		return filtered;
@@ -399,7 +686,177 @@ public final class Database extends SimpleDatabase {
 	 */
 	@Nullable
 	public Mail findMail(final UUID uniqueId) {
-		return this.getRowWhere(ChatControlTable.MAIL, Where.builder().equals("UUID", uniqueId.toString()));
+		final Mail mail = this.getRowWhere(ChatControlTable.MAIL, Where.builder().equals("UUID", uniqueId.toString()));
+
+		if (mail != null)
+			this.loadMailRecipients(Arrays.asList(mail));
+
+		return mail;
+	}
+
+	/**
+	 * Store the recipients of the given mail in the recipients table
+	 *
+	 * @param mail
+	 */
+	public void insertMailRecipients(final Mail mail) {
+		this.insertMailRecipients(mail, mail.getRecipients());
+	}
+
+	/*
+	 * Store the given recipients of the mail in the recipients table
+	 */
+	private void insertMailRecipients(final Mail mail, final List<Recipient> recipients) {
+		final Table table = ChatControlTable.MAIL_RECIPIENTS;
+
+		if (recipients.isEmpty())
+			return;
+
+		try (PreparedStatement statement = this.prepareStatement("INSERT INTO " + table.getName() + " (Mail_UUID, Recipient, Opened, Open_Time, Deleted) VALUES (?, ?, ?, ?, ?)")) {
+			for (final Recipient recipient : recipients) {
+				statement.setString(1, mail.getUniqueId().toString());
+				statement.setString(2, recipient.getUniqueId().toString());
+				statement.setBoolean(3, recipient.isOpened());
+				statement.setLong(4, recipient.getOpenTime());
+				statement.setBoolean(5, recipient.isMarkedDeleted());
+
+				statement.addBatch();
+			}
+
+			statement.executeBatch();
+
+		} catch (final SQLException ex) {
+			CommonCore.error(ex, "Error storing recipients of mail " + mail.getUniqueId() + " to " + table.getName() + " table.");
+		}
+	}
+
+	/**
+	 * Update the opened and deleted state of one recipient of the given mail
+	 *
+	 * @param mail
+	 * @param recipient
+	 */
+	void updateMailRecipient(final Mail mail, final Recipient recipient) {
+		final Table table = ChatControlTable.MAIL_RECIPIENTS;
+		int updated = 0;
+
+		try (PreparedStatement statement = this.prepareStatement("UPDATE " + table.getName() + " SET Opened = ?, Open_Time = ?, Deleted = ? WHERE Mail_UUID = ? AND Recipient = ?")) {
+			statement.setBoolean(1, recipient.isOpened());
+			statement.setLong(2, recipient.getOpenTime());
+			statement.setBoolean(3, recipient.isMarkedDeleted());
+			statement.setString(4, mail.getUniqueId().toString());
+			statement.setString(5, recipient.getUniqueId().toString());
+
+			updated = statement.executeUpdate();
+
+		} catch (final SQLException ex) {
+			CommonCore.error(ex, "Error updating recipient " + recipient.getUniqueId() + " of mail " + mail.getUniqueId() + " in " + table.getName() + " table.");
+		}
+
+		// Mail sent from a server running an older version, store rows we do not have yet
+		if (updated == 0)
+			this.insertMissingMailRecipients(mail);
+	}
+
+	/*
+	 * Store recipients of the mail which have no row in the recipients table yet
+	 */
+	private void insertMissingMailRecipients(final Mail mail) {
+		final Table table = ChatControlTable.MAIL_RECIPIENTS;
+		final Set<UUID> stored = new HashSet<>();
+
+		try (PreparedStatement statement = this.prepareStatement("SELECT Recipient FROM " + table.getName() + " WHERE Mail_UUID = ?")) {
+			statement.setString(1, mail.getUniqueId().toString());
+
+			try (ResultSet resultSet = statement.executeQuery()) {
+				while (resultSet.next())
+					stored.add(UUID.fromString(resultSet.getString("Recipient")));
+			}
+
+		} catch (final SQLException ex) {
+			CommonCore.error(ex, "Error reading recipients of mail " + mail.getUniqueId() + " from " + table.getName() + " table.");
+
+			return;
+		}
+
+		final List<Recipient> missing = new ArrayList<>();
+
+		for (final Recipient recipient : mail.getRecipients())
+			if (!stored.contains(recipient.getUniqueId()))
+				missing.add(recipient);
+
+		this.insertMailRecipients(mail, missing);
+	}
+
+	/**
+	 * Update whether the sender deleted the given mail
+	 *
+	 * @param mail
+	 */
+	void updateMailSenderDeleted(final Mail mail) {
+		final Table table = ChatControlTable.MAIL;
+
+		try (PreparedStatement statement = this.prepareStatement("UPDATE " + table.getName() + " SET Sender_Deleted = ? WHERE UUID = ?")) {
+			statement.setBoolean(1, mail.isSenderDeleted());
+			statement.setString(2, mail.getUniqueId().toString());
+
+			statement.executeUpdate();
+
+		} catch (final SQLException ex) {
+			CommonCore.error(ex, "Error updating mail " + mail.getUniqueId() + " in " + table.getName() + " table.");
+		}
+	}
+
+	/*
+	 * Replace recipients of the given mails with their current state from the recipients table
+	 */
+	private void loadMailRecipients(final List<Mail> mails) {
+		final Table table = ChatControlTable.MAIL_RECIPIENTS;
+		final Map<UUID, List<MailRecipient>> rowsByMail = new HashMap<>();
+
+		for (final List<UUID> mailIds : partition(CommonCore.convertList(mails, Mail::getUniqueId)))
+			try (PreparedStatement statement = this.prepareStatement("SELECT * FROM " + table.getName() + " WHERE Mail_UUID IN (" + placeholders(mailIds.size()) + ") ORDER BY Id")) {
+				for (int i = 0; i < mailIds.size(); i++)
+					statement.setString(i + 1, mailIds.get(i).toString());
+
+				try (ResultSet resultSet = statement.executeQuery()) {
+					while (resultSet.next()) {
+						final MailRecipient row = new MailRecipient(SimpleResultSet.wrap(table, resultSet));
+
+						rowsByMail.computeIfAbsent(row.getMailId(), mailId -> new ArrayList<>()).add(row);
+					}
+				}
+
+			} catch (final SQLException ex) {
+				CommonCore.error(ex, "Error reading mail recipients from " + table.getName() + " table.");
+			}
+
+		// Mails without rows keep recipients from their Recipients column
+		for (final Mail mail : mails) {
+			final List<MailRecipient> rows = rowsByMail.get(mail.getUniqueId());
+
+			if (rows != null)
+				mail.loadRecipients(rows);
+		}
+	}
+
+	/*
+	 * Split the ids into lists small enough for one IN clause
+	 */
+	private static List<List<UUID>> partition(final List<UUID> ids) {
+		final List<List<UUID>> parts = new ArrayList<>();
+
+		for (int i = 0; i < ids.size(); i += 500)
+			parts.add(ids.subList(i, Math.min(ids.size(), i + 500)));
+
+		return parts;
+	}
+
+	/*
+	 * Return the given amount of comma separated question marks
+	 */
+	private static String placeholders(final int amount) {
+		return String.join(", ", Collections.nCopies(amount, "?"));
 	}
 
 	/* ------------------------------------------------------------------------------- */
@@ -119,6 +119,19 @@ public final class Log extends RowDate {
 		this.content = content;
 	}
 
+	Log(final String server, final long date, final LogType type, final String sender, final String content, final List<String> receivers, final String channelName, final String ruleName, final String ruleGroupName) {
+		super(date);
+
+		this.server = server;
+		this.type = type;
+		this.sender = sender;
+		this.content = content;
+		this.receivers = receivers;
+		this.channelName = channelName;
+		this.ruleName = ruleName;
+		this.ruleGroupName = ruleGroupName;
+	}
+
 	Log(final SimpleResultSet resultSet) throws SQLException {
 		super(resultSet);
 
@@ -236,7 +249,7 @@ public final class Log extends RowDate {
 			return false;
 		}
 
-		this.insertToQueue();
+		LogWriter.getInstance().offer(this);
 
 		return true;
 	}
@@ -0,0 +1,364 @@
+package org.mineacademy.chatcontrol.model.db;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.annotation.Nullable;
+
+import org.mineacademy.chatcontrol.model.LogType;
+
+import lombok.Getter;
+
+/**
+ * Filters for reading logs which are evaluated by the database instead of
+ * loading the whole log table, newest logs first.
+ *
+ * Use {@link #beforeId(int)} with the lowest id from the previous page
+ * to page through results without an expensive OFFSET.
+ */
+@Getter
+public final class LogQuery {
+
+	/**
+	 * Matches any rule or group, but only logs which have one
+	 */
+	public static final String ANY = "*";
+
+	/**
+	 * The log type, null for all types
+	 */
+	@Nullable
+	private LogType type;
+
+	/**
+	 * The sender name, case insensitive
+	 */
+	@Nullable
+	private String sender;
+
+	/**
+	 * Only logs created at or after this time
+	 */
+	private long from = -1;
+
+	/**
+	 * Only logs created at or before this time
+	 */
+	private long to = -1;
+
+	/**
+	 * The channel name, case insensitive
+	 */
+	@Nullable
+	private String channel;
+
+	/**
+	 * The command label such as /tell, case insensitive
+	 */
+	@Nullable
+	private String label;
+
+	/**
+	 * One of the receivers
+	 */
+	@Nullable
+	private String receiver;
+
+	/**
+	 * Text the content must contain
+	 */
+	@Nullable
+	private String contentPart;
+
+	/**
+	 * The rule name, {@link #ANY} for any rule, null for logs without a rule
+	 */
+	@Nullable
+	private String rule;
+
+	/**
+	 * The rule group name, {@link #ANY} for any group, null for logs without a group
+	 */
+	@Nullable
+	private String group;
+
+	/**
+	 * Whether to match logs regardless of their rule and group
+	 */
+	private boolean anyOperator = true;
+
+	/**
+	 * Only logs with a lower id, used for keyset pagination
+	 */
+	private int beforeId = -1;
+
+	/**
+	 * How many logs to return at most, -1 for no limit
+	 */
+	private int limit = -1;
+
+	/**
+	 * How many matching logs to skip, prefer {@link #beforeId(int)} on large tables
+	 */
+	private int offset = 0;
+
+	/**
+	 * Only match logs of the given type
+	 *
+	 * @param type
+	 * @return
+	 */
+	public LogQuery type(@Nullable final LogType type) {
+		this.type = type;
+
+		return this;
+	}
+
+	/**
+	 * Only match logs from the given sender
+	 *
+	 * @param sender
+	 * @return
+	 */
+	public LogQuery sender(final String sender) {
+		this.sender = sender;
+
+		return this;
+	}
+
+	/**
+	 * Only match logs created at or after the given time
+	 *
+	 * @param from
+	 * @return
+	 */
+	public LogQuery from(final long from) {
+		this.from = from;
+
+		return this;
+	}
+
+	/**
+	 * Only match logs created at or before the given time
+	 *
+	 * @param to
+	 * @return
+	 */
+	public LogQuery to(final long to) {
+		this.to = to;
+
+		return this;
+	}
+
+	/**
+	 * Only match logs from the given channel
+	 *
+	 * @param channel
+	 * @return
+	 */
+	public LogQuery channel(final String channel) {
+		this.channel = channel;
+
+		return this;
+	}
+
+	/**
+	 * Only match commands with the given label
+	 *
+	 * @param label
+	 * @return
+	 */
+	public LogQuery label(final String label) {
+		this.label = label;
+
+		return this;
+	}
+
+	/**
+	 * Only match logs sent to the given receiver
+	 *
+	 * @param receiver
+	 * @return
+	 */
+	public LogQuery receiver(final String receiver) {
+		this.receiver = receiver;
+
+		return this;
+	}
+
+	/**
+	 * Only match logs which content contains the given text
+	 *
+	 * @param contentPart
+	 * @return
+	 */
+	public LogQuery contentContains(final String contentPart) {
+		this.contentPart = contentPart;
+
+		return this;
+	}
+
+	/**
+	 * Only match logs of the given rule and group. Null excludes logs with a rule or a group,
+	 * {@link #ANY} matches every rule or group.
+	 *
+	 * @param rule
+	 * @param group
+	 * @return
+	 */
+	public LogQuery operator(@Nullable final String rule, @Nullable final String group) {
+		this.rule = rule;
+		this.group = group;
+		this.anyOperator = false;
+
+		return this;
+	}
+
+	/**
+	 * Only match logs older than the given id
+	 *
+	 * @param beforeId
+	 * @return
+	 */
+	public LogQuery beforeId(final int beforeId) {
+		this.beforeId = beforeId;
+
+		return this;
+	}
+
+	/**
+	 * Return at most the given amount of logs
+	 *
+	 * @param limit
+	 * @return
+	 */
+	public LogQuery limit(final int limit) {
+		this.limit = limit;
+
+		return this;
+	}
+
+	/**
+	 * Skip the given amount of matching logs
+	 *
+	 * @param offset
+	 * @return
+	 */
+	public LogQuery offset(final int offset) {
+		this.offset = offset;
+
+		return this;
+	}
+
+	/**
+	 * Build the SELECT statement, adding its parameters to the given list
+	 *
+	 * @param sqlite
+	 * @param values
+	 * @return
+	 */
+	String toSql(final boolean sqlite, final List<Object> values) {
+		final List<String> conditions = new ArrayList<>();
+
+		if (this.type != null) {
+			conditions.add("Type = ?");
+			values.add(this.type.getKey());
+		}
+
+		if (this.sender != null) {
+			conditions.add(equalsIgnoreCase("Sender", sqlite));
+			values.add(this.sender);
+		}
+
+		if (this.from != -1) {
+			conditions.add("Date >= ?");
+			values.add(new Timestamp(this.from));
+		}
+
+		if (this.to != -1) {
+			conditions.add("Date <= ?");
+			values.add(new Timestamp(this.to));
+		}
+
+		if (this.channel != null) {
+			conditions.add(equalsIgnoreCase("ChannelName", sqlite));
+			values.add(this.channel);
+		}
+
+		if (this.label != null) {
+			conditions.add("(" + equalsIgnoreCase("Content", sqlite) + " OR Content LIKE ? ESCAPE '!')");
+			values.add(this.label);
+			values.add(escapeLike(this.label) + " %");
+		}
+
+		// Some rows store receivers with escaped quotes, see Log
+		if (this.receiver != null) {
+			conditions.add("(Receiver LIKE ? ESCAPE '!' OR Receiver LIKE ? ESCAPE '!')");
+			values.add("%\"" + escapeLike(this.receiver) + "\"%");
+			values.add("%\\\"" + escapeLike(this.receiver) + "\\\"%");
+		}
+
+		if (this.contentPart != null) {
+			conditions.add("Content LIKE ? ESCAPE '!'");
+			values.add("%" + escapeLike(this.contentPart) + "%");
+		}
+
+		if (!this.anyOperator) {
+			addOperatorCondition("RuleName", this.rule, conditions, values, sqlite);
+			addOperatorCondition("RuleGroupName", this.group, conditions, values, sqlite);
+		}
+
+		if (this.beforeId != -1) {
+			conditions.add("Id < ?");
+			values.add(this.beforeId);
+		}
+
+		String sql = "SELECT * FROM " + ChatControlTable.LOGS.getName();
+
+		if (!conditions.isEmpty())
+			sql += " WHERE " + String.join(" AND ", conditions);
+
+		sql += " ORDER BY Id DESC";
+
+		// SQLite and MySQL only accept OFFSET after LIMIT
+		if (this.limit != -1 || this.offset > 0) {
+			sql += " LIMIT ? OFFSET ?";
+
+			values.add(this.limit != -1 ? this.limit : Integer.MAX_VALUE);
+			values.add(this.offset);
+		}
+
+		return sql;
+	}
+
+	/*
+	 * Add the condition for a rule or group column
+	 */
+	private static void addOperatorCondition(final String column, @Nullable final String name, final List<String> conditions, final List<Object> values, final boolean sqlite) {
+		if (name == null)
+			conditions.add("(" + column + " IS NULL OR " + column + " = '')");
+
+		else if (ANY.equals(name))
+			conditions.add("(" + column + " IS NOT NULL AND " + column + " <> '')");
+
+		else {
+			conditions.add(equalsIgnoreCase(column, sqlite));
+			values.add(name);
+		}
+	}
+
+	/*
+	 * MySQL compares text case insensitively by default, SQLite needs to be told to
+	 */
+	private static String equalsIgnoreCase(final String column, final boolean sqlite) {
+		return column + " = ?" + (sqlite ? " COLLATE NOCASE" : "");
+	}
+
+	/*
+	 * Escape LIKE wildcards using ! as the escape character
+	 */
+	private static String escapeLike(final String value) {
+		return value.replace("!", "!!").replace("%", "!%").replace("_", "!_");
+	}
+}
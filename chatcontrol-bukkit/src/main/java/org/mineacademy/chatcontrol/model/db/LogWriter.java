@@ -0,0 +1,496 @@
+package org.mineacademy.chatcontrol.model.db;
+
+import java.io.File;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import org.bukkit.Bukkit;
+import org.mineacademy.chatcontrol.model.LogType;
+import org.mineacademy.chatcontrol.settings.Settings;
+import org.mineacademy.fo.CommonCore;
+import org.mineacademy.fo.FileUtil;
+import org.mineacademy.fo.SerializeUtilCore.Language;
+import org.mineacademy.fo.collection.SerializedMap;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Writes logs from any thread to the database in batches on a single writer thread,
+ * committing each batch at once on its own connection instead of inserting rows one by one.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class LogWriter {
+
+	/**
+	 * The singleton of this class
+	 */
+	@Getter
+	private static final LogWriter instance = new LogWriter();
+
+	/**
+	 * The file in the plugin folder holding logs which did not fit the queue or failed to save
+	 */
+	private static final String SPILL_FILE = "logs-spill.json";
+
+	/**
+	 * How long to block a producer at most when the queue is full before dropping its log
+	 */
+	private static final long MAX_BLOCK_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+	/**
+	 * How often we recalculate rows per second and queue latency
+	 */
+	private static final long STATS_WINDOW_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+	/**
+	 * Logs waiting to be written, lock-free for producers
+	 */
+	private final Queue<QueuedLog> queue = new ConcurrentLinkedQueue<>();
+
+	/**
+	 * How many logs are in the queue since {@link ConcurrentLinkedQueue#size()} is not constant time
+	 */
+	private final AtomicInteger queueSize = new AtomicInteger();
+
+	/**
+	 * Held while writing so that flushing from another thread does not write the same batch twice
+	 */
+	private final Object writeLock = new Object();
+
+	/**
+	 * Held while appending to or replaying the spill file
+	 */
+	private final Object spillLock = new Object();
+
+	/**
+	 * Our own connection to the database, only used while holding the write lock
+	 */
+	private Connection connection;
+
+	/**
+	 * The writer thread, null until the first log is offered
+	 */
+	private volatile Thread thread;
+
+	/**
+	 * Whether the writer thread should keep running
+	 */
+	private volatile boolean running;
+
+	/**
+	 * Whether we were shut down, logs offered after that go straight to the spill file
+	 */
+	private volatile boolean shutdown;
+
+	/**
+	 * How many logs we wrote to the database
+	 */
+	@Getter
+	private final LongAdder written = new LongAdder();
+
+	/**
+	 * How many logs we dropped because the queue was full
+	 */
+	@Getter
+	private final LongAdder dropped = new LongAdder();
+
+	/**
+	 * How many logs we appended to the spill file
+	 */
+	@Getter
+	private final LongAdder spilled = new LongAdder();
+
+	/**
+	 * Statistics of the current window, only touched while holding the write lock
+	 */
+	private long windowStart = System.nanoTime();
+	private long windowRows;
+	private long windowLatencyNanos;
+	private long windowMaxLatencyNanos;
+
+	/**
+	 * Rows written per second in the last window
+	 */
+	@Getter
+	private volatile double rowsPerSecond;
+
+	/**
+	 * Average time logs waited in the queue in the last window, in milliseconds
+	 */
+	@Getter
+	private volatile double averageLatencyMillis;
+
+	/**
+	 * Longest time a log waited in the queue in the last window, in milliseconds
+	 */
+	@Getter
+	private volatile double maxLatencyMillis;
+
+	/**
+	 * Highest queue size seen since the last window
+	 */
+	private final AtomicLong peakQueueSize = new AtomicLong();
+
+	/**
+	 * Start the writer thread and queue logs left in the spill file from last time
+	 */
+	public void start() {
+		this.shutdown = false;
+
+		this.startThread();
+		this.replaySpillFile();
+	}
+
+	/**
+	 * Queue the log to be written, applying the overflow policy from settings when the queue is full
+	 *
+	 * @param log
+	 */
+	public void offer(final Log log) {
+		if (this.shutdown) {
+			this.spill(log);
+
+			return;
+		}
+
+		if (this.queueSize.get() >= Settings.Log.QUEUE_LIMIT) {
+			final Overflow overflow = Settings.Log.QUEUE_OVERFLOW;
+
+			if (overflow == Overflow.SPILL) {
+				this.spill(log);
+
+				return;
+			}
+
+			// Never hold up the server thread, the log is dropped there instead
+			if (overflow == Overflow.BLOCK && !Thread.currentThread().equals(this.thread) && !Bukkit.isPrimaryThread()) {
+				final long deadline = System.nanoTime() + MAX_BLOCK_NANOS;
+
+				while (this.queueSize.get() >= Settings.Log.QUEUE_LIMIT && System.nanoTime() < deadline) {
+					LockSupport.unpark(this.thread);
+					LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+				}
+			}
+
+			if (this.queueSize.get() >= Settings.Log.QUEUE_LIMIT) {
+				this.dropped.increment();
+
+				return;
+			}
+		}
+
+		this.startThread();
+		this.queue.add(new QueuedLog(log, System.nanoTime()));
+
+		final int size = this.queueSize.incrementAndGet();
+		this.peakQueueSize.accumulateAndGet(size, Math::max);
+
+		if (size >= Settings.Log.QUEUE_BATCH_SIZE)
+			LockSupport.unpark(this.thread);
+	}
+
+	/**
+	 * Write all queued logs now on the calling thread, call before the database disconnects
+	 */
+	public void flush() {
+		this.writeQueued();
+	}
+
+	/**
+	 * Stop the writer thread and write what is left in the queue
+	 */
+	public void shutdown() {
+		final Thread thread;
+
+		synchronized (this) {
+			thread = this.thread;
+
+			this.shutdown = true;
+			this.running = false;
+			this.thread = null;
+		}
+
+		if (thread != null) {
+			LockSupport.unpark(thread);
+
+			try {
+				thread.join(TimeUnit.SECONDS.toMillis(10));
+
+			} catch (final InterruptedException ex) {
+				Thread.currentThread().interrupt();
+			}
+		}
+
+		this.flush();
+
+		synchronized (this.writeLock) {
+			this.closeConnection();
+		}
+
+		// Keep what we could not write for the next start
+		for (QueuedLog queued; (queued = this.queue.poll()) != null;) {
+			this.queueSize.decrementAndGet();
+			this.spill(queued.getLog());
+		}
+	}
+
+	/**
+	 * Return how many logs are waiting in the queue
+	 *
+	 * @return
+	 */
+	public int getQueueSize() {
+		return this.queueSize.get();
+	}
+
+	/**
+	 * Return the highest queue size in the current statistics window
+	 *
+	 * @return
+	 */
+	public long getPeakQueueSize() {
+		return this.peakQueueSize.get();
+	}
+
+	/*
+	 * Start the writer thread unless running
+	 */
+	private synchronized void startThread() {
+		if (this.thread != null)
+			return;
+
+		this.running = true;
+		this.thread = new Thread(this::run, "ChatControl Log Writer");
+		this.thread.setDaemon(true);
+		this.thread.start();
+	}
+
+	/*
+	 * Wait until the batch fills up or the flush interval passes, then write
+	 */
+	private void run() {
+		while (this.running) {
+			if (this.queueSize.get() < Settings.Log.QUEUE_BATCH_SIZE)
+				LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(Settings.Log.QUEUE_FLUSH_INTERVAL_MS));
+
+			try {
+				this.writeQueued();
+
+			} catch (final Throwable t) {
+				CommonCore.error(t, "Error writing logs to the database.");
+			}
+		}
+	}
+
+	/*
+	 * Write queued logs in batches, keeping them queued while the database is not connected
+	 */
+	private void writeQueued() {
+		final Database database = Database.getInstance();
+
+		synchronized (this.writeLock) {
+			while (this.queueSize.get() > 0 && database.isConnected()) {
+				final List<QueuedLog> batch = new ArrayList<>();
+
+				for (QueuedLog queued; batch.size() < Settings.Log.QUEUE_BATCH_SIZE && (queued = this.queue.poll()) != null;)
+					batch.add(queued);
+
+				if (batch.isEmpty())
+					break;
+
+				this.queueSize.addAndGet(-batch.size());
+
+				this.write(database, batch);
+			}
+
+			this.updateStats();
+		}
+	}
+
+	/*
+	 * Write the batch in one transaction on our own connection and record how long its logs waited
+	 */
+	private void write(final Database database, final List<QueuedLog> batch) {
+		final List<Log> logs = new ArrayList<>(batch.size());
+		final long now = System.nanoTime();
+
+		for (final QueuedLog queued : batch) {
+			final long latency = now - queued.getQueuedAt();
+
+			logs.add(queued.getLog());
+
+			this.windowLatencyNanos += latency;
+			this.windowMaxLatencyNanos = Math.max(this.windowMaxLatencyNanos, latency);
+		}
+
+		try {
+			if (this.connection == null || this.connection.isClosed())
+				this.connection = database.openLogConnection();
+
+			database.insertLogs(this.connection, logs);
+
+			this.written.add(logs.size());
+			this.windowRows += logs.size();
+
+		} catch (final SQLException ex) {
+			CommonCore.error(ex, "Error writing " + logs.size() + " logs to the database, saving them to " + SPILL_FILE + " to retry on next start.");
+
+			// The batch was rolled back as a whole so none of it is stored yet
+			for (final Log log : logs)
+				this.spill(log);
+
+			// Open a fresh connection next time in case this one broke
+			this.closeConnection();
+		}
+	}
+
+	/*
+	 * Close our connection if open
+	 */
+	private void closeConnection() {
+		if (this.connection != null) {
+			try {
+				this.connection.close();
+
+			} catch (final SQLException ex) {
+				// Already broken
+			}
+
+			this.connection = null;
+		}
+	}
+
+	/*
+	 * Recalculate statistics once the window passes
+	 */
+	private void updateStats() {
+		final long now = System.nanoTime();
+		final long elapsed = now - this.windowStart;
+
+		if (elapsed < STATS_WINDOW_NANOS)
+			return;
+
+		this.rowsPerSecond = this.windowRows * 1_000_000_000D / elapsed;
+		this.averageLatencyMillis = this.windowRows == 0 ? 0 : this.windowLatencyNanos / (double) this.windowRows / 1_000_000D;
+		this.maxLatencyMillis = this.windowMaxLatencyNanos / 1_000_000D;
+
+		this.windowStart = now;
+		this.windowRows = 0;
+		this.windowLatencyNanos = 0;
+		this.windowMaxLatencyNanos = 0;
+		this.peakQueueSize.set(this.queueSize.get());
+	}
+
+	/*
+	 * Append the log to the spill file
+	 */
+	private void spill(final Log log) {
+		final String line = SerializedMap.fromArray(
+				"Server", log.getServer(),
+				"Date", log.getDate(),
+				"Type", log.getType().getKey(),
+				"Sender", log.getSender(),
+				"Content", log.getContent(),
+				"Receivers", log.getReceivers(),
+				"ChannelName", log.getChannelName(),
+				"RuleName", log.getRuleName(),
+				"RuleGroupName", log.getRuleGroupName()).toJson();
+
+		synchronized (this.spillLock) {
+			FileUtil.write(FileUtil.createIfNotExists(SPILL_FILE), Arrays.asList(line), StandardOpenOption.APPEND);
+		}
+
+		this.spilled.increment();
+	}
+
+	/*
+	 * Queue logs from the spill file and empty it
+	 */
+	private void replaySpillFile() {
+		final List<Log> logs = new ArrayList<>();
+
+		synchronized (this.spillLock) {
+			final File file = FileUtil.getFile(SPILL_FILE);
+
+			if (!file.exists())
+				return;
+
+			for (final String line : FileUtil.readLinesFromFile(file)) {
+				if (line.trim().isEmpty())
+					continue;
+
+				try {
+					final SerializedMap map = SerializedMap.fromObject(Language.JSON, line);
+
+					logs.add(new Log(
+							map.getString("Server"),
+							map.getLong("Date"),
+							LogType.fromKey(map.getString("Type")),
+							map.getString("Sender"),
+							map.getString("Content"),
+							map.getStringList("Receivers"),
+							map.getString("ChannelName"),
+							map.getString("RuleName"),
+							map.getString("RuleGroupName")));
+
+				} catch (final Throwable t) {
+					CommonCore.log("Skipping malformed line in " + SPILL_FILE + ": " + line);
+				}
+			}
+
+			file.delete();
+		}
+
+		if (!logs.isEmpty()) {
+			CommonCore.log("Writing " + logs.size() + " logs saved to " + SPILL_FILE + " to the database.");
+
+			for (final Log log : logs)
+				this.offer(log);
+		}
+	}
+
+	/**
+	 * What to do with new logs when the queue is full
+	 */
+	public enum Overflow {
+
+		/**
+		 * Forget the log
+		 */
+		DROP,
+
+		/**
+		 * Wait up to a second for the writer to catch up, then drop the log. Logs from the server thread are dropped right away.
+		 */
+		BLOCK,
+
+		/**
+		 * Append the log to a file in the plugin folder, written to the database on next start
+		 */
+		SPILL
+	}
+
+	/*
+	 * A log with the time it was queued
+	 */
+	@Getter
+	@RequiredArgsConstructor
+	private static final class QueuedLog {
+		private final Log log;
+		private final long queuedAt;
+	}
+}
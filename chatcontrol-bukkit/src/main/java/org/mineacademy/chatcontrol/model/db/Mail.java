@@ -1,6 +1,7 @@
 package org.mineacademy.chatcontrol.model.db;
 
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Set;
@@ -162,7 +163,7 @@ public class Mail extends Row implements ConfigSerializable {
 		ValidCore.checkNotNull(recipient, recipientPlayer.getName() + " has never read mail: " + this.getSubject() + " from " + this.getSenderName());
 
 		recipient.markOpened();
-		this.upsert();
+		Database.getInstance().updateMailRecipient(this, recipient);
 	}
 
 	/**
@@ -173,7 +174,7 @@ public class Mail extends Row implements ConfigSerializable {
 	public void setSenderDeleted(final boolean senderDeleted) {
 		this.senderDeleted = senderDeleted;
 
-		this.upsert();
+		Database.getInstance().updateMailSenderDeleted(this);
 	}
 
 	/*
@@ -195,6 +196,7 @@ public class Mail extends Row implements ConfigSerializable {
 		}
 
 		this.upsert();
+		Database.getInstance().insertMailRecipients(this);
 	}
 
 	/**
@@ -287,7 +289,7 @@ public class Mail extends Row implements ConfigSerializable {
 	public void setDeletedBy(final Recipient recipient) {
 		recipient.setMarkedDeleted(true);
 
-		this.upsert();
+		Database.getInstance().updateMailRecipient(this, recipient);
 	}
 
 	/**
@@ -298,7 +300,20 @@ public class Mail extends Row implements ConfigSerializable {
 	public void setOpenedBy(final Recipient recipient) {
 		recipient.markOpened();
 
-		this.upsert();
+		Database.getInstance().updateMailRecipient(this, recipient);
+	}
+
+	/*
+	 * Replace recipients with their rows from the recipients table, which hold
+	 * the current opened and deleted state instead of the Recipients column
+	 */
+	void loadRecipients(final List<MailRecipient> rows) {
+		final List<Recipient> recipients = new ArrayList<>();
+
+		for (final MailRecipient row : rows)
+			recipients.add(new Recipient(row.getRecipientId(), row.isOpened(), row.getOpenTime(), row.isDeleted()));
+
+		this.recipients = recipients;
 	}
 
 	/**
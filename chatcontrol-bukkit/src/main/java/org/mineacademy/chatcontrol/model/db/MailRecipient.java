@@ -0,0 +1,67 @@
+package org.mineacademy.chatcontrol.model.db;
+
+import java.sql.SQLException;
+import java.util.UUID;
+
+import org.mineacademy.fo.collection.SerializedMap;
+import org.mineacademy.fo.database.Row;
+import org.mineacademy.fo.database.SimpleResultSet;
+import org.mineacademy.fo.database.Table;
+
+import lombok.Getter;
+
+/**
+ * Represents one recipient of one mail in its own row so that inboxes are looked up
+ * by an index and reading or deleting a mail only updates the recipient's row.
+ */
+@Getter
+public final class MailRecipient extends Row {
+
+	/**
+	 * The mail unique ID
+	 */
+	private final UUID mailId;
+
+	/**
+	 * The recipient unique ID
+	 */
+	private final UUID recipientId;
+
+	/**
+	 * Did the recipient open the mail?
+	 */
+	private final boolean opened;
+
+	/**
+	 * When the recipient opened the mail
+	 */
+	private final long openTime;
+
+	/**
+	 * Did the recipient mark the mail as deleted?
+	 */
+	private final boolean deleted;
+
+	MailRecipient(final SimpleResultSet resultSet) throws SQLException {
+		this.mailId = resultSet.getUniqueIdStrict("Mail_UUID");
+		this.recipientId = resultSet.getUniqueIdStrict("Recipient");
+		this.opened = resultSet.getBoolean("Opened");
+		this.openTime = resultSet.getLong("Open_Time");
+		this.deleted = resultSet.getBoolean("Deleted");
+	}
+
+	@Override
+	public Table getTable() {
+		return ChatControlTable.MAIL_RECIPIENTS;
+	}
+
+	@Override
+	public SerializedMap toMap() {
+		return SerializedMap.fromArray(
+				"Mail_UUID", this.mailId,
+				"Recipient", this.recipientId,
+				"Opened", this.opened,
+				"Open_Time", this.openTime,
+				"Deleted", this.deleted);
+	}
+}
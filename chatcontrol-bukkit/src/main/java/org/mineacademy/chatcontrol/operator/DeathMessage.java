@@ -23,6 +23,7 @@ import org.bukkit.inventory.ItemStack;
 import org.bukkit.projectiles.BlockProjectileSource;
 import org.bukkit.projectiles.ProjectileSource;
 import org.mineacademy.chatcontrol.SyncedCache;
+import org.mineacademy.chatcontrol.model.CachedScript;
 import org.mineacademy.chatcontrol.model.PlaceholderPrefix;
 import org.mineacademy.chatcontrol.model.PlayerMessageType;
 import org.mineacademy.chatcontrol.model.WrappedSender;
@@ -39,7 +40,6 @@ import org.mineacademy.fo.exception.FoScriptException;
 import org.mineacademy.fo.exception.MissingEnumException;
 import org.mineacademy.fo.model.HookManager;
 import org.mineacademy.fo.model.IsInList;
-import org.mineacademy.fo.model.JavaScriptExecutor;
 import org.mineacademy.fo.model.SimpleComponent;
 import org.mineacademy.fo.model.Tuple;
 import org.mineacademy.fo.region.DiskRegion;
@@ -609,7 +609,7 @@ public final class DeathMessage extends PlayerMessage {
 					final Object result;
 
 					try {
-						result = JavaScriptExecutor.run(this.replaceVariablesForLegacy(operator.getRequireKillerScript(), operator, wrappedKiller), CommonCore.newHashMap("player", this.wrappedSender.getPlayer(), "killer", killer));
+						result = CachedScript.of(operator.getRequireKillerScript()).run(text -> this.replaceVariablesForLegacy(text, operator, wrappedKiller), CommonCore.newHashMap("player", this.wrappedSender.getPlayer(), "killer", killer));
 
 					} catch (final FoScriptException ex) {
 						CommonCore.logFramed(
@@ -702,7 +702,7 @@ public final class DeathMessage extends PlayerMessage {
 					final Object result;
 
 					try {
-						result = JavaScriptExecutor.run(this.replaceSenderVariablesLegacy(operator.getIgnoreKillerScript(), operator), CommonCore.newHashMap("player", this.wrappedSender.getPlayer(), "killer", killer));
+						result = CachedScript.of(operator.getIgnoreKillerScript()).run(text -> this.replaceSenderVariablesLegacy(text, operator), CommonCore.newHashMap("player", this.wrappedSender.getPlayer(), "killer", killer));
 
 					} catch (final FoScriptException ex) {
 						CommonCore.logFramed(
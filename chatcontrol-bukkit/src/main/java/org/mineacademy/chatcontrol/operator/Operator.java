@@ -10,12 +10,15 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.annotation.Nullable;
 
+import org.bukkit.Bukkit;
 import org.bukkit.command.CommandSender;
 import org.bukkit.entity.Player;
 import org.mineacademy.chatcontrol.SyncedCache;
+import org.mineacademy.chatcontrol.model.CachedScript;
 import org.mineacademy.chatcontrol.model.ChatControlProxyMessage;
 import org.mineacademy.chatcontrol.model.Discord;
 import org.mineacademy.chatcontrol.model.Format;
@@ -43,7 +46,6 @@ import org.mineacademy.fo.model.BossBarMessage;
 import org.mineacademy.fo.model.CompChatColor;
 import org.mineacademy.fo.model.CompToastStyle;
 import org.mineacademy.fo.model.HookManager;
-import org.mineacademy.fo.model.JavaScriptExecutor;
 import org.mineacademy.fo.model.SimpleBook;
 import org.mineacademy.fo.model.SimpleComponent;
 import org.mineacademy.fo.model.SimpleSound;
@@ -54,6 +56,7 @@ import org.mineacademy.fo.model.Tuple;
 import org.mineacademy.fo.model.Variables;
 import org.mineacademy.fo.platform.Platform;
 import org.mineacademy.fo.remain.CompMaterial;
+import org.mineacademy.fo.remain.Remain;
 
 import lombok.AccessLevel;
 import lombok.Getter;
@@ -254,12 +257,17 @@ public abstract class Operator implements org.mineacademy.fo.model.Rule {
 	/**
 	 * The time the operator was last executed
 	 */
-	private long lastExecuted = -1;
+	private volatile long lastExecuted = -1;
 
 	/**
 	 * The time the operator was last executed for the given player name(s)
 	 */
-	private final Map<String, Long> lastExecutedForPlayers = new HashMap<>();
+	private final Map<String, Long> lastExecutedForPlayers = new ConcurrentHashMap<>();
+
+	/**
+	 * Performance counters of this operator, reset on reload
+	 */
+	private final OperatorStats stats = new OperatorStats();
 
 	/**
 	 * @see org.mineacademy.fo.model.Rule#onOperatorParse(java.lang.String[])
@@ -798,6 +806,16 @@ public abstract class Operator implements org.mineacademy.fo.model.Rule {
 		 */
 		private final Set<String> notifyMessages = new HashSet<>();
 
+		/**
+		 * Side effects such as commands or kicks collected while checking, applied on the main thread once the check ends
+		 */
+		private final List<Runnable> effects = new ArrayList<>();
+
+		/**
+		 * Warning points queued as effects but not given yet, by player and warn set
+		 */
+		private final Map<UUID, Map<String, Integer>> pendingWarningPoints = new HashMap<>();
+
 		/**
 		 * Construct check and useful parameters
 		 *
@@ -815,24 +833,67 @@ public abstract class Operator implements org.mineacademy.fo.model.Rule {
 			// Collect all to filter
 			final List<T> operators = this.getOperators();
 
-			// Iterate through all rules and parse
-			for (final T operator : operators)
-				try {
-					this.filter(operator);
+			try {
+
+				// Iterate through all rules and parse
+				for (final T operator : operators) {
+					final long start = System.nanoTime();
+
+					try {
+						this.filter(operator);
+
+					} catch (final OperatorAbortException ex) {
+						if (!operator.isIgnoreVerbose())
+							this.verbose("&cStopping further operator check.");
 
-				} catch (final OperatorAbortException ex) {
-					if (!operator.isIgnoreVerbose())
-						this.verbose("&cStopping further operator check.");
+						break;
 
-					break;
+					} catch (final EventHandledException ex) {
+						if (ex.isCancelled())
+							throw ex; // send upstream if canceled
 
-				} catch (final EventHandledException ex) {
-					if (ex.isCancelled())
-						throw ex; // send upstream if canceled
+					} catch (final Throwable throwable) {
+						CommonCore.throwError(throwable, "Error parsing rule: " + operator, "Error: %error");
 
-				} catch (final Throwable throwable) {
-					CommonCore.throwError(throwable, "Error parsing rule: " + operator, "Error: %error");
+					} finally {
+						operator.getStats().recordEvaluation(System.nanoTime() - start);
+					}
 				}
+
+			} finally {
+				this.applyEffects();
+			}
+		}
+
+		/**
+		 * Queue a side effect touching the server state to run on the main thread
+		 * after all operators were evaluated, including when the message is cancelled
+		 *
+		 * @param effect
+		 */
+		protected final void addEffect(final Runnable effect) {
+			this.effects.add(effect);
+		}
+
+		/*
+		 * Run collected side effects now if we are on the main thread or schedule them for the next tick
+		 */
+		private void applyEffects() {
+			if (this.effects.isEmpty())
+				return;
+
+			final List<Runnable> effects = new ArrayList<>(this.effects);
+			this.effects.clear();
+
+			if (Bukkit.isPrimaryThread())
+				for (final Runnable effect : effects)
+					effect.run();
+
+			else
+				Platform.runTask(() -> {
+					for (final Runnable effect : effects)
+						effect.run();
+				});
 		}
 
 		/**
@@ -888,13 +949,11 @@ public abstract class Operator implements org.mineacademy.fo.model.Rule {
 						return false;
 
 					if (entry.getValue() != null && !"".equals(entry.getValue())) {
-						final String script = this.replaceSenderVariablesLegacy(entry.getValue(), operator);
-
 						final Object value = this.wrappedSender.getPlayerCache().getRuleData(key);
 						final Object result;
 
 						try {
-							result = JavaScriptExecutor.run(script, CommonCore.newHashMap("player", this.wrappedSender.getPlayer(), "value", value));
+							result = CachedScript.of(entry.getValue()).run(text -> this.replaceSenderVariablesLegacy(text, operator), CommonCore.newHashMap("player", this.wrappedSender.getPlayer(), "value", value));
 
 						} catch (final FoScriptException ex) {
 							CommonCore.logFramed(
@@ -902,7 +961,7 @@ public abstract class Operator implements org.mineacademy.fo.model.Rule {
 									"",
 									"Operator: " + operator,
 									"",
-									"Evaluated script with variables replaced: '" + script + "'",
+									"Evaluated script with variables replaced: '" + this.replaceSenderVariablesLegacy(entry.getValue(), operator) + "'",
 									"Sender: " + this.wrappedSender,
 									"Error: " + ex.getMessage(),
 									"",
@@ -927,13 +986,11 @@ public abstract class Operator implements org.mineacademy.fo.model.Rule {
 					if ((entry.getValue() == null || "".equals(entry.getValue())) && value != null)
 						return false;
 
-					final String script = this.replaceSenderVariablesLegacy(entry.getValue(), operator);
-
 					if (value != null) {
 						final Object result;
 
 						try {
-							result = JavaScriptExecutor.run(script, CommonCore.newHashMap("player", this.wrappedSender.getPlayer(), "value", value));
+							result = CachedScript.of(entry.getValue()).run(text -> this.replaceSenderVariablesLegacy(text, operator), CommonCore.newHashMap("player", this.wrappedSender.getPlayer(), "value", value));
 
 						} catch (final FoScriptException ex) {
 							CommonCore.logFramed(
@@ -941,7 +998,7 @@ public abstract class Operator implements org.mineacademy.fo.model.Rule {
 									"",
 									"Operator: " + operator,
 									"",
-									"Evaluated script with variables replaced: '" + script + "'",
+									"Evaluated script with variables replaced: '" + this.replaceSenderVariablesLegacy(entry.getValue(), operator) + "'",
 									"Sender: " + this.wrappedSender,
 									"Error: " + ex.getMessage(),
 									"",
@@ -973,19 +1030,22 @@ public abstract class Operator implements org.mineacademy.fo.model.Rule {
 			if (operator.isIgnoreLogging())
 				this.loggingIgnored = true;
 
+			// Effects run after the check, when checks looping receivers already changed the sender
+			final WrappedSender sender = this.wrappedSender;
+
 			if (this.wrappedSender.isPlayer())
 				for (final String command : operator.getPlayerCommands()) {
-					final String picked = RandomUtil.nextItem(splitVertically(command));
+					final String picked = this.replaceSenderVariablesLegacy(RandomUtil.nextItem(splitVertically(command)), operator);
 
-					this.wrappedSender.getAudience().dispatchCommand(this.replaceSenderVariablesLegacy(picked, operator));
+					this.addEffect(() -> sender.getAudience().dispatchCommand(picked));
 				}
 
 			if (this.firstTimeRun) {
 				if (!this.wrappedSender.isConsole())
 					for (final String command : operator.getConsoleCommands()) {
-						final String picked = RandomUtil.nextItem(splitVertically(command));
+						final String picked = this.replaceSenderVariablesLegacy(RandomUtil.nextItem(splitVertically(command)), operator);
 
-						Platform.dispatchConsoleCommand(this.wrappedSender.getAudience(), this.replaceSenderVariablesLegacy(picked, operator));
+						this.addEffect(() -> Platform.dispatchConsoleCommand(sender.getAudience(), picked));
 					}
 
 				if (this.wrappedSender.isPlayer())
@@ -1017,7 +1077,7 @@ public abstract class Operator implements org.mineacademy.fo.model.Rule {
 						// Delay so it's shown after the message
 						Platform.runTask(2, () -> {
 							for (final Player online : Players.getOnlinePlayersWithLoadedDb())
-								if (online.hasPermission(permission) && !online.getName().equals(this.wrappedSender.getName()))
+								if (online.hasPermission(permission) && !online.getName().equals(sender.getName()))
 									Platform.toPlayer(online).sendMessage(component);
 						});
 
@@ -1050,23 +1110,35 @@ public abstract class Operator implements org.mineacademy.fo.model.Rule {
 
 			if (this.wrappedSender.isPlayer()) {
 				if (operator.getFine() > 0)
-					HookManager.withdraw(this.wrappedSender.getPlayer(), operator.getFine());
+					this.addEffect(() -> HookManager.withdraw(sender.getPlayer(), operator.getFine()));
 
 				for (final Entry<String, Double> entry : operator.getWarningPoints().entrySet()) {
-					final boolean warned = WarningPoints.getInstance().givePoints(this.wrappedSender.getPlayer(), entry.getKey(), entry.getValue());
+					final String setName = entry.getKey();
+					final double amount = entry.getValue();
 
-					if (!this.receivedAnyWarningMessage && warned)
+					// Points are given with the other effects so warn actions keep their order, but we need to know now whether to skip warn messages
+					final Map<String, Integer> pendingPoints = this.pendingWarningPoints.computeIfAbsent(sender.getUniqueId(), uniqueId -> new HashMap<>());
+					final int pending = pendingPoints.getOrDefault(setName, 0);
+
+					if (!this.receivedAnyWarningMessage && WarningPoints.getInstance().willWarn(sender.getPlayer(), setName, pending, amount))
 						this.receivedAnyWarningMessage = true;
+
+					pendingPoints.put(setName, pending + (int) Math.round(amount));
+					this.addEffect(() -> WarningPoints.getInstance().givePoints(sender.getPlayer(), setName, amount));
 				}
 
 				for (final SimpleSound sound : operator.getSounds())
-					sound.play(this.wrappedSender.getPlayer());
+					this.addEffect(() -> sound.play(sender.getPlayer()));
 
 				if (operator.getBook() != null)
-					operator.getBook().openColorized(this.wrappedSender.getAudience());
+					this.addEffect(() -> operator.getBook().openColorized(sender.getAudience()));
 
-				if (operator.getToast() != null)
-					operator.getToast().displayTo(this.wrappedSender.getPlayer(), message -> this.replaceSenderVariablesLegacy(message, operator).replace("\\n", "\n"));
+				if (operator.getToast() != null) {
+					final ToastMessage toast = operator.getToast();
+					final String toastMessage = this.replaceSenderVariablesLegacy(toast.getMessage(), operator).replace("\\n", "\n");
+
+					this.addEffect(() -> Remain.sendToast(sender.getPlayer(), toastMessage, toast.getIcon(), toast.getStyle()));
+				}
 
 				if (operator.getTitle() != null)
 					operator.getTitle().displayLegacyTo(this.wrappedSender.getAudience(), titleOrSubtitle -> this.replaceSenderVariablesLegacy(titleOrSubtitle, operator));
@@ -1079,13 +1151,12 @@ public abstract class Operator implements org.mineacademy.fo.model.Rule {
 
 				for (final Map.Entry<String, String> entry : operator.getSaveData().entrySet()) {
 					final String key = entry.getKey();
-					final String script = this.replaceSenderVariablesLegacy(entry.getValue(), operator);
 					final Object result;
 
 					try {
-						result = script.trim().isEmpty() ? null : JavaScriptExecutor.run(script, CommonCore.newHashMap("player", this.wrappedSender.getPlayer()));
+						result = entry.getValue().trim().isEmpty() ? null : CachedScript.of(entry.getValue()).run(text -> this.replaceSenderVariablesLegacy(text, operator), CommonCore.newHashMap("player", this.wrappedSender.getPlayer()));
 
-						Platform.runTask(() -> this.wrappedSender.getPlayerCache().setRuleData(key, result));
+						Platform.runTask(() -> sender.getPlayerCache().setRuleData(key, result));
 
 					} catch (final FoScriptException ex) {
 						CommonCore.logFramed(
@@ -1093,7 +1164,7 @@ public abstract class Operator implements org.mineacademy.fo.model.Rule {
 								"",
 								"Operator: " + operator,
 								"",
-								"Evaluated script with variables replaced: '" + script + "'",
+								"Evaluated script with variables replaced: '" + this.replaceSenderVariablesLegacy(entry.getValue(), operator) + "'",
 								"Sender: " + this.wrappedSender,
 								"Error: " + ex.getMessage(),
 								"",
@@ -1109,7 +1180,7 @@ public abstract class Operator implements org.mineacademy.fo.model.Rule {
 				final String kickReason = this.replaceSenderVariablesLegacy(operator.getKickMessage(), operator);
 
 				if (!this.wrappedSender.isConsole())
-					this.wrappedSender.getAudience().kick(SimpleComponent.fromMiniAmpersand(kickReason));
+					this.addEffect(() -> sender.getAudience().kick(SimpleComponent.fromMiniAmpersand(kickReason)));
 
 				else if (this.wrappedSender.isDiscord() && Settings.Discord.ENABLED)
 					Discord.getInstance().kickMember(this.wrappedSender.getDiscordSender(), kickReason);
@@ -0,0 +1,216 @@
+package org.mineacademy.chatcontrol.operator;
+
+import java.io.File;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.mineacademy.chatcontrol.model.RuleType;
+import org.mineacademy.chatcontrol.settings.Settings;
+import org.mineacademy.fo.FileUtil;
+import org.mineacademy.fo.model.SimpleRunnable;
+import org.mineacademy.fo.platform.Platform;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+
+/**
+ * Represents lock-free performance counters of a single rule or group.
+ *
+ * Counters are striped {@link LongAdder}s so chat threads recording them never
+ * contend with each other. Evaluation times are also put into a histogram of
+ * power-of-two nanosecond buckets from which we estimate percentiles.
+ */
+@Getter
+public final class OperatorStats {
+
+	/**
+	 * How many power-of-two buckets the histogram has, the last one holds everything above ~2 minutes
+	 */
+	private static final int BUCKETS = 38;
+
+	/**
+	 * The file we dump statistics to in the Prometheus text format
+	 */
+	private static final String EXPORT_FILE = "rule-stats.prom";
+
+	/**
+	 * How many times the operator was evaluated against a message
+	 */
+	private final LongAdder evaluations = new LongAdder();
+
+	/**
+	 * How many times the operator matched and its operators were executed
+	 */
+	private final LongAdder matches = new LongAdder();
+
+	/**
+	 * Cumulative time spent evaluating, including execution
+	 */
+	private final LongAdder evaluationNanos = new LongAdder();
+
+	/**
+	 * Cumulative time spent executing operators after a match
+	 */
+	private final LongAdder executionNanos = new LongAdder();
+
+	/**
+	 * Evaluation counts by the highest set bit of their duration in nanoseconds
+	 */
+	@Getter(AccessLevel.NONE)
+	private final AtomicLongArray evaluationHistogram = new AtomicLongArray(BUCKETS);
+
+	/**
+	 * Record one evaluation that took the given time
+	 *
+	 * @param nanos
+	 */
+	public void recordEvaluation(final long nanos) {
+		this.evaluations.increment();
+		this.evaluationNanos.add(nanos);
+		this.evaluationHistogram.incrementAndGet(Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(Math.max(0, nanos))));
+	}
+
+	/**
+	 * Record one match whose operators took the given time to execute
+	 *
+	 * @param nanos
+	 */
+	public void recordMatch(final long nanos) {
+		this.matches.increment();
+		this.executionNanos.add(nanos);
+	}
+
+	/**
+	 * Return the upper bound, in nanoseconds, of the evaluation time the given
+	 * fraction (such as 0.99) of evaluations fit under, or 0 if never evaluated
+	 *
+	 * @param fraction
+	 * @return
+	 */
+	public long getEvaluationPercentile(final double fraction) {
+		long total = 0;
+
+		for (int i = 0; i < BUCKETS; i++)
+			total += this.evaluationHistogram.get(i);
+
+		if (total == 0)
+			return 0;
+
+		final long threshold = (long) Math.ceil(total * fraction);
+		long cumulative = 0;
+
+		for (int i = 0; i < BUCKETS; i++) {
+			cumulative += this.evaluationHistogram.get(i);
+
+			if (cumulative >= threshold)
+				return i == 0 ? 0 : 1L << i;
+		}
+
+		return 1L << (BUCKETS - 1);
+	}
+
+	/* ------------------------------------------------------------------------------- */
+	/* Static */
+	/* ------------------------------------------------------------------------------- */
+
+	/**
+	 * Start the task periodically writing statistics to the plugin folder when enabled
+	 */
+	public static void scheduleTask() {
+		Platform.runTaskTimerAsync(20 * 60, new ExportTask());
+	}
+
+	/**
+	 * Return statistics of all rules and groups in the Prometheus text exposition format
+	 *
+	 * @return
+	 */
+	public static List<String> toPrometheusLines() {
+		final List<String> rules = new ArrayList<>();
+		final List<String> groups = new ArrayList<>();
+
+		for (final RuleType type : RuleType.values())
+			for (final Rule rule : Rules.getInstance().getRules(type))
+				rule.getStats().appendPrometheus(rules, "type=\"" + type.getKey() + "\",rule=\"" + escapeLabel(rule.getName().isEmpty() ? rule.getMatch() : rule.getName()) + "\"");
+
+		for (final String groupName : Groups.getInstance().getGroupNames())
+			Groups.getInstance().findGroup(groupName).getStats().appendPrometheus(groups, "group=\"" + escapeLabel(groupName) + "\"");
+
+		final List<String> lines = new ArrayList<>();
+
+		appendMetric(lines, "rule", rules);
+		appendMetric(lines, "group", groups);
+
+		return lines;
+	}
+
+	/*
+	 * Append samples of this operator, labels are appended to the metric name later
+	 */
+	private void appendPrometheus(final List<String> samples, final String labels) {
+		final long evaluations = this.evaluations.sum();
+
+		if (evaluations == 0)
+			return;
+
+		samples.add("evaluations_total{" + labels + "} " + evaluations);
+		samples.add("matches_total{" + labels + "} " + this.matches.sum());
+		samples.add("evaluation_seconds_total{" + labels + "} " + this.evaluationNanos.sum() / 1_000_000_000D);
+		samples.add("evaluation_seconds_p99{" + labels + "} " + this.getEvaluationPercentile(0.99) / 1_000_000_000D);
+		samples.add("execution_seconds_total{" + labels + "} " + this.executionNanos.sum() / 1_000_000_000D);
+	}
+
+	/*
+	 * Group samples by metric name and add HELP/TYPE headers
+	 */
+	private static void appendMetric(final List<String> lines, final String kind, final List<String> samples) {
+		final String[][] metrics = {
+				{ "evaluations_total", "counter", "Times the " + kind + " was evaluated against a message" },
+				{ "matches_total", "counter", "Times the " + kind + " matched and ran its operators" },
+				{ "evaluation_seconds_total", "counter", "Time spent evaluating the " + kind },
+				{ "evaluation_seconds_p99", "gauge", "Approximate 99th percentile of the " + kind + " evaluation time" },
+				{ "execution_seconds_total", "counter", "Time spent running operators of the " + kind + " after a match" },
+		};
+
+		for (final String[] metric : metrics) {
+			final String name = "chatcontrol_" + kind + "_" + metric[0];
+
+			lines.add("# HELP " + name + " " + metric[2]);
+			lines.add("# TYPE " + name + " " + metric[1]);
+
+			for (final String sample : samples)
+				if (sample.startsWith(metric[0] + "{"))
+					lines.add("chatcontrol_" + kind + "_" + sample);
+		}
+	}
+
+	/*
+	 * Escape a Prometheus label value
+	 */
+	private static String escapeLabel(final String value) {
+		return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+	}
+
+	/* ------------------------------------------------------------------------------- */
+	/* Classes */
+	/* ------------------------------------------------------------------------------- */
+
+	/**
+	 * Writes statistics to the plugin folder
+	 */
+	private static final class ExportTask extends SimpleRunnable {
+
+		@Override
+		public void run() {
+			if (!Settings.Rules.EXPORT_STATS)
+				return;
+
+			final File file = FileUtil.createIfNotExists(EXPORT_FILE);
+
+			FileUtil.write(file, toPrometheusLines(), StandardOpenOption.TRUNCATE_EXISTING);
+		}
+	}
+}
@@ -13,6 +13,7 @@ import org.bukkit.GameMode;
 import org.bukkit.command.CommandSender;
 import org.bukkit.entity.Player;
 import org.mineacademy.chatcontrol.SyncedCache;
+import org.mineacademy.chatcontrol.model.CachedScript;
 import org.mineacademy.chatcontrol.model.ChatControlProxyMessage;
 import org.mineacademy.chatcontrol.model.Discord;
 import org.mineacademy.chatcontrol.model.Format;
@@ -39,13 +40,13 @@ import org.mineacademy.fo.exception.EventHandledException;
 import org.mineacademy.fo.exception.FoScriptException;
 import org.mineacademy.fo.model.CompChatColor;
 import org.mineacademy.fo.model.HookManager;
-import org.mineacademy.fo.model.JavaScriptExecutor;
 import org.mineacademy.fo.model.RandomNoRepeatPicker;
 import org.mineacademy.fo.model.RequireVariable;
 import org.mineacademy.fo.model.SimpleComponent;
 import org.mineacademy.fo.model.SimpleTime;
 import org.mineacademy.fo.model.Tuple;
 import org.mineacademy.fo.model.Variables;
+import org.mineacademy.fo.platform.FoundationPlayer;
 import org.mineacademy.fo.platform.Platform;
 import org.mineacademy.fo.region.DiskRegion;
 
@@ -727,6 +728,27 @@ public abstract class PlayerMessage extends Operator {
 		 */
 		protected String pickedMessage;
 
+		/**
+		 * The picked message with sender variables replaced, compiled once per broadcast
+		 * and again only when the sender changes for each receiver
+		 */
+		private PlayerMessageTemplate template;
+
+		/**
+		 * The sender the template was compiled for
+		 */
+		private WrappedSender templateSender;
+
+		/**
+		 * The built message shared by all receivers when it does not depend on them
+		 */
+		private SimpleComponent sharedComponent;
+
+		/**
+		 * The player the shared message was built for
+		 */
+		private WrappedSender sharedComponentPlayer;
+
 		/**
 		 * @param wrapped
 		 * @param message
@@ -788,6 +810,11 @@ public abstract class PlayerMessage extends Operator {
 
 			boolean pickedMessage = false;
 
+			this.template = null;
+			this.templateSender = null;
+			this.sharedComponent = null;
+			this.sharedComponentPlayer = null;
+
 			for (final Player player : Players.getOnlinePlayersWithLoadedDb()) {
 				if (this.wrappedSender != null) {
 					if (message.isRequireSelf() && !this.wrappedSender.getSender().equals(player))
@@ -877,7 +904,7 @@ public abstract class PlayerMessage extends Operator {
 				final Object result;
 
 				try {
-					result = JavaScriptExecutor.run(this.replaceSenderVariablesLegacy(operator.getRequireSenderScript(), operator), this.wrappedSender.getAudience());
+					result = CachedScript.of(operator.getRequireSenderScript()).run(text -> this.replaceSenderVariablesLegacy(text, operator), this.wrappedSender.getAudience());
 
 				} catch (final FoScriptException ex) {
 					CommonCore.logFramed(
@@ -914,7 +941,7 @@ public abstract class PlayerMessage extends Operator {
 				final Object result;
 
 				try {
-					result = JavaScriptExecutor.run(this.replaceReceiverVariablesLegacy(operator.getRequireReceiverScript(), operator), this.wrappedReceiver.getAudience());
+					result = CachedScript.of(operator.getRequireReceiverScript()).run(text -> this.replaceReceiverVariablesLegacy(text, operator), this.wrappedReceiver.getAudience());
 
 				} catch (final FoScriptException ex) {
 					CommonCore.logFramed(
@@ -1060,7 +1087,7 @@ public abstract class PlayerMessage extends Operator {
 				final Object result;
 
 				try {
-					result = JavaScriptExecutor.run(this.replaceSenderVariablesLegacy(operator.getIgnoreSenderScript(), operator), this.wrappedSender.getAudience());
+					result = CachedScript.of(operator.getIgnoreSenderScript()).run(text -> this.replaceSenderVariablesLegacy(text, operator), this.wrappedSender.getAudience());
 
 				} catch (final FoScriptException ex) {
 					CommonCore.logFramed(
@@ -1093,7 +1120,7 @@ public abstract class PlayerMessage extends Operator {
 				final Object result;
 
 				try {
-					result = JavaScriptExecutor.run(this.replaceReceiverVariablesLegacy(operator.getIgnoreReceiverScript(), operator), this.wrappedReceiver.getAudience());
+					result = CachedScript.of(operator.getIgnoreReceiverScript()).run(text -> this.replaceReceiverVariablesLegacy(text, operator), this.wrappedReceiver.getAudience());
 
 				} catch (final FoScriptException ex) {
 					CommonCore.logFramed(
@@ -1221,28 +1248,34 @@ public abstract class PlayerMessage extends Operator {
 						// Construct
 						prefix = prefix != null ? prefix : "";
 
-						String replaced = this.replaceSenderVariablesLegacy(prefix + message + CommonCore.getOrEmpty(operator.getSuffix()), operator);
-
-						// Support centering
-						final String[] replacedLines = replaced.split("\n");
-
-						for (int i = 0; i < replacedLines.length; i++) {
-							final String line = replacedLines[i];
+						final String raw = prefix + message + CommonCore.getOrEmpty(operator.getSuffix());
 
-							if (CompChatColor.stripColorCodes(line).startsWith("<center>"))
-								replacedLines[i] = ChatUtil.center(line.replace("<center>", "").trim());
+						// Replace sender variables once, only splicing receiver variables for each receiver
+						if (this.template == null || !this.wrappedSender.equals(this.templateSender)) {
+							this.template = PlayerMessageTemplate.compile(raw, text -> this.replaceSenderVariablesLegacy(text, operator), true);
+							this.templateSender = this.wrappedSender;
+							this.sharedComponent = null;
 						}
 
-						replaced = String.join("\n", replacedLines);
+						final WrappedSender messagePlayer = this.getMessagePlayerForVariables();
+						final boolean shareable = !this.template.isReceiverDependent() && messagePlayer.equals(this.sharedComponentPlayer);
 
-						// Build again
+						// Build again unless all receivers see the same message, the shared component is only read from here on
 						final SimpleComponent component;
 
-						try {
-							component = format.build(this.getMessagePlayerForVariables(), CommonCore.newHashMap("message", replaced));
+						if (shareable && this.sharedComponent != null)
+							component = this.sharedComponent;
 
-						} catch (final EventHandledException ex) {
-							return; // canceled?
+						else {
+							try {
+								component = format.build(messagePlayer, CommonCore.newHashMap("message", this.template.render(this.getReceiverPlaceholders())));
+
+							} catch (final EventHandledException ex) {
+								return; // canceled?
+							}
+
+							this.sharedComponent = component;
+							this.sharedComponentPlayer = messagePlayer;
 						}
 
 						// Send
@@ -1274,8 +1307,12 @@ public abstract class PlayerMessage extends Operator {
 
 			// Execute console commands for each receiver
 			if (!this.wrappedSender.isConsole())
-				for (final String command : operator.getConsoleForEachCommands())
-					Platform.dispatchConsoleCommand(this.wrappedSender.getAudience(), this.replaceSenderVariablesLegacy(command, operator));
+				for (final String command : operator.getConsoleForEachCommands()) {
+					final String replaced = this.replaceSenderVariablesLegacy(command, operator);
+					final FoundationPlayer audience = this.wrappedSender.getAudience();
+
+					this.addEffect(() -> Platform.dispatchConsoleCommand(audience, replaced));
+				}
 
 			super.executeOperators(operator);
 
@@ -1318,11 +1355,18 @@ public abstract class PlayerMessage extends Operator {
 		protected Map<String, Object> prepareVariables(final WrappedSender wrapped, final T operator) {
 			final Map<String, Object> map = super.prepareVariables(wrapped, operator);
 
-			map.putAll(SyncedCache.getPlaceholders(this.wrappedSender.getName(), this.wrappedReceiver.getUniqueId(), PlaceholderPrefix.RECEIVER));
+			map.putAll(this.getReceiverPlaceholders());
 
 			map.put("broadcast_group", operator.getGroup());
 
 			return map;
 		}
+
+		/*
+		 * Return variables of the current receiver
+		 */
+		private Map<String, Object> getReceiverPlaceholders() {
+			return SyncedCache.getPlaceholders(this.wrappedSender.getName(), this.wrappedReceiver.getUniqueId(), PlaceholderPrefix.RECEIVER);
+		}
 	}
 }
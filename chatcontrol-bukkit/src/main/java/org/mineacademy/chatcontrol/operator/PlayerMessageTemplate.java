@@ -0,0 +1,159 @@
+package org.mineacademy.chatcontrol.operator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.UnaryOperator;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.mineacademy.fo.ChatUtil;
+import org.mineacademy.fo.model.CompChatColor;
+
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * A player message with sender variables replaced once per broadcast, leaving
+ * markers where receiver variables go so that they are spliced in for each receiver.
+ */
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+public final class PlayerMessageTemplate {
+
+	/**
+	 * Matches variables which differ for each receiver
+	 */
+	private static final Pattern RECEIVER_VARIABLE = Pattern.compile("\\{(receiver_[a-zA-Z0-9_]+)\\}");
+
+	/**
+	 * Unicode noncharacters surrounding the index of a receiver variable, reserved for internal
+	 * use so unlike private use characters they do not clash with resource pack glyphs
+	 */
+	private static final char MARKER_START = '\uFDD0';
+	private static final char MARKER_END = '\uFDD1';
+
+	/**
+	 * The message with sender variables replaced and receiver variables marked
+	 */
+	private final String rendered;
+
+	/**
+	 * Receiver variable names in the order of their markers
+	 */
+	private final List<String> receiverVariables;
+
+	/**
+	 * Whether to center lines starting with &lt;center&gt;
+	 */
+	private final boolean center;
+
+	/**
+	 * Return true if the message has receiver variables
+	 *
+	 * @return
+	 */
+	public boolean isReceiverDependent() {
+		return !this.receiverVariables.isEmpty();
+	}
+
+	/**
+	 * Return the message for the receiver with the given receiver variables
+	 *
+	 * @param receiverPlaceholders
+	 * @return
+	 */
+	public String render(final Map<String, Object> receiverPlaceholders) {
+		if (this.receiverVariables.isEmpty())
+			return this.rendered;
+
+		final StringBuilder builder = new StringBuilder(this.rendered.length() + 16 * this.receiverVariables.size());
+		int start = 0;
+
+		for (int markerStart; (markerStart = this.rendered.indexOf(MARKER_START, start)) != -1;) {
+			final int markerEnd = this.rendered.indexOf(MARKER_END, markerStart);
+
+			if (markerEnd == -1)
+				break;
+
+			final int index = parseIndex(this.rendered.substring(markerStart + 1, markerEnd));
+
+			// Not our marker, keep as is
+			if (index == -1 || index >= this.receiverVariables.size()) {
+				builder.append(this.rendered, start, markerStart + 1);
+				start = markerStart + 1;
+
+				continue;
+			}
+
+			final String variable = this.receiverVariables.get(index);
+			final Object value = receiverPlaceholders.get(variable);
+
+			builder.append(this.rendered, start, markerStart).append(value != null ? value.toString() : "{" + variable + "}");
+			start = markerEnd + 1;
+		}
+
+		builder.append(this.rendered, start, this.rendered.length());
+
+		return this.center ? center(builder.toString()) : builder.toString();
+	}
+
+	/**
+	 * Replace sender variables in the message using the given function and mark receiver variables
+	 *
+	 * @param message
+	 * @param senderReplacer
+	 * @param center whether to center lines starting with &lt;center&gt;
+	 * @return
+	 */
+	public static PlayerMessageTemplate compile(final String message, final UnaryOperator<String> senderReplacer, final boolean center) {
+		final List<String> receiverVariables = new ArrayList<>();
+		final Matcher matcher = RECEIVER_VARIABLE.matcher(message);
+		final StringBuffer marked = new StringBuffer();
+
+		while (matcher.find()) {
+			matcher.appendReplacement(marked, Matcher.quoteReplacement(MARKER_START + String.valueOf(receiverVariables.size()) + MARKER_END));
+
+			receiverVariables.add(matcher.group(1));
+		}
+
+		matcher.appendTail(marked);
+
+		final String rendered = senderReplacer.apply(marked.toString());
+
+		// Without receiver variables lines are final and can be centered once
+		if (receiverVariables.isEmpty())
+			return new PlayerMessageTemplate(center ? center(rendered) : rendered, receiverVariables, false);
+
+		return new PlayerMessageTemplate(rendered, receiverVariables, center);
+	}
+
+	/*
+	 * Parse the marker index or return -1 if it is not a number
+	 */
+	private static int parseIndex(final String text) {
+		if (text.isEmpty() || text.length() > 4)
+			return -1;
+
+		for (int i = 0; i < text.length(); i++)
+			if (!Character.isDigit(text.charAt(i)))
+				return -1;
+
+		return Integer.parseInt(text);
+	}
+
+	/*
+	 * Center lines starting with <center>
+	 */
+	private static String center(final String message) {
+		final String[] lines = message.split("\n");
+
+		for (int i = 0; i < lines.length; i++) {
+			final String line = lines[i];
+
+			if (CompChatColor.stripColorCodes(line).startsWith("<center>"))
+				lines[i] = ChatUtil.center(line.replace("<center>", "").trim());
+		}
+
+		return String.join("\n", lines);
+	}
+}
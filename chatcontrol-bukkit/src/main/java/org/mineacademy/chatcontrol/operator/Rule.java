@@ -1,8 +1,9 @@
 package org.mineacademy.chatcontrol.operator;
 
 import java.io.File;
-import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -18,8 +19,8 @@ import org.mineacademy.chatcontrol.model.Channel;
 import org.mineacademy.chatcontrol.model.RuleType;
 import org.mineacademy.chatcontrol.model.WrappedSender;
 import org.mineacademy.chatcontrol.model.db.Log;
+import org.mineacademy.chatcontrol.operator.TimedCharSequence.RegexTimeoutException;
 import org.mineacademy.chatcontrol.settings.Settings;
-import org.mineacademy.fo.ChatUtil;
 import org.mineacademy.fo.CommonCore;
 import org.mineacademy.fo.FileUtil;
 import org.mineacademy.fo.ValidCore;
@@ -74,6 +75,11 @@ public class Rule extends RuleOperator {
 	 */
 	private boolean stripAccents;
 
+	/**
+	 * See {@link #getNormalizationKey()}, computed once all operators are parsed
+	 */
+	private String normalizationKey;
+
 	/**
 	 * Create a new rule of the given type and match operator
 	 *
@@ -87,15 +93,25 @@ public class Rule extends RuleOperator {
 		this.stripAccents = Settings.Rules.STRIP_ACCENTS;
 	}
 
-	/*
-	 * Helper copied over from Common class in Foundation to compile a pattern for best performance
-	 * supporting per-rule color/accent strip
+	/**
+	 * Return a key identifying how this rule prepares the message before matching,
+	 * rules with the same key share the same prepared message within one check
+	 *
+	 * @return
 	 */
-	private Matcher compileMatcher(@NonNull final Pattern pattern, final String message) {
-		String strippedMessage = this.stripColors ? SimpleComponent.fromMiniAmpersand(message).toPlain() : message;
-		strippedMessage = this.stripAccents ? ChatUtil.replaceDiacritic(strippedMessage) : strippedMessage;
+	String getNormalizationKey() {
+		if (this.normalizationKey == null) {
+			final StringBuilder key = new StringBuilder();
 
-		return pattern.matcher(strippedMessage);
+			key.append(this.stripColors ? '1' : '0').append(this.stripAccents ? '1' : '0');
+
+			for (final Entry<Pattern, String> entry : this.getBeforeReplace().entrySet())
+				key.append('\u0000').append(entry.getKey().flags()).append('/').append(entry.getKey().pattern()).append('\u0000').append(entry.getValue());
+
+			this.normalizationKey = key.toString();
+		}
+
+		return this.normalizationKey;
 	}
 
 	/**
@@ -268,6 +284,17 @@ public class Rule extends RuleOperator {
 		 */
 		private final Map<String, Object> variables;
 
+		/**
+		 * Rules that can possibly match the message by rule type and strip colors/accents combination,
+		 * see {@link RulePrefilter}. Reset when the message changes.
+		 */
+		private final Map<Integer, Set<Rule>> candidates = new HashMap<>();
+
+		/**
+		 * The message the candidates were found for
+		 */
+		private String candidatesMessage;
+
 		/**
 		 * @param wrapped
 		 * @param message
@@ -287,16 +314,10 @@ public class Rule extends RuleOperator {
 			ValidCore.checkNotNull(this.type, "Type not set!");
 
 			if (!Settings.Rules.APPLY_ON.contains(this.type))
-				return new ArrayList<>();
-
-			// Get all rules and make a copy
-			final List<RuleOperator> rules = new ArrayList<>(Rules.getInstance().getRules(this.type));
-
-			// Import other rules to check
-			for (final RuleType toImport : Rules.getInstance().getImports().getOrDefault(this.type, new ArrayList<>()))
-				rules.addAll(0, Rules.getInstance().getRules(toImport));
+				return Collections.emptyList();
 
-			return rules;
+			// Imports are resolved and ignored types filtered out on load
+			return Rules.getInstance().getOperators(this.type);
 		}
 
 		/**
@@ -313,15 +334,23 @@ public class Rule extends RuleOperator {
 
 			final Rule ruleEvaluated = (Rule) rule;
 
-			if (ruleEvaluated.getIgnoreTypes().contains(this.type))
+			// Skip rules whose regex cannot match this message without running it
+			if (!this.canMatch(ruleEvaluated))
+				return;
+
+			if (ruleEvaluated.isDisabledByTimeouts())
 				return;
 
 			final String originalMessage = this.message;
-			String messageMatched = this.message;
+			String messageMatched;
+
+			// Prepare the message before checking, shared with other rules doing the same
+			try {
+				messageMatched = this.applyBeforeReplace(ruleEvaluated);
 
-			// Prepare the message before checking
-			for (final Entry<Pattern, String> entry : rule.getBeforeReplace().entrySet())
-				messageMatched = ruleEvaluated.compileMatcher(entry.getKey(), messageMatched).replaceAll(entry.getValue());
+			} catch (final RegexTimeoutException ex) {
+				return;
+			}
 
 			// Find group early
 			final Group group = ruleEvaluated.getGroup() != null ? Groups.getInstance().findGroup(ruleEvaluated.getGroup()) : null;
@@ -345,9 +374,19 @@ public class Rule extends RuleOperator {
 					messageMatched = String.join(" ", Arrays.copyOfRange(split, 1, split.length));
 			}
 
-			final Matcher matcher = ruleEvaluated.compileMatcher(ruleEvaluated.getPattern(), messageMatched);
+			final String normalizedMessage = this.normalize(messageMatched, ruleEvaluated.isStripColors(), ruleEvaluated.isStripAccents());
+			final Matcher matcher;
 
-			if (matcher.find()) {
+			try {
+				matcher = TimedCharSequence.findMatcher(ruleEvaluated.getPattern(), normalizedMessage);
+
+			} catch (final RegexTimeoutException ex) {
+				ruleEvaluated.onRegexTimeout(ruleEvaluated.getPattern(), normalizedMessage);
+
+				return;
+			}
+
+			if (matcher != null) {
 
 				this.matcher = matcher;
 
@@ -373,7 +412,14 @@ public class Rule extends RuleOperator {
 							"&fCATCH&b: &r" + this.message);
 
 				// Execute main operators
-				this.executeOperators(rule, matcher);
+				final long executionStart = System.nanoTime();
+
+				try {
+					this.executeOperators(rule, matcher);
+
+				} finally {
+					rule.getStats().recordMatch(System.nanoTime() - executionStart);
+				}
 
 				// Execute group operators
 				if (group != null) {
@@ -381,8 +427,19 @@ public class Rule extends RuleOperator {
 
 					this.ruleForGroup = rule;
 
-					if (this.canFilter(group))
-						this.executeOperators(group, matcher);
+					if (this.canFilter(group)) {
+						final long groupStart = System.nanoTime();
+
+						try {
+							this.executeOperators(group, matcher);
+
+						} finally {
+							final long groupNanos = System.nanoTime() - groupStart;
+
+							group.getStats().recordEvaluation(groupNanos);
+							group.getStats().recordMatch(groupNanos);
+						}
+					}
 				}
 
 				if (!rule.isIgnoreVerbose() && !originalMessage.equals(this.message))
@@ -400,6 +457,33 @@ public class Rule extends RuleOperator {
 			}
 		}
 
+		/*
+		 * Return false if the rule has been indexed by its prefilter and none of its
+		 * required literals is present in the current message
+		 */
+		private boolean canMatch(final Rule rule) {
+			final RulePrefilter prefilter = Rules.getInstance().getPrefilter(rule.getType());
+
+			if (prefilter == null || !prefilter.isIndexed(rule))
+				return true;
+
+			if (!this.message.equals(this.candidatesMessage)) {
+				this.candidates.clear();
+				this.candidatesMessage = this.message;
+			}
+
+			final int key = rule.getType().ordinal() * 4 + (rule.isStripColors() ? 2 : 0) + (rule.isStripAccents() ? 1 : 0);
+			Set<Rule> found = this.candidates.get(key);
+
+			if (found == null) {
+				found = prefilter.findCandidates(this.normalize(this.message, rule.isStripColors(), rule.isStripAccents()));
+
+				this.candidates.put(key, found);
+			}
+
+			return found.contains(rule);
+		}
+
 		/**
 		 * @see org.mineacademy.chatcontrol.model.Checkable#canFilter(org.bukkit.command.CommandSender, java.lang.String, org.mineacademy.chatcontrol.operator.Operator)
 		 */
@@ -7,6 +7,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -14,19 +15,21 @@ import javax.annotation.Nullable;
 
 import org.bukkit.GameMode;
 import org.mineacademy.chatcontrol.api.RuleReplaceEvent;
+import org.mineacademy.chatcontrol.model.CachedScript;
 import org.mineacademy.chatcontrol.model.Channel;
 import org.mineacademy.chatcontrol.model.ChannelMode;
 import org.mineacademy.chatcontrol.model.WrappedSender;
+import org.mineacademy.chatcontrol.operator.TimedCharSequence.RegexTimeoutException;
 import org.mineacademy.chatcontrol.settings.Settings;
 import org.mineacademy.fo.ChatUtil;
 import org.mineacademy.fo.CommonCore;
+import org.mineacademy.fo.FileUtil;
 import org.mineacademy.fo.RandomUtil;
 import org.mineacademy.fo.ReflectionUtil;
 import org.mineacademy.fo.ValidCore;
 import org.mineacademy.fo.debug.Debugger;
 import org.mineacademy.fo.exception.EventHandledException;
 import org.mineacademy.fo.exception.FoScriptException;
-import org.mineacademy.fo.model.JavaScriptExecutor;
 import org.mineacademy.fo.model.RequireVariable;
 import org.mineacademy.fo.model.RuleTextReplacer;
 import org.mineacademy.fo.model.SimpleComponent;
@@ -154,6 +157,16 @@ public abstract class RuleOperator extends Operator {
 	 */
 	private final Map<String, Set<String>> worldRewrites = new HashMap<>();
 
+	/**
+	 * How many times matching a regex of this operator exceeded the time budget
+	 */
+	private final AtomicInteger regexTimeouts = new AtomicInteger();
+
+	/**
+	 * Set after too many regex timeouts, keeps this operator off until rules are reloaded
+	 */
+	private volatile boolean disabledByTimeouts = false;
+
 	/**
 	 * @see org.mineacademy.chatcontrol.operator.Operator#onParse(java.lang.String, java.lang.String, java.lang.String[])
 	 */
@@ -322,6 +335,49 @@ public abstract class RuleOperator extends Operator {
 		return map;
 	}
 
+	/**
+	 * Called when matching the given pattern of this operator exceeded Rules.Regex_Timeout_Ms,
+	 * logs the offending pattern and disables this operator after too many timeouts
+	 *
+	 * @param pattern
+	 * @param message
+	 */
+	protected final void onRegexTimeout(final Pattern pattern, final String message) {
+		final int timeouts = this.regexTimeouts.incrementAndGet();
+		final int limit = Settings.Rules.REGEX_TIMEOUTS_BEFORE_DISABLE;
+
+		if (limit > 0 && timeouts >= limit)
+			this.disabledByTimeouts = true;
+
+		CommonCore.logFramed(
+				"Matching regex took longer than " + Settings.Rules.REGEX_TIMEOUT_MS + "ms and was aborted!",
+				"",
+				"Rule " + this.getUniqueName() + " in " + this.getFile() + " on line " + this.findLine(pattern.pattern()),
+				"Regex: " + pattern.pattern(),
+				"Message: " + message,
+				"Timeouts: " + timeouts + (limit > 0 ? "/" + limit : ""),
+				"",
+				this.disabledByTimeouts ? "The rule is now disabled until rules are reloaded." : "Simplify the regex to prevent catastrophic backtracking.");
+	}
+
+	/*
+	 * Return the first line number in our file containing the given text, or -1 if not found
+	 */
+	private int findLine(final String text) {
+		try {
+			final List<String> lines = FileUtil.readLinesFromFile(this.getFile());
+
+			for (int i = 0; i < lines.size(); i++)
+				if (lines.get(i).contains(text))
+					return i + 1;
+
+		} catch (final Throwable t) {
+			// Ignore, file may have been removed
+		}
+
+		return -1;
+	}
+
 	/* ------------------------------------------------------------------------------- */
 	/* Classes */
 	/* ------------------------------------------------------------------------------- */
@@ -344,6 +400,22 @@ public abstract class RuleOperator extends Operator {
 		@Getter
 		private boolean messageChanged;
 
+		/**
+		 * Texts stripped of colors and/or accents, by the original text, indexed by {@link #normalize(String, boolean, boolean)} flags
+		 */
+		private final Map<String, String[]> normalizedMessages = new HashMap<>();
+
+		/**
+		 * Messages with before replace applied, by {@link Rule#getNormalizationKey()}
+		 */
+		private final Map<String, String> replacedMessages = new HashMap<>();
+
+		/**
+		 * The message the two caches above were computed for
+		 */
+		@Nullable
+		private String normalizedFrom;
+
 		/**
 		 * @param wrapped
 		 * @param message
@@ -354,12 +426,101 @@ public abstract class RuleOperator extends Operator {
 			this.channel = channel;
 		}
 
+		/**
+		 * Return the given text stripped of colors and/or accents. The result is cached for
+		 * the lifetime of the current message, so rules sharing the same flags only pay for it once.
+		 *
+		 * @param text
+		 * @param stripColors
+		 * @param stripAccents
+		 * @return
+		 */
+		protected final String normalize(final String text, final boolean stripColors, final boolean stripAccents) {
+			if (!stripColors && !stripAccents)
+				return text;
+
+			this.resetNormalizedIfChanged();
+
+			final String[] variants = this.normalizedMessages.computeIfAbsent(text, key -> new String[4]);
+			final int index = (stripColors ? 2 : 0) + (stripAccents ? 1 : 0);
+
+			if (variants[index] == null)
+				variants[index] = strip(text, stripColors, stripAccents);
+
+			return variants[index];
+		}
+
+		/**
+		 * Return the current message with the rule's before replace applied. The result
+		 * is cached for the lifetime of the current message and shared with all rules using the same
+		 * before replace and strip flags.
+		 *
+		 * @param rule
+		 * @return
+		 * @throws RegexTimeoutException if a before replace regex exceeds the time budget
+		 */
+		protected final String applyBeforeReplace(final Rule rule) {
+			if (rule.getBeforeReplace().isEmpty())
+				return this.message;
+
+			this.resetNormalizedIfChanged();
+
+			final String key = rule.getNormalizationKey();
+			String replaced = this.replacedMessages.get(key);
+
+			if (replaced == null) {
+				replaced = this.message;
+
+				for (final Entry<Pattern, String> entry : rule.getBeforeReplace().entrySet()) {
+					final String stripped = strip(replaced, rule.isStripColors(), rule.isStripAccents());
+
+					try {
+						replaced = TimedCharSequence.replaceAll(entry.getKey(), stripped, entry.getValue());
+
+					} catch (final RegexTimeoutException ex) {
+						rule.onRegexTimeout(entry.getKey(), stripped);
+
+						throw ex;
+					}
+				}
+
+				this.replacedMessages.put(key, replaced);
+			}
+
+			return replaced;
+		}
+
+		/*
+		 * Invalidate cached variants when a rule changed the message
+		 */
+		private void resetNormalizedIfChanged() {
+			if (!this.message.equals(this.normalizedFrom)) {
+				this.normalizedMessages.clear();
+				this.replacedMessages.clear();
+
+				this.normalizedFrom = this.message;
+			}
+		}
+
+		/*
+		 * Strip colors and accents from the text
+		 */
+		private static String strip(final String text, final boolean stripColors, final boolean stripAccents) {
+			String strippedMessage = stripColors ? SimpleComponent.fromMiniAmpersand(text).toPlain() : text;
+			strippedMessage = stripAccents ? ChatUtil.replaceDiacritic(strippedMessage) : strippedMessage;
+
+			return strippedMessage;
+		}
+
 		/**
 		 * @see org.mineacademy.chatcontrol.model.Checkable#canFilter(org.bukkit.command.CommandSender, java.lang.String, org.mineacademy.chatcontrol.operator.Operator)
 		 */
 		@Override
 		protected boolean canFilter(final RuleOperator operator) {
 
+			if (operator.isDisabledByTimeouts())
+				return false;
+
 			// ----------------------------------------------------------------
 			// Require
 			// ----------------------------------------------------------------
@@ -387,7 +548,7 @@ public abstract class RuleOperator extends Operator {
 				Object result;
 
 				try {
-					result = JavaScriptExecutor.run(this.replaceSenderVariablesLegacy(operator.getRequireScript(), operator), this.wrappedSender.getAudience());
+					result = CachedScript.of(operator.getRequireScript()).run(text -> this.replaceSenderVariablesLegacy(text, operator), this.wrappedSender.getAudience());
 
 				} catch (final FoScriptException ex) {
 					CommonCore.logFramed(
@@ -476,14 +637,21 @@ public abstract class RuleOperator extends Operator {
 				return false;
 
 			for (final Pattern ignoreMatch : operator.getIgnoreMatches())
-				if (ignoreMatch.matcher(this.message).find())
+				try {
+					if (TimedCharSequence.find(ignoreMatch, this.message))
+						return false;
+
+				} catch (final RegexTimeoutException ex) {
+					operator.onRegexTimeout(ignoreMatch, this.message);
+
 					return false;
+				}
 
 			if (operator.getIgnoreScript() != null) {
 				final Object result;
 
 				try {
-					result = JavaScriptExecutor.run(this.replaceSenderVariablesLegacy(operator.getIgnoreScript(), operator), this.wrappedSender.getAudience());
+					result = CachedScript.of(operator.getIgnoreScript()).run(text -> this.replaceSenderVariablesLegacy(text, operator), this.wrappedSender.getAudience());
 
 				} catch (final FoScriptException ex) {
 					CommonCore.logFramed(
@@ -0,0 +1,652 @@
+package org.mineacademy.chatcontrol.operator;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import javax.annotation.Nullable;
+
+/**
+ * Represents a compiled literal index over all rules of one rule type.
+ *
+ * For each rule we extract a set of literals from its regex out of which
+ * at least one must be present in the message for the regex to ever match.
+ * All literals are then compiled into a single Aho-Corasick automaton, so a
+ * message is scanned once to find out which rules can possibly match it.
+ *
+ * Rules we cannot safely extract literals from (before replace, backreferences,
+ * unsupported syntax etc.) are never skipped.
+ */
+public final class RulePrefilter {
+
+	/**
+	 * The root of the automaton
+	 */
+	private final Node root = new Node();
+
+	/**
+	 * Rules which have been indexed and can be skipped if none of their literals was found
+	 */
+	private final Set<Rule> indexedRules = Collections.newSetFromMap(new IdentityHashMap<>());
+
+	/*
+	 * Create a new prefilter, see compile()
+	 */
+	private RulePrefilter() {
+	}
+
+	/**
+	 * Return true if the given rule has been indexed and can be skipped
+	 * when it is not among {@link #findCandidates(String)}
+	 *
+	 * @param rule
+	 * @return
+	 */
+	public boolean isIndexed(final Rule rule) {
+		return this.indexedRules.contains(rule);
+	}
+
+	/**
+	 * Return how many rules can be skipped by this prefilter
+	 *
+	 * @return
+	 */
+	public int getIndexedCount() {
+		return this.indexedRules.size();
+	}
+
+	/**
+	 * Scan the given message once and return all indexed rules
+	 * whose at least one required literal was found in it.
+	 *
+	 * The message must be normalized the same way the rule will
+	 * normalize it before matching (colors and accents).
+	 *
+	 * @param message
+	 * @return
+	 */
+	public Set<Rule> findCandidates(final String message) {
+		final Set<Rule> candidates = Collections.newSetFromMap(new IdentityHashMap<>());
+		Node node = this.root;
+
+		for (int i = 0; i < message.length(); i++) {
+			final char character = fold(message.charAt(i));
+
+			while (node != this.root && !node.children.containsKey(character))
+				node = node.fail;
+
+			node = node.children.getOrDefault(character, this.root);
+
+			for (final Rule rule : node.outputs)
+				candidates.add(rule);
+		}
+
+		return candidates;
+	}
+
+	/* ------------------------------------------------------------------------------- */
+	/* Static */
+	/* ------------------------------------------------------------------------------- */
+
+	/**
+	 * Compile a new prefilter for the given rules
+	 *
+	 * @param rules
+	 * @return
+	 */
+	public static RulePrefilter compile(final List<? extends Rule> rules) {
+		final RulePrefilter prefilter = new RulePrefilter();
+
+		for (final Rule rule : rules) {
+
+			// Before replace can turn the message into anything
+			if (!rule.getBeforeReplace().isEmpty())
+				continue;
+
+			final Set<String> literals = extractLiterals(rule.getPattern());
+
+			if (literals == null)
+				continue;
+
+			for (final String literal : literals)
+				prefilter.insert(literal, rule);
+
+			prefilter.indexedRules.add(rule);
+		}
+
+		prefilter.buildFailLinks();
+
+		return prefilter;
+	}
+
+	/*
+	 * Add the literal to the trie
+	 */
+	private void insert(final String literal, final Rule rule) {
+		Node node = this.root;
+
+		for (int i = 0; i < literal.length(); i++)
+			node = node.children.computeIfAbsent(literal.charAt(i), character -> new Node());
+
+		if (!node.outputs.contains(rule))
+			node.outputs.add(rule);
+	}
+
+	/*
+	 * Connect fail links breadth-first and merge outputs of suffixes
+	 */
+	private void buildFailLinks() {
+		final Queue<Node> queue = new ArrayDeque<>();
+
+		this.root.fail = this.root;
+
+		for (final Node child : this.root.children.values()) {
+			child.fail = this.root;
+
+			queue.add(child);
+		}
+
+		while (!queue.isEmpty()) {
+			final Node node = queue.poll();
+
+			for (final Map.Entry<Character, Node> entry : node.children.entrySet()) {
+				final char character = entry.getKey();
+				final Node child = entry.getValue();
+
+				Node fail = node.fail;
+
+				while (fail != this.root && !fail.children.containsKey(character))
+					fail = fail.fail;
+
+				final Node target = fail.children.get(character);
+				child.fail = target != null && target != child ? target : this.root;
+
+				for (final Rule rule : child.fail.outputs)
+					if (!child.outputs.contains(rule))
+						child.outputs.add(rule);
+
+				queue.add(child);
+			}
+		}
+	}
+
+	/**
+	 * Return the set of literals at least one of which must be present in any text
+	 * the given pattern finds, all folded to lower case, or null if we cannot tell.
+	 *
+	 * @param pattern
+	 * @return
+	 */
+	@Nullable
+	public static Set<String> extractLiterals(final Pattern pattern) {
+		if ((pattern.flags() & (Pattern.LITERAL | Pattern.COMMENTS | Pattern.CANON_EQ)) != 0)
+			return null;
+
+		final String regex = pattern.pattern();
+
+		if (regex.contains("\\Q"))
+			return null;
+
+		try {
+			final LiteralParser parser = new LiteralParser(regex);
+			final Set<String> literals = parser.parseAlternation();
+
+			if (parser.position != regex.length() || literals == null || literals.isEmpty())
+				return null;
+
+			for (final String literal : literals)
+				if (literal.isEmpty())
+					return null;
+
+			return literals;
+
+		} catch (final UnsupportedSyntaxException ex) {
+			return null;
+		}
+	}
+
+	/*
+	 * Fold the character the same way for literals and messages, this matches
+	 * all case insensitive regex comparisons and is a superset for case sensitive ones
+	 */
+	static char fold(final char character) {
+		return Character.toLowerCase(Character.toUpperCase(character));
+	}
+
+	/* ------------------------------------------------------------------------------- */
+	/* Classes */
+	/* ------------------------------------------------------------------------------- */
+
+	/*
+	 * A node in the automaton
+	 */
+	private static final class Node {
+
+		/*
+		 * The transitions
+		 */
+		private final Map<Character, Node> children = new HashMap<>();
+
+		/*
+		 * Rules whose literal ends in this node or its suffixes
+		 */
+		private final List<Rule> outputs = new ArrayList<>(1);
+
+		/*
+		 * The longest proper suffix present in the trie
+		 */
+		private Node fail;
+	}
+
+	/*
+	 * A conservative parser only recognizing a safe subset of the regex syntax,
+	 * anything unusual throws UnsupportedSyntaxException and the rule stays unindexed.
+	 */
+	private static final class LiteralParser {
+
+		/*
+		 * The raw regex
+		 */
+		private final String regex;
+
+		/*
+		 * Current position in the regex
+		 */
+		private int position = 0;
+
+		private LiteralParser(final String regex) {
+			this.regex = regex;
+		}
+
+		/*
+		 * Parse a|b|c until the end or a closing bracket, returning null
+		 * if any of the branches has no required literal
+		 */
+		private Set<String> parseAlternation() {
+			final Set<String> literals = new HashSet<>();
+			boolean guaranteed = true;
+
+			while (true) {
+				final Set<String> branch = this.parseSequence();
+
+				if (branch == null)
+					guaranteed = false;
+
+				else if (guaranteed)
+					literals.addAll(branch);
+
+				if (this.position < this.regex.length() && this.regex.charAt(this.position) == '|') {
+					this.position++;
+
+					continue;
+				}
+
+				break;
+			}
+
+			return guaranteed ? literals : null;
+		}
+
+		/*
+		 * Parse a sequence of atoms and return the best set of literals one of which it requires
+		 */
+		private Set<String> parseSequence() {
+			final StringBuilder run = new StringBuilder();
+			Set<String> best = null;
+
+			while (this.position < this.regex.length()) {
+				final char character = this.regex.charAt(this.position);
+
+				if (character == '|' || character == ')')
+					break;
+
+				Character literal = null;
+				Set<String> groupLiterals = null;
+
+				if (character == '\\')
+					literal = this.parseEscape();
+
+				else if (character == '[')
+					this.skipClass();
+
+				else if (character == '(')
+					groupLiterals = this.parseGroup();
+
+				else if (character == '.' || character == '^' || character == '$')
+					this.position++;
+
+				else if (character == '*' || character == '+' || character == '?' || character == '{')
+					throw new UnsupportedSyntaxException();
+
+				else {
+					literal = character;
+
+					this.position++;
+				}
+
+				final Quantifier quantifier = this.parseQuantifier();
+
+				if (literal != null && quantifier == Quantifier.ONCE) {
+					run.append(fold(literal));
+
+					continue;
+				}
+
+				if (literal != null && quantifier == Quantifier.REPEATED) {
+					run.append(fold(literal));
+					best = pickBetter(best, run);
+
+					// The last repetition is adjacent to whatever follows
+					run.setLength(0);
+					run.append(fold(literal));
+
+					continue;
+				}
+
+				best = pickBetter(best, run);
+				run.setLength(0);
+
+				if (groupLiterals != null && quantifier != Quantifier.OPTIONAL)
+					best = pickBetter(best, groupLiterals);
+			}
+
+			return pickBetter(best, run);
+		}
+
+		/*
+		 * Parse an escape sequence, returning the literal character or null if it is not a literal
+		 */
+		private Character parseEscape() {
+			if (this.position + 1 >= this.regex.length())
+				throw new UnsupportedSyntaxException();
+
+			final char escaped = this.regex.charAt(this.position + 1);
+			this.position += 2;
+
+			if (!Character.isLetterOrDigit(escaped))
+				return escaped;
+
+			switch (escaped) {
+				case 't':
+					return '\t';
+				case 'n':
+					return '\n';
+				case 'r':
+					return '\r';
+				case 'f':
+					return '\f';
+				case 'a':
+					return '\u0007';
+				case 'e':
+					return '\u001B';
+				case 'd':
+				case 'D':
+				case 's':
+				case 'S':
+				case 'w':
+				case 'W':
+				case 'b':
+				case 'B':
+				case 'A':
+				case 'G':
+				case 'z':
+				case 'Z':
+				case 'h':
+				case 'H':
+				case 'v':
+				case 'V':
+				case 'R':
+				case 'X':
+					if ((escaped == 'b' || escaped == 'B') && this.position < this.regex.length() && this.regex.charAt(this.position) == '{')
+						throw new UnsupportedSyntaxException();
+
+					return null;
+			}
+
+			// Backreference
+			if (escaped >= '1' && escaped <= '9') {
+				while (this.position < this.regex.length() && Character.isDigit(this.regex.charAt(this.position)))
+					this.position++;
+
+				return null;
+			}
+
+			throw new UnsupportedSyntaxException();
+		}
+
+		/*
+		 * Skip a [character class] including nested ones
+		 */
+		private void skipClass() {
+			int depth = 0;
+
+			while (this.position < this.regex.length()) {
+				final char character = this.regex.charAt(this.position);
+
+				if (character == '\\')
+					this.position += 2;
+
+				else if (character == '[') {
+					depth++;
+					this.position++;
+
+					// Leading ] or ^] are literals
+					if (this.position < this.regex.length() && this.regex.charAt(this.position) == '^')
+						this.position++;
+
+					if (this.position < this.regex.length() && this.regex.charAt(this.position) == ']')
+						this.position++;
+
+				} else if (character == ']') {
+					depth--;
+					this.position++;
+
+					if (depth == 0)
+						return;
+
+				} else
+					this.position++;
+			}
+
+			throw new UnsupportedSyntaxException();
+		}
+
+		/*
+		 * Parse a group, returning its required literals or null if it has none or is zero-width
+		 */
+		private Set<String> parseGroup() {
+			this.position++;
+
+			boolean zeroWidth = false;
+
+			if (this.position < this.regex.length() && this.regex.charAt(this.position) == '?') {
+				this.position++;
+
+				if (this.position >= this.regex.length())
+					throw new UnsupportedSyntaxException();
+
+				final char type = this.regex.charAt(this.position);
+
+				if (type == ':' || type == '>')
+					this.position++;
+
+				else if (type == '=' || type == '!') {
+					this.position++;
+					zeroWidth = true;
+
+				} else if (type == '<') {
+					this.position++;
+
+					if (this.position < this.regex.length() && (this.regex.charAt(this.position) == '=' || this.regex.charAt(this.position) == '!')) {
+						this.position++;
+						zeroWidth = true;
+
+					} else {
+						final int end = this.regex.indexOf('>', this.position);
+
+						if (end == -1)
+							throw new UnsupportedSyntaxException();
+
+						this.position = end + 1;
+					}
+
+				} else {
+
+					// Inline flags such as (?i) or (?iu:...)
+					while (this.position < this.regex.length()) {
+						final char flag = this.regex.charAt(this.position);
+
+						if (flag == 'x' || flag == 'X')
+							throw new UnsupportedSyntaxException();
+
+						if (flag == ')') {
+							this.position++;
+
+							return null;
+						}
+
+						if (flag == ':') {
+							this.position++;
+
+							break;
+						}
+
+						if (!Character.isLetter(flag) && flag != '-')
+							throw new UnsupportedSyntaxException();
+
+						this.position++;
+					}
+				}
+			}
+
+			final Set<String> literals = this.parseAlternation();
+
+			if (this.position >= this.regex.length() || this.regex.charAt(this.position) != ')')
+				throw new UnsupportedSyntaxException();
+
+			this.position++;
+
+			return zeroWidth ? null : literals;
+		}
+
+		/*
+		 * Parse the quantifier following an atom, if any
+		 */
+		private Quantifier parseQuantifier() {
+			if (this.position >= this.regex.length())
+				return Quantifier.ONCE;
+
+			final char character = this.regex.charAt(this.position);
+			final Quantifier quantifier;
+
+			if (character == '?' || character == '*') {
+				this.position++;
+
+				quantifier = Quantifier.OPTIONAL;
+
+			} else if (character == '+') {
+				this.position++;
+
+				quantifier = Quantifier.REPEATED;
+
+			} else if (character == '{') {
+				final int end = this.regex.indexOf('}', this.position);
+
+				if (end == -1)
+					throw new UnsupportedSyntaxException();
+
+				final String[] bounds = this.regex.substring(this.position + 1, end).split(",", -1);
+				final int min;
+				final int max;
+
+				try {
+					min = Integer.parseInt(bounds[0].trim());
+					max = bounds.length == 1 ? min : bounds[1].trim().isEmpty() ? Integer.MAX_VALUE : Integer.parseInt(bounds[1].trim());
+
+				} catch (final NumberFormatException ex) {
+					throw new UnsupportedSyntaxException();
+				}
+
+				this.position = end + 1;
+
+				quantifier = min == 0 ? Quantifier.OPTIONAL : min == 1 && max == 1 ? Quantifier.ONCE : Quantifier.REPEATED;
+
+			} else
+				return Quantifier.ONCE;
+
+			// Lazy or possessive suffix
+			if (this.position < this.regex.length() && (this.regex.charAt(this.position) == '?' || this.regex.charAt(this.position) == '+'))
+				this.position++;
+
+			return quantifier;
+		}
+
+		/*
+		 * Return the more selective literal set, that is the one whose shortest literal is longer
+		 */
+		private static Set<String> pickBetter(final Set<String> best, final CharSequence run) {
+			if (run.length() == 0)
+				return best;
+
+			final Set<String> candidate = new HashSet<>();
+			candidate.add(run.toString());
+
+			return pickBetter(best, candidate);
+		}
+
+		/*
+		 * Return the more selective literal set, that is the one whose shortest literal is longer
+		 */
+		private static Set<String> pickBetter(final Set<String> best, final Set<String> candidate) {
+			if (candidate == null || candidate.isEmpty())
+				return best;
+
+			if (best == null)
+				return candidate;
+
+			final int bestLength = shortest(best);
+			final int candidateLength = shortest(candidate);
+
+			if (candidateLength > bestLength || (candidateLength == bestLength && candidate.size() < best.size()))
+				return candidate;
+
+			return best;
+		}
+
+		/*
+		 * Return the length of the shortest literal
+		 */
+		private static int shortest(final Set<String> literals) {
+			int shortest = Integer.MAX_VALUE;
+
+			for (final String literal : literals)
+				shortest = Math.min(shortest, literal.length());
+
+			return shortest;
+		}
+	}
+
+	/*
+	 * How many times an atom is repeated
+	 */
+	private enum Quantifier {
+		ONCE,
+		OPTIONAL,
+		REPEATED
+	}
+
+	/*
+	 * Thrown when the regex uses syntax we do not index
+	 */
+	private static final class UnsupportedSyntaxException extends RuntimeException {
+		private static final long serialVersionUID = 1L;
+	}
+}
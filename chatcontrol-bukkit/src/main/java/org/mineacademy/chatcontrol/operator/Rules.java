@@ -2,8 +2,9 @@ package org.mineacademy.chatcontrol.operator;
 
 import java.io.File;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
-import java.util.HashMap;
+import java.util.EnumMap;
 import java.util.List;
 import java.util.Map;
 
@@ -17,7 +18,9 @@ import org.mineacademy.fo.ValidCore;
 import org.mineacademy.fo.exception.FoException;
 import org.mineacademy.fo.model.RuleSetReader;
 
+import lombok.AccessLevel;
 import lombok.Getter;
+import lombok.RequiredArgsConstructor;
 
 /**
  * Represents the core engine for rules
@@ -33,14 +36,20 @@ public final class Rules<T extends Rule> extends RuleSetReader<T> {
 	private static final Rules<? extends Rule> instance = new Rules<>();
 
 	/**
-	 * The loaded rules sorted by type
+	 * The compiled rules currently in use, replaced as a whole on reload
+	 * so that checks running on other threads never see a half-loaded state
 	 */
-	private final Map<RuleType, List<T>> rules = new HashMap<>();
+	private volatile Snapshot snapshot = new Snapshot(0, new EnumMap<>(RuleType.class), new EnumMap<>(RuleType.class), new EnumMap<>(RuleType.class), new EnumMap<>(RuleType.class));
 
 	/**
-	* Defines what other rules the rules on keys should import?
+	* Defines what other rules the rules on keys should import? Only used while loading.
 	*/
-	private final Map<RuleType, List<RuleType>> imports = new HashMap<>();
+	private final Map<RuleType, List<RuleType>> loadingImports = new EnumMap<>(RuleType.class);
+
+	/**
+	 * How many times rules have been loaded
+	 */
+	private int loadCount = 0;
 
 	/*
 	* Create this class
@@ -54,15 +63,41 @@ public final class Rules<T extends Rule> extends RuleSetReader<T> {
 	 */
 	@Override
 	public void load() {
-		this.rules.clear();
-		this.imports.clear();
+		final Map<RuleType, List<Rule>> rules = new EnumMap<>(RuleType.class);
+		final Map<RuleType, RulePrefilter> prefilters = new EnumMap<>(RuleType.class);
+		final Map<RuleType, List<RuleOperator>> operators = new EnumMap<>(RuleType.class);
+
+		this.loadingImports.clear();
 
 		for (final RuleType ruleType : RuleType.values()) {
-			this.rules.put(ruleType, this.loadFromFile("rules/" + ruleType.getKey() + ".rs"));
+			final List<T> loaded = this.loadFromFile("rules/" + ruleType.getKey() + ".rs");
 
-			// Reverse this to correct order of checking below
-			Collections.reverse(this.imports.getOrDefault(ruleType, new ArrayList<>()));
+			rules.put(ruleType, Collections.unmodifiableList(new ArrayList<>(loaded)));
+			prefilters.put(ruleType, RulePrefilter.compile(loaded));
 		}
+
+		// Resolve imports once, imported rules are checked first in the order they were imported
+		for (final RuleType ruleType : RuleType.values()) {
+			final List<RuleOperator> resolved = new ArrayList<>();
+
+			for (final RuleType imported : this.loadingImports.getOrDefault(ruleType, new ArrayList<>()))
+				for (final Rule rule : rules.get(imported))
+					if (!rule.getIgnoreTypes().contains(ruleType))
+						resolved.add(rule);
+
+			for (final Rule rule : rules.get(ruleType))
+				if (!rule.getIgnoreTypes().contains(ruleType))
+					resolved.add(rule);
+
+			operators.put(ruleType, Collections.unmodifiableList(Arrays.asList(resolved.toArray(new RuleOperator[resolved.size()]))));
+		}
+
+		final Map<RuleType, List<RuleType>> imports = new EnumMap<>(RuleType.class);
+
+		for (final Map.Entry<RuleType, List<RuleType>> entry : this.loadingImports.entrySet())
+			imports.put(entry.getKey(), Collections.unmodifiableList(new ArrayList<>(entry.getValue())));
+
+		this.snapshot = new Snapshot(++this.loadCount, rules, imports, prefilters, operators);
 	}
 
 	/**
@@ -85,10 +120,7 @@ public final class Rules<T extends Rule> extends RuleSetReader<T> {
 				throw new FoException("Your @import operator in " + file + " refers to unknown rule type: " + ruleType + ". Available: " + CommonCore.join(RuleType.values()));
 			}
 
-			final List<RuleType> importedTypes = this.imports.getOrDefault(current, new ArrayList<>());
-			importedTypes.add(imported);
-
-			this.imports.put(current, importedTypes);
+			this.loadingImports.computeIfAbsent(current, key -> new ArrayList<>()).add(imported);
 
 			return true;
 		}
@@ -160,7 +192,7 @@ public final class Rules<T extends Rule> extends RuleSetReader<T> {
 	 * @return
 	 */
 	public Rule findRuleByMatch(final RuleType type, final String match) {
-		for (final Rule rule : this.rules.get(type))
+		for (final Rule rule : this.getRules(type))
 			if (rule.getMatch().equals(match))
 				return rule;
 
@@ -175,7 +207,7 @@ public final class Rules<T extends Rule> extends RuleSetReader<T> {
 	public List<Rule> getRulesWithName() {
 		final List<Rule> namedRules = new ArrayList<>();
 
-		for (final List<T> rules : this.rules.values())
+		for (final List<Rule> rules : this.snapshot.getRules().values())
 			for (final Rule rule : rules)
 				if (!rule.getName().isEmpty())
 					namedRules.add(rule);
@@ -183,6 +215,41 @@ public final class Rules<T extends Rule> extends RuleSetReader<T> {
 		return namedRules;
 	}
 
+	/**
+	 * Return the compiled prefilter for rules of the given type, null if not loaded yet
+	 *
+	 * @param type
+	 * @return
+	 */
+	@Nullable
+	public RulePrefilter getPrefilter(final RuleType type) {
+		return this.snapshot.getPrefilters().get(type);
+	}
+
+	/**
+	 * Return the rule types the given type imports, in the order they are checked
+	 *
+	 * @param type
+	 * @return
+	 */
+	public List<RuleType> getImports(final RuleType type) {
+		return this.snapshot.getImports().getOrDefault(type, Collections.emptyList());
+	}
+
+	/**
+	 * Return the immutable list of rules to check for the given type with imports
+	 * resolved and rules ignoring this type removed, precomputed on load
+	 *
+	 * @param type
+	 * @return
+	 */
+	public List<RuleOperator> getOperators(final RuleType type) {
+		final List<RuleOperator> operators = this.snapshot.getOperators().get(type);
+		ValidCore.checkNotNull(operators, "Rules do not contain type " + type + " (or not loaded yet -- check for plugin errors during startup)");
+
+		return operators;
+	}
+
 	/**
 	 * Return immutable list of rules of given type
 	 *
@@ -190,8 +257,46 @@ public final class Rules<T extends Rule> extends RuleSetReader<T> {
 	 * @return
 	 */
 	public List<Rule> getRules(final RuleType type) {
-		ValidCore.checkBoolean(this.rules.containsKey(type), "Rules do not contain type " + type + " (or not loaded yet -- check for plugin errors during startup)");
+		final List<Rule> rules = this.snapshot.getRules().get(type);
+		ValidCore.checkNotNull(rules, "Rules do not contain type " + type + " (or not loaded yet -- check for plugin errors during startup)");
+
+		return rules;
+	}
+
+	/* ------------------------------------------------------------------------------- */
+	/* Classes */
+	/* ------------------------------------------------------------------------------- */
 
-		return Collections.unmodifiableList(this.rules.get(type));
+	/**
+	 * Represents an immutable state of all loaded rules
+	 */
+	@Getter
+	@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+	public static final class Snapshot {
+
+		/**
+		 * Incremented on each reload, used to verify a reload took effect
+		 */
+		private final int version;
+
+		/**
+		 * The loaded rules sorted by type
+		 */
+		private final Map<RuleType, List<Rule>> rules;
+
+		/**
+		 * What other rule types each rule type imports
+		 */
+		private final Map<RuleType, List<RuleType>> imports;
+
+		/**
+		 * The compiled literal prefilters for rules of each type
+		 */
+		private final Map<RuleType, RulePrefilter> prefilters;
+
+		/**
+		 * The import-resolved rules to check for each type
+		 */
+		private final Map<RuleType, List<RuleOperator>> operators;
 	}
 }
@@ -0,0 +1,170 @@
+package org.mineacademy.chatcontrol.operator;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.mineacademy.chatcontrol.settings.Settings;
+
+/**
+ * Represents a message that aborts regex matching once a time budget is exceeded.
+ *
+ * Java's regex engine reads the input through {@link #charAt(int)} on every
+ * backtracking step, so checking the clock there lets us interrupt patterns
+ * stuck in catastrophic backtracking without touching the engine itself.
+ */
+final class TimedCharSequence implements CharSequence {
+
+	/**
+	 * How many character reads between clock checks
+	 */
+	private static final int CHECK_INTERVAL = 1024;
+
+	/**
+	 * The wrapped message
+	 */
+	private final CharSequence message;
+
+	/**
+	 * The System#nanoTime() after which we abort, Long.MAX_VALUE when disarmed
+	 */
+	private long deadline;
+
+	/**
+	 * Character reads since the last clock check
+	 */
+	private int reads;
+
+	/*
+	 * Create a new timed sequence
+	 */
+	private TimedCharSequence(final CharSequence message, final long deadline) {
+		this.message = message;
+		this.deadline = deadline;
+	}
+
+	@Override
+	public char charAt(final int index) {
+		if (++this.reads >= CHECK_INTERVAL) {
+			this.reads = 0;
+
+			if (System.nanoTime() > this.deadline)
+				throw new RegexTimeoutException();
+		}
+
+		return this.message.charAt(index);
+	}
+
+	@Override
+	public int length() {
+		return this.message.length();
+	}
+
+	@Override
+	public CharSequence subSequence(final int start, final int end) {
+		return this.message.subSequence(start, end);
+	}
+
+	@Override
+	public String toString() {
+		return this.message.toString();
+	}
+
+	/**
+	 * Remove the time limit, used once matching is done so that reading
+	 * groups from the matcher later on never throws
+	 */
+	void disarm() {
+		this.deadline = Long.MAX_VALUE;
+	}
+
+	/* ------------------------------------------------------------------------------- */
+	/* Static */
+	/* ------------------------------------------------------------------------------- */
+
+	/**
+	 * Wrap the message with the time limit from settings starting now
+	 *
+	 * @param message
+	 * @return
+	 */
+	static TimedCharSequence wrap(final CharSequence message) {
+		final long budget = Settings.Rules.REGEX_TIMEOUT_MS;
+
+		return new TimedCharSequence(message, budget > 0 ? System.nanoTime() + budget * 1_000_000L : Long.MAX_VALUE);
+	}
+
+	/**
+	 * Run find() for the pattern on the message within the time limit from settings,
+	 * throwing {@link RegexTimeoutException} if it takes too long
+	 *
+	 * @param pattern
+	 * @param message
+	 * @return
+	 */
+	static boolean find(final Pattern pattern, final String message) {
+		final TimedCharSequence timed = wrap(message);
+
+		try {
+			return pattern.matcher(timed).find();
+
+		} finally {
+			timed.disarm();
+		}
+	}
+
+	/**
+	 * Replace all matches of the pattern in the message within the time limit from settings,
+	 * throwing {@link RegexTimeoutException} if it takes too long
+	 *
+	 * @param pattern
+	 * @param message
+	 * @param replacement
+	 * @return
+	 */
+	static String replaceAll(final Pattern pattern, final String message, final String replacement) {
+		final TimedCharSequence timed = wrap(message);
+
+		try {
+			return pattern.matcher(timed).replaceAll(replacement);
+
+		} finally {
+			timed.disarm();
+		}
+	}
+
+	/**
+	 * Create a matcher for the pattern and run find() on it within the time limit
+	 * from settings, returning the matcher if it found a match or null if not.
+	 *
+	 * @param pattern
+	 * @param message
+	 * @return
+	 */
+	static Matcher findMatcher(final Pattern pattern, final String message) {
+		final TimedCharSequence timed = wrap(message);
+
+		try {
+			final Matcher matcher = pattern.matcher(timed);
+
+			return matcher.find() ? matcher : null;
+
+		} finally {
+			timed.disarm();
+		}
+	}
+
+	/* ------------------------------------------------------------------------------- */
+	/* Classes */
+	/* ------------------------------------------------------------------------------- */
+
+	/**
+	 * Thrown when matching exceeded the time limit
+	 */
+	static final class RegexTimeoutException extends RuntimeException {
+		private static final long serialVersionUID = 1L;
+
+		private RegexTimeoutException() {
+			super(null, null, false, false);
+		}
+	}
+}
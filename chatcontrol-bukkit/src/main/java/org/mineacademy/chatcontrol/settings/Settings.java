@@ -21,6 +21,8 @@ import org.mineacademy.chatcontrol.model.Players;
 import org.mineacademy.chatcontrol.model.RuleType;
 import org.mineacademy.chatcontrol.model.Spy.DiscordSpy;
 import org.mineacademy.chatcontrol.model.WarningPoints.WarnTrigger;
+import org.mineacademy.chatcontrol.model.db.LogWriter;
+import org.mineacademy.chatcontrol.util.SimilarityUtil;
 import org.mineacademy.fo.Common;
 import org.mineacademy.fo.CommonCore;
 import org.mineacademy.fo.FileUtil;
@@ -154,7 +156,7 @@ public final class Settings extends SimpleSettings {
 					final String address = LINE.replace("{driver}", TYPE.getDriver()).replace("{host}", HOST).replace("{database}", DATABASE);
 
 					try {
-						org.mineacademy.chatcontrol.model.db.Database.getInstance().connect(address, USER, PASSWORD);
+						org.mineacademy.chatcontrol.model.db.Database.getInstance().connectTo(address, USER, PASSWORD);
 
 					} catch (final Throwable t) {
 						if (t instanceof SQLException && t.getMessage() != null && t.getMessage().contains("invalid database address")) {
@@ -171,7 +173,7 @@ public final class Settings extends SimpleSettings {
 			}
 
 			if (TYPE == DatabaseType.LOCAL || remoteFailed)
-				org.mineacademy.chatcontrol.model.db.Database.getInstance().connect("jdbc:sqlite:" + FileUtil.getFile("sqlite.db").getPath());
+				org.mineacademy.chatcontrol.model.db.Database.getInstance().connectTo("jdbc:sqlite:" + FileUtil.getFile("sqlite.db").getPath(), null, null);
 		}
 
 		public static boolean isRemote() {
@@ -216,6 +218,14 @@ public final class Settings extends SimpleSettings {
 	 */
 	public static class AntiSpam {
 
+		public static SimilarityUtil.Engine SIMILARITY_ENGINE;
+
+		private static void init() {
+			setPathPrefix("Anti_Spam");
+
+			SIMILARITY_ENGINE = get("Similarity_Engine", SimilarityUtil.Engine.class);
+		}
+
 		public static class Chat {
 
 			public static PlayerGroup<SimpleTime> DELAY;
@@ -415,6 +425,9 @@ public final class Settings extends SimpleSettings {
 		public static Boolean STRIP_ACCENTS;
 		public static Boolean STRIP_COLORS;
 		public static Integer SIGNS_CHECK_MODE;
+		public static Integer REGEX_TIMEOUT_MS;
+		public static Integer REGEX_TIMEOUTS_BEFORE_DISABLE;
+		public static Boolean EXPORT_STATS;
 
 		private static void init() {
 			setPathPrefix("Rules");
@@ -438,6 +451,10 @@ public final class Settings extends SimpleSettings {
 			STRIP_ACCENTS = getBoolean("Strip_Accents");
 			STRIP_COLORS = getBoolean("Strip_Colors");
 
+			REGEX_TIMEOUT_MS = getInteger("Regex_Timeout_Ms");
+			REGEX_TIMEOUTS_BEFORE_DISABLE = getInteger("Regex_Timeouts_Before_Disable");
+			EXPORT_STATS = getBoolean("Export_Stats");
+
 			final String checkMode = getString("Signs_Check_Mode");
 
 			if ("joined".equals(checkMode))
@@ -1053,12 +1070,27 @@ public final class Settings extends SimpleSettings {
 		public static SimpleTime CLEAN_AFTER;
 		public static Whiteblacklist COMMAND_LIST;
 
+		public static Integer QUEUE_BATCH_SIZE;
+		public static Integer QUEUE_FLUSH_INTERVAL_MS;
+		public static Integer QUEUE_LIMIT;
+		public static LogWriter.Overflow QUEUE_OVERFLOW;
+
 		private static void init() {
 			setPathPrefix("Log");
 
 			APPLY_ON = getSet("Apply_On", LogType.class);
 			CLEAN_AFTER = getTime("Clean_After");
 			COMMAND_LIST = new Whiteblacklist(getStringList("Command_List"), false);
+
+			setPathPrefix("Log.Queue");
+
+			QUEUE_BATCH_SIZE = getInteger("Batch_Size");
+			QUEUE_FLUSH_INTERVAL_MS = getInteger("Flush_Interval_Ms");
+			QUEUE_LIMIT = getInteger("Limit");
+			QUEUE_OVERFLOW = get("Overflow", LogWriter.Overflow.class);
+
+			ValidCore.checkBoolean(QUEUE_BATCH_SIZE > 0, "Log.Queue.Batch_Size must be greater than 0");
+			ValidCore.checkBoolean(QUEUE_FLUSH_INTERVAL_MS > 0, "Log.Queue.Flush_Interval_Ms must be greater than 0");
 		}
 	}
 
@@ -1198,6 +1230,8 @@ public final class Settings extends SimpleSettings {
 		public static Boolean SUPPORT_VARIABLES_IN_VARIABLES;
 		public static Boolean SUPPORT_FULL_PLACEHOLDERAPI_SYNTAX;
 		public static Boolean UPGRADE_HEX_TO_MINI_IN_VARIABLES;
+		public static Integer IMAGE_CACHE_SIZE;
+		public static SimpleTime IMAGE_DISK_CACHE;
 
 		private static void init() {
 			setPathPrefix("Performance");
@@ -1206,6 +1240,8 @@ public final class Settings extends SimpleSettings {
 			SUPPORT_VARIABLES_IN_VARIABLES = getBoolean("Support_Variables_In_Variables");
 			SUPPORT_FULL_PLACEHOLDERAPI_SYNTAX = getBoolean("Support_Full_PlaceholderAPI_Syntax");
 			UPGRADE_HEX_TO_MINI_IN_VARIABLES = getBoolean("Upgrade_Hex_To_Mini_In_Variables");
+			IMAGE_CACHE_SIZE = getInteger("Image_Cache_Size");
+			IMAGE_DISK_CACHE = getTime("Image_Disk_Cache");
 
 			Variables.setDoubleParse(SUPPORT_VARIABLES_IN_VARIABLES);
 			Variables.setConvertHexToMini(UPGRADE_HEX_TO_MINI_IN_VARIABLES);
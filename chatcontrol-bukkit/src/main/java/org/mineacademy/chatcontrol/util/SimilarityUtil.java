@@ -0,0 +1,214 @@
+package org.mineacademy.chatcontrol.util;
+
+import org.mineacademy.chatcontrol.settings.Settings;
+import org.mineacademy.fo.ChatUtil;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+/**
+ * Utilities for comparing how similar two messages are for anti-spam checks.
+ *
+ * Similarity is (longer length - edit distance) / longer length over the lowercase messages,
+ * the same as {@link ChatUtil#getSimilarityPercentage(String, String)}.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class SimilarityUtil {
+
+	/**
+	 * Pattern bitmasks for ASCII characters, reused per thread and cleared after each use
+	 */
+	private static final ThreadLocal<long[]> PATTERN_MASKS = ThreadLocal.withInitial(() -> new long[128]);
+
+	/**
+	 * Return the similarity of the two messages from 0 to 1 if it reaches the threshold,
+	 * otherwise return -1, giving up as soon as the threshold can no longer be reached
+	 * when the bit-parallel engine is selected.
+	 *
+	 * @param first
+	 * @param second
+	 * @param threshold from 0 to 1
+	 * @return
+	 */
+	public static double getSimilarity(final String first, final String second, final double threshold) {
+		final double similarity;
+
+		if (Settings.AntiSpam.SIMILARITY_ENGINE == Engine.BIT_PARALLEL)
+			similarity = getSimilarityBitParallel(first, second, threshold);
+		else
+			similarity = ChatUtil.getSimilarityPercentage(first, second);
+
+		return similarity >= threshold ? similarity : -1;
+	}
+
+	/*
+	 * Compute the similarity with Myers' bit-vector edit distance for messages
+	 * up to 64 letters and a banded dynamic programming matrix for longer ones
+	 */
+	private static double getSimilarityBitParallel(String first, String second, final double threshold) {
+		if (first.isEmpty() && second.isEmpty())
+			return 1D;
+
+		first = first.toLowerCase();
+		second = second.toLowerCase();
+
+		final String longer = first.length() >= second.length() ? first : second;
+		final String shorter = longer == first ? second : first;
+		final int length = longer.length();
+
+		// The most edits we can afford to still reach the threshold
+		final int maxDistance = threshold <= 0 ? length : (int) Math.floor(length * (1 - threshold) + 1e-9);
+
+		if (length - shorter.length() > maxDistance)
+			return -1;
+
+		final int distance = shorter.length() <= 64 ? getDistanceMyers(shorter, longer, maxDistance) : getDistanceBanded(shorter, longer, maxDistance);
+
+		return distance == -1 ? -1 : (length - distance) / (double) length;
+	}
+
+	/*
+	 * Myers' bit-vector algorithm in Hyyrö's formulation for the global edit distance,
+	 * the pattern must have at most 64 characters. Returns -1 once the distance is known to exceed the limit.
+	 */
+	private static int getDistanceMyers(final String pattern, final String text, final int maxDistance) {
+		final int patternLength = pattern.length();
+		final int textLength = text.length();
+
+		if (patternLength == 0)
+			return textLength <= maxDistance ? textLength : -1;
+
+		final long[] masks = PATTERN_MASKS.get();
+
+		for (int i = 0; i < patternLength; i++) {
+			final char character = pattern.charAt(i);
+
+			if (character < 128)
+				masks[character] |= 1L << i;
+		}
+
+		try {
+			final long last = 1L << (patternLength - 1);
+
+			long positiveVertical = -1L;
+			long negativeVertical = 0L;
+			int score = patternLength;
+
+			for (int j = 0; j < textLength; j++) {
+				final char character = text.charAt(j);
+				final long equal = character < 128 ? masks[character] : getMask(pattern, character);
+
+				final long crossVertical = equal | negativeVertical;
+				final long crossHorizontal = (((equal & positiveVertical) + positiveVertical) ^ positiveVertical) | equal;
+
+				long positiveHorizontal = negativeVertical | ~(crossHorizontal | positiveVertical);
+				long negativeHorizontal = positiveVertical & crossHorizontal;
+
+				if ((positiveHorizontal & last) != 0)
+					score++;
+
+				else if ((negativeHorizontal & last) != 0)
+					score--;
+
+				// Each remaining column can lower the score by at most one
+				if (score - (textLength - j - 1) > maxDistance)
+					return -1;
+
+				positiveHorizontal = (positiveHorizontal << 1) | 1L;
+				negativeHorizontal = negativeHorizontal << 1;
+
+				positiveVertical = negativeHorizontal | ~(crossVertical | positiveHorizontal);
+				negativeVertical = positiveHorizontal & crossVertical;
+			}
+
+			return score <= maxDistance ? score : -1;
+
+		} finally {
+			for (int i = 0; i < patternLength; i++) {
+				final char character = pattern.charAt(i);
+
+				if (character < 128)
+					masks[character] = 0L;
+			}
+		}
+	}
+
+	/*
+	 * Return the bitmask of positions where the character occurs in the pattern
+	 */
+	private static long getMask(final String pattern, final char character) {
+		long mask = 0L;
+
+		for (int i = 0; i < pattern.length(); i++)
+			if (pattern.charAt(i) == character)
+				mask |= 1L << i;
+
+		return mask;
+	}
+
+	/*
+	 * Edit distance computed only within maxDistance of the diagonal, returns -1
+	 * as soon as every cell in a row exceeds the limit
+	 */
+	private static int getDistanceBanded(final String shorter, final String longer, final int maxDistance) {
+		final int rows = shorter.length();
+		final int columns = longer.length();
+		final int outside = maxDistance + 1;
+
+		int[] previous = new int[columns + 1];
+		int[] current = new int[columns + 1];
+
+		for (int j = 0; j <= columns; j++)
+			previous[j] = Math.min(j, outside);
+
+		for (int i = 1; i <= rows; i++) {
+			final int from = Math.max(1, i - maxDistance);
+			final int to = Math.min(columns, i + maxDistance);
+			final char character = shorter.charAt(i - 1);
+
+			current[from - 1] = from == 1 ? Math.min(i, outside) : outside;
+
+			int rowMinimum = current[from - 1];
+
+			for (int j = from; j <= to; j++) {
+				final int cost = character == longer.charAt(j - 1) ? 0 : 1;
+				final int above = j <= i - 1 + maxDistance ? previous[j] : outside;
+
+				final int value = Math.min(Math.min(current[j - 1] + 1, above + 1), previous[j - 1] + cost);
+
+				current[j] = Math.min(value, outside);
+				rowMinimum = Math.min(rowMinimum, current[j]);
+			}
+
+			if (to < columns)
+				current[to + 1] = outside;
+
+			if (rowMinimum > maxDistance)
+				return -1;
+
+			final int[] swap = previous;
+			previous = current;
+			current = swap;
+		}
+
+		final int distance = previous[columns];
+
+		return distance <= maxDistance ? distance : -1;
+	}
+
+	/**
+	 * How to compute similarity of messages
+	 */
+	public enum Engine {
+
+		/**
+		 * The original full Levenshtein matrix
+		 */
+		DEFAULT,
+
+		/**
+		 * Myers' bit-parallel algorithm giving up early when the threshold cannot be reached
+		 */
+		BIT_PARALLEL
+	}
+}
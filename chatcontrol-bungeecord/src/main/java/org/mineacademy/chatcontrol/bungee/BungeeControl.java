@@ -9,6 +9,9 @@ import org.mineacademy.chatcontrol.bungee.hook.PartiesAndFriendsHook;
 import org.mineacademy.chatcontrol.bungee.listener.PlayerListener;
 import org.mineacademy.chatcontrol.bungee.listener.RedisListener;
 import org.mineacademy.chatcontrol.proxy.ChatControlProxyListenerProxy;
+import org.mineacademy.chatcontrol.proxy.OutboundQueue;
+import org.mineacademy.chatcontrol.proxy.PendingMutes;
+import org.mineacademy.chatcontrol.proxy.RoutingTable;
 import org.mineacademy.chatcontrol.proxy.ProxyEvents;
 import org.mineacademy.chatcontrol.proxy.ProxyServerCache;
 import org.mineacademy.chatcontrol.proxy.Redis;
@@ -88,12 +91,15 @@ public final class BungeeControl extends BungeePlugin {
 		this.registerCommand(new ReloadCommand("bcreload", "chatcontrol.command.reload"));
 
 		ChatControlProxyListenerProxy.getInstance().scheduleSyncTask();
+		OutboundQueue.getInstance().scheduleReport();
+		PendingMutes.getInstance().load();
 
 		this.onPluginReload();
 	}
 
 	@Override
 	protected void onPluginReload() {
+		RoutingTable.rebuild();
 		ProxyPlayerMessages.getInstance().load();
 	}
 
@@ -9,6 +9,8 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 
 import org.mineacademy.chatcontrol.model.ChannelMode;
 import org.mineacademy.chatcontrol.model.PlaceholderPrefix;
@@ -33,9 +35,30 @@ public final class SyncedCache {
 
 	/**
 	 * The internal map
-	 * Name : Data
+	 * Unique ID : Data
 	 */
-	private static Map<UUID, SyncedCache> uniqueCacheMap = new HashMap<>();
+	private static final Map<UUID, SyncedCache> uniqueCacheMap = new ConcurrentHashMap<>();
+
+	/**
+	 * Caches by lowercase player name
+	 */
+	private static final Map<String, SyncedCache> nameIndex = new ConcurrentHashMap<>();
+
+	/**
+	 * Caches by lowercase colorless nick
+	 */
+	private static final Map<String, SyncedCache> nickIndex = new ConcurrentHashMap<>();
+
+	/**
+	 * Unique IDs of players on each server
+	 */
+	private static final Map<String, Set<UUID>> serverIndex = new ConcurrentHashMap<>();
+
+	/**
+	 * Lowercase names and colorless nicks of all cached players with how many players use them,
+	 * updated as players are added, removed or change nicks so lookups need no lock
+	 */
+	private static final Map<String, Integer> namesAndNicksLowercase = new ConcurrentHashMap<>();
 
 	/**
 	 * The player name
@@ -53,76 +76,87 @@ public final class SyncedCache {
 	 * The server where this player is on
 	 */
 	@Getter
-	private String serverName = "";
+	private volatile String serverName = "";
 
 	/**
 	 * His nick if any
 	 */
-	private String nickColoredPrefixed;
+	private volatile String nickColoredPrefixed;
 
 	/**
 	 * His nick if any
 	 */
-	private String nickColorless;
+	private volatile String nickColorless;
 
 	/**
 	 * Is the player vanished?
 	 */
-	private boolean vanished;
+	private volatile boolean vanished;
 
 	/**
 	 * Is the player a fucking drunk?
 	 */
-	private boolean afk;
+	private volatile boolean afk;
+
+	/*
+	 * Collections below are never modified once set, loading data replaces
+	 * them with new ones so that readers on other threads never see them half-filled.
+	 */
 
 	/**
 	 * The plugin parts the player has toggled off.
 	 */
-	private final Set<ToggleType> toggledOffParts = new HashSet<>();
+	private volatile Set<ToggleType> toggledOffParts = new HashSet<>();
 
 	/**
 	 * Set of timed message broadcast groups this player is not receiving
 	 */
-	private final Map<PlayerMessageType, Set<String>> ignoredMessages = new HashMap<>();
+	private volatile Map<PlayerMessageType, Set<String>> ignoredMessages = new HashMap<>();
 
 	/**
 	 * List of ignored dudes
 	 */
-	private final Set<UUID> ignoredPlayers = new HashSet<>();
+	private volatile Set<UUID> ignoredPlayers = new HashSet<>();
 
 	/**
 	 * Map of channel names and modes this synced man is in
 	 */
 	@Getter
-	private final Map<String, ChannelMode> channels = new HashMap<>();
+	private volatile Map<String, ChannelMode> channels = new HashMap<>();
 
 	/**
 	 * The player prefix from Vault
 	 */
 	@Getter
-	private String prefix;
+	private volatile String prefix;
 
 	/**
 	 * The player suffix from Vault
 	 */
 	@Getter
-	private String suffix;
+	private volatile String suffix;
 
 	/**
 	 * The player group from Vault
 	 */
 	@Getter
-	private String group;
+	private volatile String group;
 
 	/**
 	 * Bypasses mute?
 	 */
 	@Getter
-	private boolean hasMuteBypass;
+	private volatile boolean hasMuteBypass;
 
 	/*
 	 * Create a synced cache from the given data map
 	 */
+	/**
+	 * Set once the player is removed from the cache, guarded by this cache's lock
+	 * so that loading data afterwards does not put them back to the indexes
+	 */
+	private boolean removed;
+
 	private SyncedCache(final String playerName, final UUID uniqueId) {
 		this.playerName = playerName;
 		this.uniqueId = uniqueId;
@@ -136,13 +170,43 @@ public final class SyncedCache {
 	 */
 	public void loadData(final SyncType syncType, final String value) {
 		if (syncType == SyncType.SERVER)
-			this.serverName = value;
+			synchronized (this) {
+				final String oldServer = this.serverName;
+
+				if (!oldServer.equals(value)) {
+					this.serverName = value;
+
+					if (!this.removed) {
+						unindexServer(oldServer, this.uniqueId);
+						indexServer(value, this.uniqueId);
+					}
+				}
+			}
 
 		else if (syncType == SyncType.NICK_COLORED_PREFIXED)
 			this.nickColoredPrefixed = value.isEmpty() ? null : value;
 
 		else if (syncType == SyncType.NICK_COLORLESS)
-			this.nickColorless = value.isEmpty() ? null : value;
+			synchronized (this) {
+				final String oldNick = this.nickColorless;
+				final String newNick = value.isEmpty() ? null : value;
+
+				if (oldNick == null ? newNick != null : !oldNick.equals(newNick)) {
+					this.nickColorless = newNick;
+
+					if (!this.removed) {
+						if (oldNick != null) {
+							unindexNameOrNick(oldNick);
+							unindex(nickIndex, oldNick, this, SyncedCache::getNickColorlessOrNull);
+						}
+
+						if (newNick != null) {
+							indexNameOrNick(newNick);
+							nickIndex.put(newNick.toLowerCase(), this);
+						}
+					}
+				}
+			}
 
 		else if (syncType == SyncType.VANISH)
 			this.vanished = value.equals("1");
@@ -151,14 +215,16 @@ public final class SyncedCache {
 			this.afk = value.equals("1");
 
 		else if (syncType == SyncType.TOGGLED_OFF_PARTS) {
-			this.toggledOffParts.clear();
+			final Set<ToggleType> toggledOffParts = new HashSet<>();
 
 			if (!value.isEmpty())
 				for (final String name : value.split("\\|"))
-					this.toggledOffParts.add(ToggleType.valueOf(name));
+					toggledOffParts.add(ToggleType.valueOf(name));
+
+			this.toggledOffParts = toggledOffParts;
 
 		} else if (syncType == SyncType.IGNORED_MESSAGES) {
-			this.ignoredMessages.clear();
+			final Map<PlayerMessageType, Set<String>> ignoredMessages = new HashMap<>();
 
 			if (!value.isEmpty()) {
 				final SerializedMap map = SerializedMap.fromObject(Language.JSON, value.toString());
@@ -167,25 +233,29 @@ public final class SyncedCache {
 					final PlayerMessageType type = PlayerMessageType.valueOf(entry.getKey());
 					final Set<String> groups = CommonCore.newSet(entry.getValue().toString().split("\\|"));
 
-					this.ignoredMessages.put(type, groups);
+					ignoredMessages.put(type, groups);
 				}
 			}
 
+			this.ignoredMessages = ignoredMessages;
+
 		} else if (syncType == SyncType.IGNORE) {
-			this.ignoredPlayers.clear();
+			final Set<UUID> ignoredPlayers = new HashSet<>();
 
 			if (!value.isEmpty())
 				for (final String rawUUID : value.split("\\|"))
 					try {
-						this.ignoredPlayers.add(UUID.fromString(rawUUID));
+						ignoredPlayers.add(UUID.fromString(rawUUID));
 
 					} catch (final Throwable t) {
 						CommonCore.warning("Failed to load ignored player from UUID: " + rawUUID);
 					}
+
+			this.ignoredPlayers = ignoredPlayers;
 		}
 
 		else if (syncType == SyncType.CHANNELS) {
-			this.channels.clear();
+			final Map<String, ChannelMode> channels = new HashMap<>();
 
 			if (!value.isEmpty())
 				for (final String channelWithMode : value.split("\\|")) {
@@ -194,11 +264,13 @@ public final class SyncedCache {
 					try {
 						final int modeOrdinal = Integer.parseInt(parts[1]);
 
-						this.channels.put(parts[0], ChannelMode.values()[modeOrdinal]);
+						channels.put(parts[0], ChannelMode.values()[modeOrdinal]);
 
 					} catch (final Throwable t) {
 					}
 				}
+
+			this.channels = channels;
 		}
 
 		else if (syncType == SyncType.GROUP)
@@ -422,9 +494,7 @@ public final class SyncedCache {
 	 * @return
 	 */
 	public static boolean isPlayerConnected(final UUID uniqueId) {
-		synchronized (uniqueCacheMap) {
-			return uniqueCacheMap.containsKey(uniqueId);
-		}
+		return uniqueCacheMap.containsKey(uniqueId);
 	}
 
 	/**
@@ -434,13 +504,7 @@ public final class SyncedCache {
 	 * @return
 	 */
 	public static boolean isPlayerNameConnected(final String name) {
-		synchronized (uniqueCacheMap) {
-			for (final SyncedCache cache : uniqueCacheMap.values())
-				if (cache.getPlayerName().equalsIgnoreCase(name))
-					return true;
-
-			return false;
-		}
+		return nameIndex.containsKey(name.toLowerCase());
 	}
 
 	/**
@@ -451,17 +515,21 @@ public final class SyncedCache {
 	 * @return
 	 */
 	public static SyncedCache getOrCreate(final String playerName, final UUID uniqueId) {
-		synchronized (uniqueCacheMap) {
-			SyncedCache cache = uniqueCacheMap.get(uniqueId);
+		final SyncedCache cache = uniqueCacheMap.get(uniqueId);
 
-			if (cache == null) {
-				cache = new SyncedCache(playerName, uniqueId);
+		if (cache != null)
+			return cache;
 
-				uniqueCacheMap.put(uniqueId, cache);
-			}
+		final SyncedCache newCache = new SyncedCache(playerName, uniqueId);
+		final SyncedCache existing = uniqueCacheMap.putIfAbsent(uniqueId, newCache);
 
-			return cache;
-		}
+		if (existing != null)
+			return existing;
+
+		indexNameOrNick(playerName);
+		nameIndex.put(playerName.toLowerCase(), newCache);
+
+		return newCache;
 	}
 
 	/**
@@ -471,13 +539,11 @@ public final class SyncedCache {
 	 * @return
 	 */
 	public static boolean doesServerExist(final String serverName) {
-		synchronized (uniqueCacheMap) {
-			for (final SyncedCache cache : uniqueCacheMap.values())
-				if (cache.getServerName().equalsIgnoreCase(serverName))
-					return true;
+		for (final String server : serverIndex.keySet())
+			if (server.equalsIgnoreCase(serverName))
+				return true;
 
-			return false;
-		}
+		return false;
 	}
 
 	/**
@@ -488,13 +554,7 @@ public final class SyncedCache {
 	 * @return
 	 */
 	public static SyncedCache fromPlayerName(final String playerName) {
-		synchronized (uniqueCacheMap) {
-			for (final SyncedCache cache : uniqueCacheMap.values())
-				if (cache.getPlayerName().equalsIgnoreCase(playerName))
-					return cache;
-
-			return null;
-		}
+		return nameIndex.get(playerName.toLowerCase());
 	}
 
 	/**
@@ -505,9 +565,7 @@ public final class SyncedCache {
 	 * @return
 	 */
 	public static SyncedCache fromUniqueId(final UUID uniqueId) {
-		synchronized (uniqueCacheMap) {
-			return uniqueCacheMap.get(uniqueId);
-		}
+		return uniqueCacheMap.get(uniqueId);
 	}
 
 	/**
@@ -518,17 +576,11 @@ public final class SyncedCache {
 	 *
 	 * @return
 	 */
-	public static SyncedCache fromNickColorless(String nick) {
-		synchronized (uniqueCacheMap) {
-			nick = nick.toLowerCase();
+	public static SyncedCache fromNickColorless(final String nick) {
+		final String lowercase = nick.toLowerCase();
+		final SyncedCache cache = nameIndex.get(lowercase);
 
-			for (final SyncedCache cache : uniqueCacheMap.values()) {
-				if (cache.getPlayerName().equalsIgnoreCase(nick) || cache.getNickColorlessOrNull() != null && cache.getNickColorlessOrNull().toLowerCase().equals(nick))
-					return cache;
-			}
-
-			return null;
-		}
+		return cache != null ? cache : nickIndex.get(lowercase);
 	}
 
 	/**
@@ -537,14 +589,19 @@ public final class SyncedCache {
 	 * @return
 	 */
 	public static Set<String> getServers() {
-		synchronized (uniqueCacheMap) {
-			final Set<String> servers = new HashSet<>();
+		return new HashSet<>(serverIndex.keySet());
+	}
 
-			for (final SyncedCache cache : uniqueCacheMap.values())
-				servers.add(cache.getServerName());
+	/**
+	 * Return unique IDs of players on the given server
+	 *
+	 * @param serverName
+	 * @return
+	 */
+	public static Set<UUID> getUniqueIdsOnServer(final String serverName) {
+		final Set<UUID> uniqueIds = serverIndex.get(serverName);
 
-			return servers;
-		}
+		return uniqueIds == null ? new HashSet<>() : new HashSet<>(uniqueIds);
 	}
 
 	/**
@@ -553,9 +610,7 @@ public final class SyncedCache {
 	 * @return
 	 */
 	public static Collection<SyncedCache> getCaches() {
-		synchronized (uniqueCacheMap) {
-			return Collections.unmodifiableCollection(uniqueCacheMap.values());
-		}
+		return Collections.unmodifiableCollection(uniqueCacheMap.values());
 	}
 
 	/**
@@ -564,21 +619,29 @@ public final class SyncedCache {
 	 * @return
 	 */
 	public static Set<String> getNamesAndNicks() {
-		synchronized (uniqueCacheMap) {
-			final Set<String> names = new HashSet<>();
-
-			for (final SyncedCache cache : uniqueCacheMap.values()) {
-				final String name = cache.getPlayerName();
-				final String nick = cache.getNameOrNickColorless();
+		final Set<String> names = new HashSet<>();
 
-				names.add(name);
+		for (final SyncedCache cache : uniqueCacheMap.values()) {
+			final String name = cache.getPlayerName();
+			final String nick = cache.getNameOrNickColorless();
 
-				if (!nick.equals(name))
-					names.add(nick);
-			}
+			names.add(name);
 
-			return names;
+			if (!nick.equals(name))
+				names.add(nick);
 		}
+
+		return names;
+	}
+
+	/**
+	 * Return true if the given word is a name or colorless nick of a network player, ignoring case
+	 *
+	 * @param word
+	 * @return
+	 */
+	public static boolean isNameOrNick(final String word) {
+		return namesAndNicksLowercase.containsKey(word.toLowerCase());
 	}
 
 	/**
@@ -587,14 +650,12 @@ public final class SyncedCache {
 	 * @return
 	 */
 	public static Set<String> getNames() {
-		synchronized (uniqueCacheMap) {
-			final Set<String> names = new HashSet<>();
+		final Set<String> names = new HashSet<>();
 
-			for (final SyncedCache cache : uniqueCacheMap.values())
-				names.add(cache.getPlayerName());
+		for (final SyncedCache cache : uniqueCacheMap.values())
+			names.add(cache.getPlayerName());
 
-			return names;
-		}
+		return names;
 	}
 
 	/**
@@ -604,16 +665,14 @@ public final class SyncedCache {
 	 * @param playerNamesAndValues
 	 */
 	public static void uploadClusterFromUids(final SyncType type, final SerializedMap playerNamesAndValues) {
-		synchronized (uniqueCacheMap) {
-			for (final Map.Entry<String, Object> entry : playerNamesAndValues.entrySet()) {
-				final UUID uniqueId = UUID.fromString(entry.getKey());
-				final String value = entry.getValue().toString();
+		for (final Map.Entry<String, Object> entry : playerNamesAndValues.entrySet()) {
+			final UUID uniqueId = UUID.fromString(entry.getKey());
+			final String value = entry.getValue().toString();
 
-				final SyncedCache cache = uniqueCacheMap.get(uniqueId);
-				ValidCore.checkNotNull(cache, "Cannot upload '" + type + "' data '" + value + "' for " + uniqueId + " because he is not loaded yet - was header sent? Loaded: " + uniqueCacheMap.keySet());
+			final SyncedCache cache = uniqueCacheMap.get(uniqueId);
+			ValidCore.checkNotNull(cache, "Cannot upload '" + type + "' data '" + value + "' for " + uniqueId + " because he is not loaded yet - was header sent? Loaded: " + uniqueCacheMap.keySet());
 
-				cache.loadData(type, value);
-			}
+			cache.loadData(type, value);
 		}
 	}
 
@@ -625,21 +684,13 @@ public final class SyncedCache {
 	 * @param cachesByType
 	 */
 	public static void uploadAll(final String playerName, final UUID uniqueId, final SerializedMap cachesByType) {
-		synchronized (uniqueCacheMap) {
-			SyncedCache cache = uniqueCacheMap.get(uniqueId);
-
-			if (cache == null) {
-				cache = new SyncedCache(playerName, uniqueId);
+		final SyncedCache cache = getOrCreate(playerName, uniqueId);
 
-				uniqueCacheMap.put(uniqueId, cache);
-			}
-
-			for (final Map.Entry<String, Object> entry : cachesByType.entrySet()) {
-				final SyncType type = SyncType.valueOf(entry.getKey());
-				final String value = entry.getValue().toString();
+		for (final Map.Entry<String, Object> entry : cachesByType.entrySet()) {
+			final SyncType type = SyncType.valueOf(entry.getKey());
+			final String value = entry.getValue().toString();
 
-				cache.loadData(type, value);
-			}
+			cache.loadData(type, value);
 		}
 	}
 
@@ -649,13 +700,28 @@ public final class SyncedCache {
 	 * @param newUniqueIds
 	 */
 	public static void removeDisconnectedPlayers(final Collection<UUID> newUniqueIds) {
-		synchronized (uniqueCacheMap) {
-			for (final Iterator<Entry<UUID, SyncedCache>> it = uniqueCacheMap.entrySet().iterator(); it.hasNext();) {
-				final Entry<UUID, SyncedCache> entry = it.next();
-				final UUID uniqueId = entry.getKey();
+		for (final Iterator<Entry<UUID, SyncedCache>> it = uniqueCacheMap.entrySet().iterator(); it.hasNext();) {
+			final Entry<UUID, SyncedCache> entry = it.next();
+			final UUID uniqueId = entry.getKey();
+
+			if (!newUniqueIds.contains(uniqueId)) {
+				final SyncedCache cache = entry.getValue();
+
+				it.remove();
+
+				// Hold the cache's lock so that its server or nick cannot be indexed again while we unindex it
+				synchronized (cache) {
+					cache.removed = true;
+
+					unindexNameOrNick(cache.getPlayerName());
+					unindex(nameIndex, cache.getPlayerName(), cache, SyncedCache::getPlayerName);
+					unindexServer(cache.getServerName(), uniqueId);
 
-				if (!newUniqueIds.contains(uniqueId))
-					it.remove();
+					if (cache.getNickColorlessOrNull() != null) {
+						unindexNameOrNick(cache.getNickColorlessOrNull());
+						unindex(nickIndex, cache.getNickColorlessOrNull(), cache, SyncedCache::getNickColorlessOrNull);
+					}
+				}
 			}
 		}
 	}
@@ -669,11 +735,9 @@ public final class SyncedCache {
 	 * @return
 	 */
 	public static Map<String, Object> getPlaceholders(final FoundationPlayer audience, final PlaceholderPrefix prefix) {
-		synchronized (uniqueCacheMap) {
-			final SyncedCache cache = uniqueCacheMap.get(audience.getUniqueId());
+		final SyncedCache cache = uniqueCacheMap.get(audience.getUniqueId());
 
-			return getPlaceholders(cache, prefix, audience.getName());
-		}
+		return getPlaceholders(cache, prefix, audience.getName());
 	}
 
 	/**
@@ -685,13 +749,75 @@ public final class SyncedCache {
 	 * @return
 	 */
 	public static Map<String, Object> getPlaceholders(final String fallbackName, final UUID uniqueId, final PlaceholderPrefix prefix) {
-		synchronized (uniqueCacheMap) {
-			final SyncedCache cache = uniqueId != null ? uniqueCacheMap.get(uniqueId) : null;
+		final SyncedCache cache = uniqueId != null ? uniqueCacheMap.get(uniqueId) : null;
+
+		return getPlaceholders(cache, prefix, fallbackName);
+	}
+
+	/*
+	 * Remove the cache from the given index under the given name or nick. If another
+	 * cache still uses the same key, such as two players sharing a nick, point the key to it.
+	 */
+	private static void unindex(final Map<String, SyncedCache> index, final String key, final SyncedCache cache, final Function<SyncedCache, String> keyGetter) {
+		final String lowercase = key.toLowerCase();
+
+		if (!index.remove(lowercase, cache))
+			return;
+
+		for (final SyncedCache other : uniqueCacheMap.values()) {
+			final String otherKey = keyGetter.apply(other);
 
-			return getPlaceholders(cache, prefix, fallbackName);
+			if (other != cache && otherKey != null && otherKey.equalsIgnoreCase(lowercase)) {
+				index.putIfAbsent(lowercase, other);
+
+				break;
+			}
 		}
 	}
 
+	/*
+	 * Add the player to the server index
+	 */
+	private static void indexServer(final String serverName, final UUID uniqueId) {
+		if (serverName.isEmpty())
+			return;
+
+		serverIndex.compute(serverName, (key, uniqueIds) -> {
+			final Set<UUID> set = uniqueIds != null ? uniqueIds : ConcurrentHashMap.newKeySet();
+
+			set.add(uniqueId);
+			return set;
+		});
+	}
+
+	/*
+	 * Remove the player from the server index, forgetting the server once empty
+	 */
+	private static void unindexServer(final String serverName, final UUID uniqueId) {
+		if (serverName.isEmpty())
+			return;
+
+		serverIndex.computeIfPresent(serverName, (key, uniqueIds) -> {
+			uniqueIds.remove(uniqueId);
+
+			return uniqueIds.isEmpty() ? null : uniqueIds;
+		});
+	}
+
+	/*
+	 * Add a name or nick to the lowercase index
+	 */
+	private static void indexNameOrNick(final String nameOrNick) {
+		namesAndNicksLowercase.merge(nameOrNick.toLowerCase(), 1, Integer::sum);
+	}
+
+	/*
+	 * Remove a name or nick from the lowercase index once no player uses it
+	 */
+	private static void unindexNameOrNick(final String nameOrNick) {
+		namesAndNicksLowercase.computeIfPresent(nameOrNick.toLowerCase(), (key, count) -> count > 1 ? count - 1 : null);
+	}
+
 	/*
 	 * Get all cache variables
 	 */
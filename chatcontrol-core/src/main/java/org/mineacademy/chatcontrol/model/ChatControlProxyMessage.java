@@ -127,7 +127,31 @@ public enum ChatControlProxyMessage implements ProxyMessage {
 	/**
 	 * Send a toast message
 	 */
-	TOAST(UUID.class /* receiver UUID */, String.class /* toggle type */, String.class /* message */, String.class, /* CompMaterial */ String.class /* CompToastStyle */ );
+	TOAST(UUID.class /* receiver UUID */, String.class /* toggle type */, String.class /* message */, String.class, /* CompMaterial */ String.class /* CompToastStyle */ ),
+
+	/**
+	 * Several packets sent to one server together, see {@link ProxyMessageBatch}.
+	 * Only sent to servers which completed {@link #CODEC_HANDSHAKE}.
+	 */
+	BATCH(String.class /* Base64 encoded raw packets */),
+
+	/**
+	 * Announce the highest {@link ProxyCodec} version we support, sent by servers
+	 * to proxy and answered by proxy only to the server which sent it. Servers
+	 * completing it also reassemble {@link #MESSAGE_PART}
+	 */
+	CODEC_HANDSHAKE(String.class /* codec version */),
+
+	/**
+	 * One part of a packet above the plugin message limit, see {@link ProxyMessageParts}.
+	 * Only sent to servers which completed {@link #CODEC_HANDSHAKE}.
+	 */
+	MESSAGE_PART(UUID.class /* message id */, String.class /* part index */, String.class /* part count */, String.class /* Base64 encoded part of the raw packet */),
+
+	/**
+	 * Sync of data between servers using proxy in the binary format, only sent after {@link #CODEC_HANDSHAKE}
+	 */
+	SYNCED_CACHE_BINARY(String.class /* Base64 encoded ProxyCodec payload with all sync types */);
 
 	/**
 	 * Stores all valid values, the names of them are only used
@@ -0,0 +1,268 @@
+package org.mineacademy.chatcontrol.model;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import org.mineacademy.fo.collection.SerializedMap;
+import org.mineacademy.fo.exception.FoException;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+/**
+ * Compact binary encoding of synced cache data sent between servers and proxy.
+ *
+ * Unique IDs are written as two longs, sync types as varint ordinals and values
+ * through a string table so that values shared by many players, such as server
+ * names or channel lists, are only written once per packet. Large payloads are deflated.
+ *
+ * Servers and proxy only use this format after they exchanged {@link ChatControlProxyMessage#CODEC_HANDSHAKE},
+ * which servers send once each time they get players after having none,
+ * so that older versions keep receiving the legacy {@link ChatControlProxyMessage#SYNCED_CACHE_BY_UUID}.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class ProxyCodec {
+
+	/**
+	 * The codec version, increase when the format or the order of {@link SyncType} changes
+	 */
+	public static final int VERSION = 1;
+
+	/**
+	 * Payloads larger than this many bytes are deflated
+	 */
+	private static final int COMPRESSION_THRESHOLD = 512;
+
+	/**
+	 * The most bytes we inflate a payload to, protects against malformed packets
+	 */
+	private static final int MAX_INFLATED_SIZE = 16 * 1024 * 1024;
+
+	/**
+	 * Flag set when the payload body is deflated
+	 */
+	private static final int FLAG_DEFLATED = 1;
+
+	/**
+	 * Encode the given synced data, where keys of each map are player unique IDs and
+	 * values are the synced values, into a Base64 string to be sent as a plugin message
+	 *
+	 * @param data
+	 * @return
+	 */
+	public static String encodeSyncedCache(final Map<SyncType, SerializedMap> data) {
+		try {
+			final Map<String, Integer> stringIndexes = new HashMap<>();
+			final List<String> strings = new ArrayList<>();
+
+			final ByteArrayOutputStream entriesBytes = new ByteArrayOutputStream();
+			final DataOutputStream entries = new DataOutputStream(entriesBytes);
+
+			writeVarInt(entries, data.size());
+
+			for (final Map.Entry<SyncType, SerializedMap> typeEntry : data.entrySet()) {
+				final SerializedMap values = typeEntry.getValue();
+
+				writeVarInt(entries, typeEntry.getKey().ordinal());
+				writeVarInt(entries, values.size());
+
+				for (final Map.Entry<String, Object> entry : values.entrySet()) {
+					final UUID uniqueId = UUID.fromString(entry.getKey());
+					final String value = entry.getValue() == null ? "" : entry.getValue().toString();
+
+					Integer index = stringIndexes.get(value);
+
+					if (index == null) {
+						index = strings.size();
+
+						stringIndexes.put(value, index);
+						strings.add(value);
+					}
+
+					entries.writeLong(uniqueId.getMostSignificantBits());
+					entries.writeLong(uniqueId.getLeastSignificantBits());
+					writeVarInt(entries, index);
+				}
+			}
+
+			final ByteArrayOutputStream bodyBytes = new ByteArrayOutputStream();
+			final DataOutputStream body = new DataOutputStream(bodyBytes);
+
+			writeVarInt(body, strings.size());
+
+			for (final String string : strings) {
+				final byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+
+				writeVarInt(body, bytes.length);
+				body.write(bytes);
+			}
+
+			entriesBytes.writeTo(body);
+			body.flush();
+
+			final boolean deflate = bodyBytes.size() > COMPRESSION_THRESHOLD;
+			final ByteArrayOutputStream payload = new ByteArrayOutputStream(bodyBytes.size() + 2);
+
+			payload.write(VERSION);
+			payload.write(deflate ? FLAG_DEFLATED : 0);
+
+			if (deflate)
+				try (DeflaterOutputStream deflater = new DeflaterOutputStream(payload)) {
+					bodyBytes.writeTo(deflater);
+				}
+			else
+				bodyBytes.writeTo(payload);
+
+			return Base64.getEncoder().encodeToString(payload.toByteArray());
+
+		} catch (final IOException ex) {
+			throw new FoException(ex, "Failed to encode synced cache data");
+		}
+	}
+
+	/**
+	 * Decode synced data encoded by {@link #encodeSyncedCache(Map)}. Sync types unknown
+	 * to this version are skipped.
+	 *
+	 * @param encoded
+	 * @return
+	 */
+	public static Map<SyncType, SerializedMap> decodeSyncedCache(final String encoded) {
+		final byte[] payload = Base64.getDecoder().decode(encoded);
+
+		if (payload.length < 2)
+			throw new FoException("Synced cache payload too short: " + payload.length + " bytes");
+
+		final int version = payload[0];
+
+		if (version != VERSION)
+			throw new FoException("Unsupported synced cache codec version " + version + ", we support " + VERSION);
+
+		try {
+			InputStream bodyStream = new ByteArrayInputStream(payload, 2, payload.length - 2);
+
+			if ((payload[1] & FLAG_DEFLATED) != 0)
+				bodyStream = new LimitedInputStream(new InflaterInputStream(bodyStream), MAX_INFLATED_SIZE);
+
+			final DataInputStream body = new DataInputStream(bodyStream);
+			final String[] strings = new String[readVarInt(body)];
+
+			for (int i = 0; i < strings.length; i++) {
+				final byte[] bytes = new byte[readVarInt(body)];
+
+				body.readFully(bytes);
+				strings[i] = new String(bytes, StandardCharsets.UTF_8);
+			}
+
+			final SyncType[] syncTypes = SyncType.values();
+			final Map<SyncType, SerializedMap> data = new EnumMap<>(SyncType.class);
+			final int typeCount = readVarInt(body);
+
+			for (int i = 0; i < typeCount; i++) {
+				final int ordinal = readVarInt(body);
+				final int entryCount = readVarInt(body);
+				final SerializedMap values = new SerializedMap();
+
+				for (int j = 0; j < entryCount; j++) {
+					final UUID uniqueId = new UUID(body.readLong(), body.readLong());
+					final int index = readVarInt(body);
+
+					if (index >= strings.length)
+						throw new FoException("Synced cache value index " + index + " out of bounds, table has " + strings.length + " strings");
+
+					values.put(uniqueId.toString(), strings[index]);
+				}
+
+				if (ordinal < syncTypes.length)
+					data.put(syncTypes[ordinal], values);
+			}
+
+			return data;
+
+		} catch (final IOException ex) {
+			throw new FoException(ex, "Failed to decode synced cache data");
+		}
+	}
+
+	/*
+	 * Write an unsigned variable length integer, 7 bits per byte
+	 */
+	private static void writeVarInt(final DataOutputStream output, int value) throws IOException {
+		while ((value & ~0x7F) != 0) {
+			output.writeByte((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+
+		output.writeByte(value);
+	}
+
+	/*
+	 * Read an unsigned variable length integer written by writeVarInt
+	 */
+	private static int readVarInt(final DataInputStream input) throws IOException {
+		int value = 0;
+
+		for (int shift = 0; shift < 35; shift += 7) {
+			final int read = input.readUnsignedByte();
+
+			value |= (read & 0x7F) << shift;
+
+			if ((read & 0x80) == 0) {
+				if (value < 0)
+					throw new IOException("Negative varint " + value);
+
+				return value;
+			}
+		}
+
+		throw new IOException("Varint too long");
+	}
+
+	/*
+	 * Fails once more than the given amount of bytes were read
+	 */
+	private static final class LimitedInputStream extends InputStream {
+
+		private final InputStream delegate;
+		private int remaining;
+
+		private LimitedInputStream(final InputStream delegate, final int limit) {
+			this.delegate = delegate;
+			this.remaining = limit;
+		}
+
+		@Override
+		public int read() throws IOException {
+			final int read = this.delegate.read();
+
+			if (read != -1 && --this.remaining < 0)
+				throw new IOException("Inflated synced cache payload exceeds " + MAX_INFLATED_SIZE + " bytes");
+
+			return read;
+		}
+
+		@Override
+		public int read(final byte[] buffer, final int offset, final int length) throws IOException {
+			final int read = this.delegate.read(buffer, offset, length);
+
+			if (read > 0 && (this.remaining -= read) < 0)
+				throw new IOException("Inflated synced cache payload exceeds " + MAX_INFLATED_SIZE + " bytes");
+
+			return read;
+		}
+	}
+}
@@ -0,0 +1,88 @@
+package org.mineacademy.chatcontrol.model;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+import org.mineacademy.fo.exception.FoException;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+/**
+ * Packs several raw proxy packets into one {@link ChatControlProxyMessage#BATCH}
+ * payload so that bursts of small messages to the same server travel as one plugin message.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class ProxyMessageBatch {
+
+	/**
+	 * The most raw bytes of packets in one batch, Base64 makes it a third larger
+	 */
+	public static final int MAX_BATCH_SIZE = 22_000;
+
+	/**
+	 * The most packets we accept in one batch
+	 */
+	private static final int MAX_PACKETS = 4096;
+
+	/**
+	 * Encode the raw packets in order into a Base64 string
+	 *
+	 * @param packets
+	 * @return
+	 */
+	public static String encode(final List<byte[]> packets) {
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+		try (DataOutputStream output = new DataOutputStream(bytes)) {
+			output.writeShort(packets.size());
+
+			for (final byte[] packet : packets) {
+				output.writeShort(packet.length);
+				output.write(packet);
+			}
+
+		} catch (final IOException ex) {
+			throw new FoException(ex, "Failed to encode proxy message batch");
+		}
+
+		return Base64.getEncoder().encodeToString(bytes.toByteArray());
+	}
+
+	/**
+	 * Decode raw packets encoded by {@link #encode(List)} in their original order
+	 *
+	 * @param encoded
+	 * @return
+	 */
+	public static List<byte[]> decode(final String encoded) {
+		final DataInputStream input = new DataInputStream(new ByteArrayInputStream(Base64.getDecoder().decode(encoded)));
+
+		try {
+			final int count = input.readUnsignedShort();
+
+			if (count > MAX_PACKETS)
+				throw new FoException("Proxy message batch has too many packets: " + count);
+
+			final List<byte[]> packets = new ArrayList<>(count);
+
+			for (int i = 0; i < count; i++) {
+				final byte[] packet = new byte[input.readUnsignedShort()];
+
+				input.readFully(packet);
+				packets.add(packet);
+			}
+
+			return packets;
+
+		} catch (final IOException ex) {
+			throw new FoException(ex, "Failed to decode proxy message batch");
+		}
+	}
+}
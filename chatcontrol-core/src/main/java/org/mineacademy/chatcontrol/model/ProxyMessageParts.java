@@ -0,0 +1,207 @@
+package org.mineacademy.chatcontrol.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.mineacademy.fo.CommonCore;
+import org.mineacademy.fo.debug.Debugger;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * Splits proxy packets above the plugin message limit into {@link ChatControlProxyMessage#MESSAGE_PART}
+ * packets and reassembles them on the receiving side.
+ *
+ * Incomplete messages are dropped after a timeout, and the amount of buffered
+ * messages and bytes is capped so that lost parts cannot exhaust memory.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class ProxyMessageParts {
+
+	/**
+	 * The singleton instance
+	 */
+	@Getter
+	private static final ProxyMessageParts instance = new ProxyMessageParts();
+
+	/**
+	 * Packets larger than this many bytes must be split, with a safety margin under 32 766
+	 */
+	public static final int MAX_PACKET_SIZE = 32_000;
+
+	/**
+	 * How many raw bytes go into one part, Base64 makes it a third larger plus the part header
+	 */
+	private static final int PART_SIZE = 22_000;
+
+	/**
+	 * The most parts a single message can have
+	 */
+	private static final int MAX_PARTS = 256;
+
+	/**
+	 * The most bytes we buffer across all incomplete messages
+	 */
+	private static final int MAX_PENDING_BYTES = 8 * 1024 * 1024;
+
+	/**
+	 * The most incomplete messages we buffer
+	 */
+	private static final int MAX_PENDING_MESSAGES = 64;
+
+	/**
+	 * How long we wait for the remaining parts of a message
+	 */
+	private static final long TIMEOUT_MILLIS = 30_000;
+
+	/**
+	 * Incomplete messages by their ID, oldest first
+	 */
+	private final Map<UUID, PendingMessage> pending = new LinkedHashMap<>();
+
+	/**
+	 * Bytes currently buffered in incomplete messages
+	 */
+	private int pendingBytes = 0;
+
+	/**
+	 * Split the raw packet into Base64 encoded parts in order, or return an empty list
+	 * if it has more than the receiver accepts
+	 *
+	 * @param data
+	 * @return
+	 */
+	public static List<String> split(final byte[] data) {
+		final List<String> parts = new ArrayList<>();
+		final int count = (data.length + PART_SIZE - 1) / PART_SIZE;
+
+		if (count > MAX_PARTS) {
+			CommonCore.log("Outgoing proxy message was too large to split, not sending. Max length: " + (MAX_PARTS * PART_SIZE) + " bytes, got " + data.length + " bytes.");
+
+			return parts;
+		}
+
+		for (int offset = 0; offset < data.length; offset += PART_SIZE)
+			parts.add(Base64.getEncoder().encodeToString(Arrays.copyOfRange(data, offset, Math.min(data.length, offset + PART_SIZE))));
+
+		return parts;
+	}
+
+	/**
+	 * Store the given part and return the raw packet once all parts of the message arrived,
+	 * otherwise return null
+	 *
+	 * @param messageId
+	 * @param index
+	 * @param count
+	 * @param part the Base64 encoded part
+	 * @return
+	 */
+	public synchronized byte[] receive(final UUID messageId, final int index, final int count, final String part) {
+		this.removeExpired();
+
+		if (count < 1 || count > MAX_PARTS || index < 0 || index >= count) {
+			Debugger.debug("proxy", "Ignoring proxy message part " + index + "/" + count + " of " + messageId + ", invalid index");
+
+			return null;
+		}
+
+		final byte[] decoded = Base64.getDecoder().decode(part);
+		PendingMessage message = this.pending.get(messageId);
+
+		if (message == null) {
+			while (!this.pending.isEmpty() && this.pending.size() >= MAX_PENDING_MESSAGES)
+				this.removeOldest("too many incomplete messages");
+
+			message = new PendingMessage(count);
+			this.pending.put(messageId, message);
+		}
+
+		if (message.parts.length != count || message.parts[index] != null)
+			return null;
+
+		while (!this.pending.isEmpty() && this.pendingBytes + decoded.length > MAX_PENDING_BYTES)
+			if (this.removeOldest("buffer full") == messageId)
+				return null;
+
+		message.parts[index] = decoded;
+		message.received++;
+		message.size += decoded.length;
+		this.pendingBytes += decoded.length;
+
+		if (message.received < count)
+			return null;
+
+		this.pending.remove(messageId);
+		this.pendingBytes -= message.size;
+
+		final byte[] data = new byte[message.size];
+		int offset = 0;
+
+		for (final byte[] messagePart : message.parts) {
+			System.arraycopy(messagePart, 0, data, offset, messagePart.length);
+
+			offset += messagePart.length;
+		}
+
+		return data;
+	}
+
+	/*
+	 * Drop messages whose parts did not arrive in time
+	 */
+	private void removeExpired() {
+		final long now = System.currentTimeMillis();
+
+		for (final Iterator<Map.Entry<UUID, PendingMessage>> it = this.pending.entrySet().iterator(); it.hasNext();) {
+			final Map.Entry<UUID, PendingMessage> entry = it.next();
+			final PendingMessage message = entry.getValue();
+
+			if (now - message.created < TIMEOUT_MILLIS)
+				break;
+
+			Debugger.debug("proxy", "Dropping incomplete proxy message " + entry.getKey() + ", received " + message.received + "/" + message.parts.length + " parts");
+
+			this.pendingBytes -= message.size;
+			it.remove();
+		}
+	}
+
+	/*
+	 * Drop the oldest incomplete message and return its ID
+	 */
+	private UUID removeOldest(final String reason) {
+		final Iterator<Map.Entry<UUID, PendingMessage>> it = this.pending.entrySet().iterator();
+		final Map.Entry<UUID, PendingMessage> oldest = it.next();
+
+		Debugger.debug("proxy", "Dropping incomplete proxy message " + oldest.getKey() + " (" + reason + ")");
+
+		this.pendingBytes -= oldest.getValue().size;
+		it.remove();
+
+		return oldest.getKey();
+	}
+
+	/*
+	 * A message we received some parts of
+	 */
+	private static final class PendingMessage {
+
+		private final long created = System.currentTimeMillis();
+		private final byte[][] parts;
+		private int received;
+		private int size;
+
+		private PendingMessage(final int count) {
+			this.parts = new byte[count][];
+		}
+	}
+}
@@ -0,0 +1,119 @@
+package org.mineacademy.chatcontrol;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mineacademy.chatcontrol.model.SyncType;
+
+/**
+ * Stress tests for the indexes of {@link SyncedCache} under concurrent updates and removals.
+ */
+public class SyncedCacheTest {
+
+	private static final String[] SERVERS = { "lobby", "survival", "creative", "skyblock" };
+
+	private ExecutorService executor;
+
+	@BeforeEach
+	public void setUp() {
+		SyncedCache.removeDisconnectedPlayers(Collections.emptySet());
+
+		this.executor = Executors.newFixedThreadPool(8);
+	}
+
+	@AfterEach
+	public void tearDown() throws InterruptedException {
+		this.executor.shutdownNow();
+		this.executor.awaitTermination(10, TimeUnit.SECONDS);
+
+		SyncedCache.removeDisconnectedPlayers(Collections.emptySet());
+	}
+
+	/*
+	 * A player leaving while their server is synced must not stay in the server index
+	 */
+	@Test
+	public void testRemovalRacingServerUpdateLeavesNoGhost() throws Exception {
+		for (int round = 0; round < 2_000; round++) {
+			final UUID uniqueId = UUID.randomUUID();
+			final SyncedCache cache = SyncedCache.getOrCreate("Player" + round, uniqueId);
+			final String server = SERVERS[round % SERVERS.length];
+			final CyclicBarrier barrier = new CyclicBarrier(2);
+
+			final Future<?> load = this.executor.submit(() -> {
+				barrier.await();
+				cache.loadData(SyncType.SERVER, server);
+
+				return null;
+			});
+
+			final Future<?> remove = this.executor.submit(() -> {
+				barrier.await();
+				SyncedCache.removeDisconnectedPlayers(Collections.emptySet());
+
+				return null;
+			});
+
+			load.get(10, TimeUnit.SECONDS);
+			remove.get(10, TimeUnit.SECONDS);
+
+			assertFalse(SyncedCache.isPlayerConnected(uniqueId));
+			assertFalse(SyncedCache.getUniqueIdsOnServer(server).contains(uniqueId), "Ghost entry on " + server + " in round " + round);
+			assertFalse(SyncedCache.isPlayerNameConnected("Player" + round));
+		}
+
+		for (final String server : SERVERS)
+			assertTrue(SyncedCache.getUniqueIdsOnServer(server).isEmpty());
+	}
+
+	/*
+	 * Players switching servers on many threads end up indexed under their last server only
+	 */
+	@Test
+	public void testConcurrentServerSwitchesKeepIndexConsistent() throws Exception {
+		final List<SyncedCache> caches = new ArrayList<>();
+
+		for (int i = 0; i < 200; i++)
+			caches.add(SyncedCache.getOrCreate("Switcher" + i, UUID.randomUUID()));
+
+		final List<Future<?>> futures = new ArrayList<>();
+
+		for (int thread = 0; thread < 8; thread++)
+			futures.add(this.executor.submit(() -> {
+				final ThreadLocalRandom random = ThreadLocalRandom.current();
+
+				for (int i = 0; i < 20_000; i++)
+					caches.get(random.nextInt(caches.size())).loadData(SyncType.SERVER, SERVERS[random.nextInt(SERVERS.length)]);
+			}));
+
+		for (final Future<?> future : futures)
+			future.get(60, TimeUnit.SECONDS);
+
+		final Set<UUID> indexed = new HashSet<>();
+
+		for (final String server : SERVERS)
+			for (final UUID uniqueId : SyncedCache.getUniqueIdsOnServer(server)) {
+				assertTrue(indexed.add(uniqueId), uniqueId + " is indexed on more than one server");
+				assertEquals(server, SyncedCache.fromUniqueId(uniqueId).getServerName());
+			}
+
+		assertEquals(caches.size(), indexed.size());
+	}
+}
@@ -8,9 +8,13 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.mineacademy.chatcontrol.SyncedCache;
 import org.mineacademy.chatcontrol.model.ChatControlProxyMessage;
+import org.mineacademy.chatcontrol.model.ProxyCodec;
+import org.mineacademy.chatcontrol.model.ProxyMessageBatch;
+import org.mineacademy.chatcontrol.model.ProxyMessageParts;
 import org.mineacademy.chatcontrol.model.SyncType;
 import org.mineacademy.chatcontrol.proxy.settings.ProxySettings;
 import org.mineacademy.fo.CommonCore;
@@ -41,11 +45,6 @@ public final class ChatControlProxyListenerProxy extends ProxyListener {
 	@Getter
 	private final static ChatControlProxyListenerProxy instance = new ChatControlProxyListenerProxy();
 
-	/**
-	 * The pending mutes to be sent to servers once they are not empty
-	 */
-	private final Map<String, List<byte[]>> pendingMutes = new HashMap<>();
-
 	/**
 	 * The present senders UUID
 	 */
@@ -62,6 +61,22 @@ public final class ChatControlProxyListenerProxy extends ProxyListener {
 	 */
 	private final Map<SyncType, SerializedMap> clusteredData = new HashMap<>();
 
+	/**
+	 * The latest synced data of all online players, sent whole to servers which just got players
+	 * since servers only send us what changed
+	 */
+	private final Map<SyncType, SerializedMap> mergedData = new HashMap<>();
+
+	/**
+	 * Servers we sent the merged data to since they last had no players or first contacted us
+	 */
+	private final Set<String> syncedServers = ConcurrentHashMap.newKeySet();
+
+	/**
+	 * Servers which told us they read binary synced data since they last had no players
+	 */
+	private final Set<String> codecServers = ConcurrentHashMap.newKeySet();
+
 	private ChatControlProxyListenerProxy() {
 		super(ProxyConstants.CHATCONTROL_CHANNEL, ChatControlProxyMessage.class);
 	}
@@ -72,6 +87,7 @@ public final class ChatControlProxyListenerProxy extends ProxyListener {
 	public void scheduleSyncTask() {
 		Platform.runTaskTimerAsync(20, () -> {
 			synchronized (ProxyListener.DEFAULT_CHANNEL) {
+				RoutingTable.rebuildIfServersChanged();
 
 				// Upload the always reliable player list from proxy (do not compile lists given by downstream
 				final SerializedMap namesAndUniqueIds = new SerializedMap();
@@ -87,12 +103,14 @@ public final class ChatControlProxyListenerProxy extends ProxyListener {
 				// Send header first
 				final OutgoingMessage headerMessage = new OutgoingMessage(ChatControlProxyMessage.SYNCED_CACHE_HEADER);
 				headerMessage.writeMap(namesAndUniqueIds);
-				headerMessage.broadcast();
+				this.broadcast(headerMessage);
 
 				// Cleanup last, otherwise clustered data might still include past players
 				SyncedCache.removeDisconnectedPlayers(onlineUniqueIds);
 
-				// Send specific data second (we cant send everyone under one go because on large servers this is above max packet size)
+				// Send specific data second (we cant send everyone under one go in the legacy format because on large servers this is above max packet size)
+				final List<OutgoingMessage> legacyMessages = new ArrayList<>();
+
 				for (final Map.Entry<SyncType, SerializedMap> entry : this.clusteredData.entrySet()) {
 
 					final SyncType type = entry.getKey();
@@ -110,16 +128,168 @@ public final class ChatControlProxyListenerProxy extends ProxyListener {
 
 					message.writeString(type.toString());
 					message.writeMap(playerUniqueIdsAndValues);
-					message.broadcast();
+					legacyMessages.add(message);
 
 					SyncedCache.uploadClusterFromUids(type, playerUniqueIdsAndValues);
 				}
 
+				if (!this.clusteredData.isEmpty())
+					this.broadcastSyncedData(legacyMessages);
+
+				for (final Map.Entry<SyncType, SerializedMap> entry : this.clusteredData.entrySet())
+					this.mergedData.computeIfAbsent(entry.getKey(), key -> new SerializedMap()).mergeFrom(entry.getValue());
+
+				for (final SerializedMap playerUniqueIdsAndValues : this.mergedData.values())
+					playerUniqueIdsAndValues.keySet().removeIf(uniqueId -> !onlineUniqueIds.contains(UUID.fromString(uniqueId)));
+
 				this.clusteredData.clear();
+				this.sendMergedDataToNewServers();
 			}
 		});
 	}
 
+	/*
+	 * Send synced data in the binary format to servers which support it and in the legacy
+	 * format to the rest, or to everyone in the legacy format when Redis is used
+	 */
+	private void broadcastSyncedData(final List<OutgoingMessage> legacyMessages) {
+		if (Redis.isEnabled()) {
+			for (final OutgoingMessage message : legacyMessages)
+				message.broadcast();
+
+			return;
+		}
+
+		OutgoingMessage binaryMessage = null;
+
+		for (final FoundationServer server : Platform.getServers()) {
+			if (server.getPlayers().isEmpty())
+				continue;
+
+			if (this.isCodecSupported(server.getName())) {
+				if (binaryMessage == null) {
+					binaryMessage = new OutgoingMessage(ChatControlProxyMessage.SYNCED_CACHE_BINARY);
+					binaryMessage.writeString(ProxyCodec.encodeSyncedCache(this.clusteredData));
+				}
+
+				this.sendToServer(server, binaryMessage);
+
+			} else
+				for (final OutgoingMessage message : legacyMessages)
+					this.sendToServer(server, message);
+		}
+	}
+
+	/*
+	 * Send all synced data we know to servers which got players since the last time,
+	 * such as after they started, so they do not wait for the next full sync of others
+	 */
+	private void sendMergedDataToNewServers() {
+		for (final FoundationServer server : Platform.getServers()) {
+			if (server.getPlayers().isEmpty()) {
+				this.syncedServers.remove(server.getName());
+
+				// The server handshakes again once it gets players, it may have restarted on another version
+				this.codecServers.remove(server.getName());
+
+				continue;
+			}
+
+			if (!this.syncedServers.add(server.getName()) || this.mergedData.isEmpty())
+				continue;
+
+			if (this.isCodecSupported(server.getName())) {
+				final OutgoingMessage message = new OutgoingMessage(ChatControlProxyMessage.SYNCED_CACHE_BINARY);
+
+				message.writeString(ProxyCodec.encodeSyncedCache(this.mergedData));
+				this.sendToServer(server, message);
+
+			} else
+				for (final Map.Entry<SyncType, SerializedMap> entry : this.mergedData.entrySet()) {
+					final OutgoingMessage message = new OutgoingMessage(ChatControlProxyMessage.SYNCED_CACHE_BY_UUID);
+
+					message.writeString(entry.getKey().toString());
+					message.writeMap(entry.getValue());
+					this.sendToServer(server, message);
+				}
+
+			Debugger.debug("proxy", "Sent synced data of all players to '" + server.getName() + "'");
+		}
+	}
+
+	/*
+	 * Send the message to all servers with players or Redis
+	 */
+	private void broadcast(final OutgoingMessage message) {
+		if (Redis.isEnabled())
+			message.broadcast();
+
+		else
+			for (final FoundationServer server : Platform.getServers())
+				if (!server.getPlayers().isEmpty())
+					this.sendToServer(server, message);
+	}
+
+	/*
+	 * Send the message to the given server right away
+	 */
+	private void sendToServer(final FoundationServer server, final OutgoingMessage message) {
+		this.sendData(server, message.toByteArray(CommonCore.ZERO_UUID, server.getName()), false);
+	}
+
+	/*
+	 * Send the raw packet to the given server, queuing it to be sent in a batch when allowed,
+	 * or splitting it into parts when it is above the plugin message limit and the server
+	 * is able to reassemble them
+	 */
+	private void sendData(final FoundationServer server, final byte[] data, final boolean queue) {
+		final boolean codecSupported = this.isCodecSupported(server.getName());
+
+		if (queue && codecSupported && data.length <= ProxyMessageBatch.MAX_BATCH_SIZE) {
+			OutboundQueue.getInstance().offer(server, data);
+
+			return;
+		}
+
+		// Keep packets in the order they were sent
+		OutboundQueue.getInstance().flush(server);
+
+		if (data.length <= ProxyMessageParts.MAX_PACKET_SIZE) {
+			server.sendData(ProxyConstants.BUNGEECORD_CHANNEL, data);
+
+			return;
+		}
+
+		if (!codecSupported) {
+			CommonCore.log("[forwardData-listener] Outgoing proxy message was oversized and server '" + server.getName() + "' cannot reassemble parts, not sending. Max length: 32766 bytes, got " + data.length + " bytes.");
+
+			return;
+		}
+
+		final UUID messageId = UUID.randomUUID();
+		final List<String> parts = ProxyMessageParts.split(data);
+
+		for (int index = 0; index < parts.size(); index++) {
+			final OutgoingMessage part = new OutgoingMessage(ChatControlProxyMessage.MESSAGE_PART);
+
+			part.writeUUID(messageId);
+			part.writeString(String.valueOf(index));
+			part.writeString(String.valueOf(parts.size()));
+			part.writeString(parts.get(index));
+
+			server.sendData(ProxyConstants.BUNGEECORD_CHANNEL, part.toByteArray(CommonCore.ZERO_UUID, server.getName()));
+		}
+
+		Debugger.debug("proxy", "\tSplit " + data.length + " bytes into " + parts.size() + " parts for '" + server.getName() + "'");
+	}
+
+	/*
+	 * Return true if the server told us it reads binary synced data and message parts
+	 */
+	private boolean isCodecSupported(final String serverName) {
+		return this.codecServers.contains(serverName);
+	}
+
 	@Override
 	public void onMessageReceived(final IncomingMessage message) {
 		try {
@@ -134,7 +304,7 @@ public final class ChatControlProxyListenerProxy extends ProxyListener {
 
 			final ChatControlProxyMessage packet = (ChatControlProxyMessage) message.getMessage();
 
-			if (packet != ChatControlProxyMessage.SYNCED_CACHE_BY_UUID && packet != ChatControlProxyMessage.SYNCED_CACHE_HEADER)
+			if (packet != ChatControlProxyMessage.SYNCED_CACHE_BY_UUID && packet != ChatControlProxyMessage.SYNCED_CACHE_BINARY && packet != ChatControlProxyMessage.SYNCED_CACHE_HEADER)
 				Debugger.debug("proxy", "Incoming packet " + packet + " from " + this.serverAlias);
 
 			if (packet == ChatControlProxyMessage.SYNCED_CACHE_BY_UUID) {
@@ -147,6 +317,33 @@ public final class ChatControlProxyListenerProxy extends ProxyListener {
 				this.clusteredData.put(syncType, oldData);
 			}
 
+			else if (packet == ChatControlProxyMessage.SYNCED_CACHE_BINARY) {
+				for (final Map.Entry<SyncType, SerializedMap> entry : ProxyCodec.decodeSyncedCache(message.readString()).entrySet())
+					this.clusteredData.computeIfAbsent(entry.getKey(), key -> new SerializedMap()).mergeFrom(entry.getValue());
+			}
+
+			else if (packet == ChatControlProxyMessage.CODEC_HANDSHAKE) {
+				final int version = Math.min(Integer.parseInt(message.readString()), ProxyCodec.VERSION);
+
+				// First contact since the server started, send it everything we know on the next sync
+				if (!this.isCodecSupported(this.serverNameRaw))
+					this.syncedServers.remove(this.serverNameRaw);
+
+				if (version == ProxyCodec.VERSION)
+					this.codecServers.add(this.serverNameRaw);
+
+				else
+					this.codecServers.remove(this.serverNameRaw);
+
+				// Only answer the server which asked, older servers do not know this packet
+				final OutgoingMessage reply = new OutgoingMessage(ChatControlProxyMessage.CODEC_HANDSHAKE);
+				reply.writeString(String.valueOf(version));
+
+				for (final FoundationServer server : Platform.getServers())
+					if (server.getName().equals(this.serverNameRaw))
+						this.sendToServer(server, reply);
+			}
+
 			else if (packet == ChatControlProxyMessage.FORWARD_COMMAND) {
 				final String server = message.readString();
 				final String command = CompChatColor.translateColorCodes(message.readString()
@@ -182,6 +379,13 @@ public final class ChatControlProxyListenerProxy extends ProxyListener {
 					Debugger.debug("player-message", "Could not find player " + playerUniqueId + " for join message. No broadcast.");
 			}
 
+			else if (packet == ChatControlProxyMessage.MUTE) {
+				final String type = message.readString();
+				final String target = message.readString();
+
+				this.forwardData(packet, data, packet.includeSelfServer(), type + " " + target.toLowerCase());
+			}
+
 			else
 				this.forwardData(packet, data, packet.includeSelfServer());
 
@@ -201,14 +405,12 @@ public final class ChatControlProxyListenerProxy extends ProxyListener {
 	 *
 	 * @param serverName
 	 */
-	public void sendPendingMutes(String serverName) {
-		synchronized (pendingMutes) {
-			final List<byte[]> datas = pendingMutes.remove(serverName);
+	public void sendPendingMutes(final String serverName) {
+		final RoutingTable.Route route = RoutingTable.getInstance().getRoute(serverName);
 
-			if (datas != null)
-				for (final byte[] data : datas)
-					this.forwardData(ChatControlProxyMessage.MUTE, data, false);
-		}
+		if (route != null)
+			for (final byte[] data : PendingMutes.getInstance().remove(serverName))
+				this.sendData(route.getServer(), data, false);
 	}
 
 	/*
@@ -216,48 +418,51 @@ public final class ChatControlProxyListenerProxy extends ProxyListener {
 	 * or Redis
 	 */
 	private void forwardData(final ChatControlProxyMessage message, final byte[] data, final boolean forceSelf) {
-		if (data.length > 32_000) { // Safety margin
-			CommonCore.log("[forwardData-listener] Outgoing proxy message was oversized, not sending. Max length: 32766 bytes, got " + data.length + " bytes.");
+		this.forwardData(message, data, forceSelf, null);
+	}
 
-			return;
-		}
+	/*
+	 * Forward the given data with optional sender unique ID to all other servers
+	 * or Redis, storing mutes with the given key for empty servers
+	 */
+	private void forwardData(final ChatControlProxyMessage message, final byte[] data, final boolean forceSelf, final String muteKey) {
+		if (Redis.isEnabled()) {
+			if (data.length > ProxyMessageParts.MAX_PACKET_SIZE) {
+				CommonCore.log("[forwardData-listener] Outgoing proxy message was oversized, not sending over Redis. Max length: 32766 bytes, got " + data.length + " bytes.");
 
-		final String fromCluster = ProxySettings.Clusters.getFromServerName(this.serverNameRaw, this.serverAlias);
+				return;
+			}
 
-		if (Redis.isEnabled())
 			Redis.sendDataToOtherServers(this.senderUid, ProxyConstants.CHATCONTROL_CHANNEL, data);
 
-		else {
-			for (final FoundationServer iteratedServer : Platform.getServers()) {
-				final String iteratedName = iteratedServer.getName();
-				final String iteratedAlias = ProxySettings.getServerNameAlias(iteratedName);
-				final String iteratedCluster = ProxySettings.Clusters.getFromServerName(iteratedName, iteratedAlias);
+		} else {
+			final RoutingTable routingTable = RoutingTable.getInstance();
+			final boolean queue = OutboundQueue.getInstance().canQueue(message);
 
-				if (iteratedServer.getPlayers().isEmpty()) {
-					Debugger.debug("proxy", "\tDid not send to '" + iteratedName + "', the server is empty");
+			// Without forcing, we only send to servers in the same cluster
+			final RoutingTable.Route[] routes = forceSelf ? routingTable.getRoutes() : routingTable.getRoutes(routingTable.getCluster(this.serverNameRaw, this.serverAlias));
 
-					if (message == ChatControlProxyMessage.MUTE)
-						synchronized (pendingMutes) {
-							pendingMutes.computeIfAbsent(iteratedName, key -> new ArrayList<>()).add(data);
-						}
+			for (final RoutingTable.Route route : routes) {
+				final FoundationServer iteratedServer = route.getServer();
+				final String iteratedName = route.getName();
 
-					continue;
-				}
+				if (iteratedServer.getPlayers().isEmpty()) {
+					Debugger.debug("proxy", "\tDid not send to '" + iteratedName + "', the server is empty");
 
-				if (!forceSelf && !iteratedCluster.equals(fromCluster)) {
-					Debugger.debug("proxy", "\tDid not send to '" + iteratedName + "', the server has different cluster (" + iteratedCluster + " != " + fromCluster + ")");
+					if (muteKey != null)
+						PendingMutes.getInstance().put(iteratedName, muteKey, data);
 
 					continue;
 				}
 
-				if (!forceSelf && iteratedServer.getName().equals(this.serverNameRaw)) {
+				if (!forceSelf && iteratedName.equals(this.serverNameRaw)) {
 					Debugger.debug("proxy", "\tDid not send to '" + iteratedName + "', the server equals sender");
 
 					continue;
 				}
 
 				Debugger.debug("proxy", "\tForwarded to '" + iteratedName + "'");
-				iteratedServer.sendData(ProxyConstants.BUNGEECORD_CHANNEL, data);
+				this.sendData(iteratedServer, data, queue);
 			}
 		}
 	}
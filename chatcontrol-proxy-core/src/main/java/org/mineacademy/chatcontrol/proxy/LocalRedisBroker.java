@@ -0,0 +1,56 @@
+package org.mineacademy.chatcontrol.proxy;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BiConsumer;
+
+import org.mineacademy.fo.platform.Platform;
+
+/**
+ * An in-process stand-in for RedisBungee pub/sub which delivers published messages
+ * to every subscriber in this JVM, so the multi-proxy path can run without a Redis server.
+ *
+ * Install it with {@link Redis#setBroker(RedisBroker)} and subscribe
+ * {@link Redis#handleMessage(String, String)} along with any simulated proxies.
+ */
+public final class LocalRedisBroker implements RedisBroker {
+
+	/**
+	 * Names of the simulated proxies
+	 */
+	private final List<String> proxies = new CopyOnWriteArrayList<>();
+
+	/**
+	 * Receivers of published messages by channel and message
+	 */
+	private final List<BiConsumer<String, String>> subscribers = new CopyOnWriteArrayList<>();
+
+	/**
+	 * Register a simulated proxy and its message handler
+	 *
+	 * @param proxyName
+	 * @param subscriber
+	 */
+	public void subscribe(final String proxyName, final BiConsumer<String, String> subscriber) {
+		this.proxies.add(proxyName);
+		this.subscribers.add(subscriber);
+	}
+
+	@Override
+	public Collection<String> getProxies() {
+		return new ArrayList<>(this.proxies);
+	}
+
+	@Override
+	public void publish(final String channel, final String message) {
+		for (final BiConsumer<String, String> subscriber : this.subscribers)
+			subscriber.accept(channel, message);
+	}
+
+	@Override
+	public void dispatchCommand(final String command) {
+		Platform.dispatchConsoleCommand(null, command);
+	}
+}
@@ -0,0 +1,193 @@
+package org.mineacademy.chatcontrol.proxy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.mineacademy.chatcontrol.model.ChatControlProxyMessage;
+import org.mineacademy.chatcontrol.model.ProxyMessageBatch;
+import org.mineacademy.chatcontrol.proxy.settings.ProxySettings;
+import org.mineacademy.fo.CommonCore;
+import org.mineacademy.fo.debug.Debugger;
+import org.mineacademy.fo.platform.FoundationServer;
+import org.mineacademy.fo.proxy.message.OutgoingMessage;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * Coalesces packets forwarded to the same server within a short window into
+ * one {@link ChatControlProxyMessage#BATCH} so that chat bursts do not produce
+ * thousands of tiny plugin messages.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class OutboundQueue {
+
+	/**
+	 * The singleton of this class
+	 */
+	@Getter
+	private static final OutboundQueue instance = new OutboundQueue();
+
+	/**
+	 * Flushes queues once their window passes
+	 */
+	private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+		final Thread thread = new Thread(runnable, "ChatControl Outbound Queue");
+
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	/**
+	 * Pending packets by server name
+	 */
+	private final Map<String, ServerQueue> queues = new ConcurrentHashMap<>();
+
+	/**
+	 * How many packets are waiting in all queues
+	 */
+	private final AtomicInteger queueDepth = new AtomicInteger();
+
+	/**
+	 * The most packets that waited in all queues at once since the last report
+	 */
+	private final AtomicInteger maxQueueDepth = new AtomicInteger();
+
+	/**
+	 * How many plugin messages we sent when flushing queues
+	 */
+	private final LongAdder batchesSent = new LongAdder();
+
+	/**
+	 * How many packets went through queues
+	 */
+	private final LongAdder packetsSent = new LongAdder();
+
+	/**
+	 * Start reporting queue statistics to the "proxy" debug section
+	 */
+	public void scheduleReport() {
+		this.scheduler.scheduleAtFixedRate(() -> {
+			final long batches = this.batchesSent.sumThenReset();
+			final long packets = this.packetsSent.sumThenReset();
+			final int maxDepth = this.maxQueueDepth.getAndSet(this.queueDepth.get());
+
+			if (batches > 0)
+				Debugger.debug("proxy", "Outbound queue sent " + packets + " packets in " + batches + " plugin messages (" + String.format("%.2f", packets / (double) batches) + " per batch) in the last minute, queue depth " + this.queueDepth.get() + ", max " + maxDepth);
+
+		}, 1, 1, TimeUnit.MINUTES);
+	}
+
+	/**
+	 * Return true if the given packet type may wait in the queue
+	 *
+	 * @param message
+	 * @return
+	 */
+	public boolean canQueue(final ChatControlProxyMessage message) {
+		return ProxySettings.Batching.ENABLED && !ProxySettings.Batching.BYPASS.contains(message);
+	}
+
+	/**
+	 * Add the raw packet to the queue of the given server, flushing it first
+	 * if the packet would not fit into the batch
+	 *
+	 * @param server
+	 * @param data
+	 */
+	public void offer(final FoundationServer server, final byte[] data) {
+		final ServerQueue queue = this.queues.computeIfAbsent(server.getName(), name -> new ServerQueue());
+
+		synchronized (queue) {
+			if (queue.size + data.length > ProxyMessageBatch.MAX_BATCH_SIZE)
+				this.flush(server, queue);
+
+			queue.server = server;
+			queue.packets.add(data);
+			queue.size += data.length;
+
+			this.maxQueueDepth.accumulateAndGet(this.queueDepth.incrementAndGet(), Math::max);
+
+			if (!queue.scheduled) {
+				queue.scheduled = true;
+
+				this.scheduler.schedule(() -> {
+					synchronized (queue) {
+						queue.scheduled = false;
+
+						this.flush(queue.server, queue);
+					}
+				}, ProxySettings.Batching.WINDOW_MS, TimeUnit.MILLISECONDS);
+			}
+		}
+	}
+
+	/**
+	 * Send everything queued for the given server right away, call before sending
+	 * packets which bypass the queue to keep their order
+	 *
+	 * @param server
+	 */
+	public void flush(final FoundationServer server) {
+		final ServerQueue queue = this.queues.get(server.getName());
+
+		if (queue != null)
+			synchronized (queue) {
+				this.flush(server, queue);
+			}
+	}
+
+	/**
+	 * Return how many packets are waiting in all queues
+	 *
+	 * @return
+	 */
+	public int getQueueDepth() {
+		return this.queueDepth.get();
+	}
+
+	/*
+	 * Send queued packets as one batch, or as is when only one is queued
+	 */
+	private void flush(final FoundationServer server, final ServerQueue queue) {
+		final List<byte[]> packets = queue.packets;
+
+		if (packets.isEmpty())
+			return;
+
+		queue.packets = new ArrayList<>();
+		queue.size = 0;
+
+		this.queueDepth.addAndGet(-packets.size());
+		this.batchesSent.increment();
+		this.packetsSent.add(packets.size());
+
+		if (packets.size() == 1)
+			server.sendData(ProxyConstants.BUNGEECORD_CHANNEL, packets.get(0));
+
+		else {
+			final OutgoingMessage batch = new OutgoingMessage(ChatControlProxyMessage.BATCH);
+			batch.writeString(ProxyMessageBatch.encode(packets));
+
+			server.sendData(ProxyConstants.BUNGEECORD_CHANNEL, batch.toByteArray(CommonCore.ZERO_UUID, server.getName()));
+		}
+	}
+
+	/*
+	 * Packets waiting to be sent to one server
+	 */
+	private static final class ServerQueue {
+		private FoundationServer server;
+		private List<byte[]> packets = new ArrayList<>();
+		private int size;
+		private boolean scheduled;
+	}
+}
@@ -0,0 +1,171 @@
+package org.mineacademy.chatcontrol.proxy;
+
+import java.io.File;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.mineacademy.chatcontrol.proxy.settings.ProxySettings;
+import org.mineacademy.fo.CommonCore;
+import org.mineacademy.fo.FileUtil;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * Stores mute packets for servers which had no players to receive them,
+ * keeping only the latest packet for each muted player, channel or server.
+ *
+ * When enabled, changes are appended to a file that is replayed and compacted
+ * on startup so pending mutes survive proxy restarts.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class PendingMutes {
+
+	/**
+	 * The singleton of this class
+	 */
+	@Getter
+	private static final PendingMutes instance = new PendingMutes();
+
+	/**
+	 * The append-only file in the plugin folder
+	 */
+	private static final String FILE = "pending-mutes.log";
+
+	/**
+	 * Separates fields on a line, never part of server names, mute keys or Base64
+	 */
+	private static final String SEPARATOR = "\t";
+
+	/**
+	 * Latest mute packet by mute type and target, oldest first, by server name
+	 */
+	private final Map<String, LinkedHashMap<String, byte[]>> mutes = new HashMap<>();
+
+	/**
+	 * How many lines the file has, used to know when to compact it
+	 */
+	private int fileLines = 0;
+
+	/**
+	 * Load pending mutes from the file and rewrite it with only the current ones
+	 */
+	public synchronized void load() {
+		this.mutes.clear();
+
+		if (!ProxySettings.PendingMutes.PERSIST)
+			return;
+
+		final File file = FileUtil.createIfNotExists(FILE);
+
+		for (final String line : FileUtil.readLinesFromFile(file)) {
+			final String[] parts = line.split(SEPARATOR, -1);
+
+			try {
+				if (parts.length == 1)
+					this.mutes.remove(parts[0]);
+
+				else if (parts.length == 3)
+					this.putInMemory(parts[0], parts[1], Base64.getDecoder().decode(parts[2]));
+
+			} catch (final IllegalArgumentException ex) {
+				CommonCore.log("Skipping malformed line in " + FILE + ": " + line);
+			}
+		}
+
+		this.compact();
+	}
+
+	/**
+	 * Store the mute packet for the given server, replacing the previous one for the same target
+	 *
+	 * @param serverName
+	 * @param key the mute type and target
+	 * @param data the raw packet
+	 */
+	public synchronized void put(final String serverName, final String key, final byte[] data) {
+		this.putInMemory(serverName, key, data);
+
+		if (ProxySettings.PendingMutes.PERSIST)
+			this.append(serverName + SEPARATOR + key + SEPARATOR + Base64.getEncoder().encodeToString(data));
+	}
+
+	/**
+	 * Remove and return pending mute packets for the given server in the order they were made
+	 *
+	 * @param serverName
+	 * @return
+	 */
+	public synchronized Collection<byte[]> remove(final String serverName) {
+		final Map<String, byte[]> serverMutes = this.mutes.remove(serverName);
+
+		if (serverMutes == null)
+			return new ArrayList<>();
+
+		if (ProxySettings.PendingMutes.PERSIST)
+			this.append(serverName);
+
+		return serverMutes.values();
+	}
+
+	/*
+	 * Store the packet and forget the oldest ones above the limit
+	 */
+	private void putInMemory(final String serverName, final String key, final byte[] data) {
+		final LinkedHashMap<String, byte[]> serverMutes = this.mutes.computeIfAbsent(serverName, name -> new LinkedHashMap<>());
+
+		// Move to the end so the oldest target is first
+		serverMutes.remove(key);
+		serverMutes.put(key, data);
+
+		for (final Iterator<String> it = serverMutes.keySet().iterator(); serverMutes.size() > ProxySettings.PendingMutes.LIMIT && it.hasNext();) {
+			it.next();
+			it.remove();
+		}
+	}
+
+	/*
+	 * Append a line to the file, compacting it when mostly made of replaced entries
+	 */
+	private void append(final String line) {
+		FileUtil.write(FileUtil.createIfNotExists(FILE), Arrays.asList(line), StandardOpenOption.APPEND);
+
+		if (++this.fileLines > 100 + 2 * this.countMutes())
+			this.compact();
+	}
+
+	/*
+	 * Rewrite the file with only the current pending mutes
+	 */
+	private void compact() {
+		final List<String> lines = new ArrayList<>();
+
+		for (final Map.Entry<String, LinkedHashMap<String, byte[]>> serverEntry : this.mutes.entrySet())
+			for (final Map.Entry<String, byte[]> entry : serverEntry.getValue().entrySet())
+				lines.add(serverEntry.getKey() + SEPARATOR + entry.getKey() + SEPARATOR + Base64.getEncoder().encodeToString(entry.getValue()));
+
+		FileUtil.write(FileUtil.createIfNotExists(FILE), lines, StandardOpenOption.TRUNCATE_EXISTING);
+		this.fileLines = lines.size();
+	}
+
+	/*
+	 * Return how many pending mutes we have for all servers
+	 */
+	private int countMutes() {
+		int count = 0;
+
+		for (final Map<String, byte[]> serverMutes : this.mutes.values())
+			count += serverMutes.size();
+
+		return count;
+	}
+}
@@ -1,10 +1,12 @@
 package org.mineacademy.chatcontrol.proxy;
 
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Base64;
 import java.util.Collection;
 import java.util.UUID;
 
+import org.mineacademy.chatcontrol.proxy.settings.ProxySettings;
 import org.mineacademy.fo.CommonCore;
 import org.mineacademy.fo.debug.Debugger;
 import org.mineacademy.fo.model.SimpleComponent;
@@ -33,6 +35,12 @@ public final class Redis {
 	@Setter
 	private static boolean enabled = false;
 
+	/**
+	 * The broker we publish through, RedisBungee unless replaced with {@link LocalRedisBroker}
+	 */
+	@Setter
+	private static RedisBroker broker;
+
 	/**
 	 * Listen to plugin messages across network
 	 *
@@ -40,123 +48,120 @@ public final class Redis {
 	 */
 	public static void handlePubSubMessage(final IPubSubMessageEvent event) {
 		if (enabled)
-			Hook.handlePubSubMessage(event);
-	}
-
-	/**
-	 * Returns all servers found from all players connected on the Redis network
-	 *
-	 * @return
-	 */
-	public static Collection<String> getServers() {
-		return enabled ? Hook.getServers() : new ArrayList<>();
+			handleMessage(event.getChannel(), event.getMessage());
 	}
 
 	/**
-	 * Sends a raw plugin message data to the whole Redis network
+	 * Handle a message received from the broker on the given channel
 	 *
-	 * @param uuid
 	 * @param channel
-	 * @param data
+	 * @param message
 	 */
-	public static void sendDataToOtherServers(final UUID uuid, final String channel, final byte[] data) {
-		if (enabled)
-			Hook.sendDataToOtherServers(uuid, channel, data);
-	}
+	public static void handleMessage(final String channel, final String message) {
+		if (!channel.equals(ProxyConstants.REDIS_CHANNEL))
+			return;
 
-	/**
-	 * Executes the given command across Redis network
-	 *
-	 * @param command
-	 */
-	public static void dispatchCommand(final String command) {
-		if (enabled)
-			Hook.dispatchCommand(command);
-	}
-}
+		try {
+			final String[] data = message.split(":", 4);
 
-final class Hook {
+			Debugger.debug("redis", "Received redis message " + data[0] + " (" + message.length() + " chars)");
 
-	private static final AbstractRedisBungeeAPI redisAPI = AbstractRedisBungeeAPI.getAbstractRedisBungeeAPI();
+			if (data.length == 4 && data[0].equals("SEND_SB")) {
+				final UUID playerId = UUID.fromString(data[1]);
 
-	public static void handlePubSubMessage(final IPubSubMessageEvent event) {
-		if (event.getChannel().equals(ProxyConstants.REDIS_CHANNEL)) {
-			Debugger.debug("redis", "Received redis message: " + event.getMessage());
-
-			try {
-				final String[] data = event.getMessage().split(":", 4);
-
-				if (data.length == 4 && data[0].equals("SEND_SB")) {
-					final UUID playerId = UUID.fromString(data[1]);
-
-					// is this player on this proxy?
-					final FoundationPlayer player = Platform.getPlayer(playerId);
+				// is this player on this proxy?
+				final FoundationPlayer player = Platform.getPlayer(playerId);
 
-					if (player != null && player.getServer() != null) {
+				if (player != null && player.getServer() != null) {
 
-						// re-encode the message
-						final byte[] byteOutput = decapsulate(data[3]);
+					// re-encode the message
+					final byte[] byteOutput = decapsulate(data[3]);
 
-						player.getServer().sendData(ProxyConstants.REDIS_CHANNEL, byteOutput);
-					}
+					player.getServer().sendData(ProxyConstants.REDIS_CHANNEL, byteOutput);
+				}
 
-				} else if (data.length == 4 && data[0].equals("SEND_OB")) {
+			} else if (data.length == 4 && (data[0].equals("SEND_OB") || data[0].equals("SEND_OL"))) {
 
-					// send to servers that player is not on
-					final UUID playerId = UUID.fromString(data[1]);
+				// send to servers that player is not on, looking up his server from the proxy instead of scanning players
+				final FoundationPlayer player = Platform.getPlayer(UUID.fromString(data[1]));
+				final FoundationServer playerServer = player != null ? player.getServer() : null;
+				final byte[] byteOutput = data[0].equals("SEND_OL") ? data[3].getBytes(StandardCharsets.ISO_8859_1) : decapsulate(data[3]);
 
-					for (final FoundationServer otherServer : Platform.getServers()) {
-						boolean allow = false;
+				for (final RoutingTable.Route route : RoutingTable.getInstance().getRoutes()) {
+					final FoundationServer otherServer = route.getServer();
 
-						for (final FoundationPlayer otherPlayer : otherServer.getPlayers()) {
-							if (otherPlayer.getUniqueId().equals(playerId)) {
-								allow = false;
+					if ((playerServer == null || !route.getName().equals(playerServer.getName())) && !otherServer.getPlayers().isEmpty()) {
+						Debugger.debug("redis", "Sending data to " + route.getName());
 
-								break;
-							}
+						otherServer.sendData(ProxyConstants.BUNGEECORD_CHANNEL, byteOutput);
 
-							allow = true;
-						}
+					} else
+						Debugger.debug("redis", "Not sending to " + route.getName());
+				}
 
-						if (allow) {
-							Debugger.debug("redis", "Sending data to " + otherServer.getName());
-							final byte[] byteOutput = decapsulate(data[3]);
+			} else if (data.length == 4 && data[0].equals("SEND_M")) {
+				final UUID playerId = UUID.fromString(data[1]);
 
-							otherServer.sendData(ProxyConstants.BUNGEECORD_CHANNEL, byteOutput);
+				// is this player on this proxy?
+				final FoundationPlayer player = Platform.getPlayer(playerId);
 
-						} else
-							Debugger.debug("redis", "Not sending to " + otherServer.getName());
-					}
+				if (player != null)
+					player.sendMessage(SimpleComponent.fromSection(data[3]));
 
-				} else if (data.length == 4 && data[0].equals("SEND_M")) {
-					final UUID playerId = UUID.fromString(data[1]);
+			} else
+				CommonCore.log("Received invalid Redis message: " + message);
 
-					// is this player on this proxy?
-					final FoundationPlayer player = Platform.getPlayer(playerId);
+		} catch (final Throwable throwable) {
+			CommonCore.error(throwable, "Error processing Redis message");
+		}
+	}
 
-					if (player != null)
-						player.sendMessage(SimpleComponent.fromSection(data[3]));
+	/**
+	 * Returns all servers found from all players connected on the Redis network
+	 *
+	 * @return
+	 */
+	public static Collection<String> getServers() {
+		return enabled ? getBroker().getProxies() : new ArrayList<>();
+	}
 
-				} else
-					CommonCore.log("Received invalid Redis message: " + event.getMessage());
+	/**
+	 * Sends a raw plugin message data to the whole Redis network
+	 *
+	 * @param uuid
+	 * @param channel
+	 * @param data
+	 */
+	public static void sendDataToOtherServers(final UUID uuid, final String channel, final byte[] data) {
+		if (enabled) {
 
-			} catch (final Throwable throwable) {
-				CommonCore.error(throwable, "Error processing Redis message");
-			}
+			// Every byte maps to one char, which Redis carries as one or two UTF-8 bytes,
+			// mostly ASCII packets thus travel almost unchanged unlike with Base64
+			final boolean binary = ProxySettings.REDIS_BINARY_TRANSPORT;
+			final String payload = binary ? new String(data, StandardCharsets.ISO_8859_1) : encapsulate(data);
 
+			getBroker().publish(ProxyConstants.REDIS_CHANNEL, (binary ? "SEND_OL:" : "SEND_OB:") + uuid.toString() + ":" + channel.replace("\\", "\\\\").replace(":", " \\;") + ":" + payload);
 		}
 	}
 
-	public static Collection<String> getServers() {
-		return redisAPI.getAllProxies();
+	/**
+	 * Executes the given command across Redis network
+	 *
+	 * @param command
+	 */
+	public static void dispatchCommand(final String command) {
+		if (enabled)
+			getBroker().dispatchCommand(command);
 	}
 
-	public static void sendDataToOtherServers(final UUID uuid, final String channel, final byte[] data) {
-		redisAPI.sendChannelMessage(ProxyConstants.REDIS_CHANNEL, "SEND_OB:" + uuid.toString() + ":" + channel.replace("\\", "\\\\").replace(":", " \\;") + ":" + encapsulate(data));
-	}
+	/*
+	 * Return the broker, connecting to RedisBungee the first time
+	 */
+	private static RedisBroker getBroker() {
+		if (broker == null)
+			broker = new Hook();
 
-	static void dispatchCommand(final String command) {
-		redisAPI.sendProxyCommand(command);
+		return broker;
 	}
 
 	/*
@@ -172,4 +177,24 @@ final class Hook {
 	private static byte[] decapsulate(final String data) {
 		return Base64.getDecoder().decode(data);
 	}
-}
\ No newline at end of file
+}
+
+final class Hook implements RedisBroker {
+
+	private final AbstractRedisBungeeAPI redisAPI = AbstractRedisBungeeAPI.getAbstractRedisBungeeAPI();
+
+	@Override
+	public Collection<String> getProxies() {
+		return this.redisAPI.getAllProxies();
+	}
+
+	@Override
+	public void publish(final String channel, final String message) {
+		this.redisAPI.sendChannelMessage(channel, message);
+	}
+
+	@Override
+	public void dispatchCommand(final String command) {
+		this.redisAPI.sendProxyCommand(command);
+	}
+}
@@ -0,0 +1,31 @@
+package org.mineacademy.chatcontrol.proxy;
+
+import java.util.Collection;
+
+/**
+ * Represents the pub/sub network connecting proxies when Redis is enabled
+ */
+public interface RedisBroker {
+
+	/**
+	 * Return names of all proxies on the network
+	 *
+	 * @return
+	 */
+	Collection<String> getProxies();
+
+	/**
+	 * Publish the message to all proxies, including this one
+	 *
+	 * @param channel
+	 * @param message
+	 */
+	void publish(String channel, String message);
+
+	/**
+	 * Run the command on all proxies
+	 *
+	 * @param command
+	 */
+	void dispatchCommand(String command);
+}
@@ -0,0 +1,171 @@
+package org.mineacademy.chatcontrol.proxy;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.mineacademy.chatcontrol.proxy.settings.ProxySettings;
+import org.mineacademy.fo.platform.FoundationServer;
+import org.mineacademy.fo.platform.Platform;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * An immutable snapshot of backend servers with their aliases and clusters,
+ * so that forwarding a packet does not resolve aliases and clusters for every server.
+ *
+ * Rebuilt when settings are reloaded and when servers are registered or unregistered.
+ */
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+public final class RoutingTable {
+
+	/**
+	 * The current table
+	 */
+	@Getter
+	private static volatile RoutingTable instance = new RoutingTable(new Route[0], new HashMap<>(), new HashMap<>());
+
+	/**
+	 * All servers
+	 */
+	private final Route[] routes;
+
+	/**
+	 * Servers by their name
+	 */
+	private final Map<String, Route> routesByName;
+
+	/**
+	 * Servers by their cluster
+	 */
+	private final Map<String, Route[]> routesByCluster;
+
+	/**
+	 * Return all servers
+	 *
+	 * @return
+	 */
+	public Route[] getRoutes() {
+		return this.routes;
+	}
+
+	/**
+	 * Return servers in the given cluster
+	 *
+	 * @param cluster
+	 * @return
+	 */
+	public Route[] getRoutes(final String cluster) {
+		return this.routesByCluster.getOrDefault(cluster, new Route[0]);
+	}
+
+	/**
+	 * Return the given server or null if it is not registered
+	 *
+	 * @param serverName
+	 * @return
+	 */
+	public Route getRoute(final String serverName) {
+		return this.routesByName.get(serverName);
+	}
+
+	/**
+	 * Return the cluster of the given server, resolving it from settings
+	 * if the server is not in this table
+	 *
+	 * @param serverName
+	 * @param serverAlias
+	 * @return
+	 */
+	public String getCluster(final String serverName, final String serverAlias) {
+		final Route route = this.routesByName.get(serverName);
+
+		return route != null ? route.getCluster() : ProxySettings.Clusters.getFromServerName(serverName, serverAlias);
+	}
+
+	/**
+	 * Rebuild the table from registered servers and current settings
+	 */
+	public static void rebuild() {
+		final Collection<? extends FoundationServer> servers = Platform.getServers();
+
+		final Route[] routes = new Route[servers.size()];
+		final Map<String, Route> routesByName = new HashMap<>();
+		final Map<String, List<Route>> clusterRoutes = new HashMap<>();
+
+		int index = 0;
+
+		for (final FoundationServer server : servers) {
+			final String name = server.getName();
+			final String alias = ProxySettings.getServerNameAlias(name);
+			final Route route = new Route(server, name, alias, ProxySettings.Clusters.getFromServerName(name, alias));
+
+			routes[index++] = route;
+			routesByName.put(name, route);
+			clusterRoutes.computeIfAbsent(route.getCluster(), key -> new ArrayList<>()).add(route);
+		}
+
+		final Map<String, Route[]> routesByCluster = new HashMap<>();
+
+		for (final Map.Entry<String, List<Route>> entry : clusterRoutes.entrySet())
+			routesByCluster.put(entry.getKey(), entry.getValue().toArray(new Route[0]));
+
+		instance = new RoutingTable(routes, routesByName, routesByCluster);
+	}
+
+	/**
+	 * Rebuild the table if a server was registered or unregistered since it was built,
+	 * including when a server was registered again under the same name
+	 */
+	public static void rebuildIfServersChanged() {
+		final Collection<? extends FoundationServer> servers = Platform.getServers();
+		final RoutingTable table = instance;
+		boolean changed = servers.size() != table.routes.length;
+
+		if (!changed)
+			for (final FoundationServer server : servers) {
+				final Route route = table.routesByName.get(server.getName());
+
+				if (route == null || !route.getServer().equals(server)) {
+					changed = true;
+
+					break;
+				}
+			}
+
+		if (changed)
+			rebuild();
+	}
+
+	/**
+	 * A single backend server
+	 */
+	@Getter
+	@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+	public static final class Route {
+
+		/**
+		 * The server
+		 */
+		private final FoundationServer server;
+
+		/**
+		 * The server name
+		 */
+		private final String name;
+
+		/**
+		 * The server alias from settings
+		 */
+		private final String alias;
+
+		/**
+		 * The cluster from settings
+		 */
+		private final String cluster;
+	}
+}
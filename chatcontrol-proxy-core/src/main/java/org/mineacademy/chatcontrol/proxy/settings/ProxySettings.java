@@ -9,6 +9,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+import org.mineacademy.chatcontrol.model.ChatControlProxyMessage;
 import org.mineacademy.chatcontrol.model.PlayerMessageType;
 import org.mineacademy.fo.CommonCore;
 import org.mineacademy.fo.FileUtil;
@@ -116,6 +117,40 @@ public final class ProxySettings extends SimpleSettings {
 		}
 	}
 
+	/**
+	 * Coalescing packets sent to the same server
+	 */
+	public static class Batching {
+
+		public static Boolean ENABLED;
+		public static Integer WINDOW_MS;
+		public static Set<ChatControlProxyMessage> BYPASS;
+
+		private static void init() {
+			setPathPrefix("Batching");
+
+			ENABLED = getBoolean("Enabled");
+			WINDOW_MS = getInteger("Window_Ms");
+			BYPASS = new HashSet<>(getList("Bypass", ChatControlProxyMessage.class));
+		}
+	}
+
+	/**
+	 * Mutes waiting for empty servers
+	 */
+	public static class PendingMutes {
+
+		public static Integer LIMIT;
+		public static Boolean PERSIST;
+
+		private static void init() {
+			setPathPrefix("Pending_Mutes");
+
+			LIMIT = getInteger("Limit");
+			PERSIST = getBoolean("Persist");
+		}
+	}
+
 	/**
 	 * Relay chat
 	 */
@@ -190,6 +225,7 @@ public final class ProxySettings extends SimpleSettings {
 	public static Boolean ENABLE_FORWARD_COMMAND;
 	public static Boolean MAKE_CHAT_LINKS_CLICKABLE;
 	public static Boolean REDIS_INTEGRATION;
+	public static Boolean REDIS_BINARY_TRANSPORT;
 	private static Map<String, String> SERVER_ALIASES;
 
 	/**
@@ -206,6 +242,7 @@ public final class ProxySettings extends SimpleSettings {
 		ENABLE_FORWARD_COMMAND = getBoolean("Enable_Forward_Command");
 		MAKE_CHAT_LINKS_CLICKABLE = getBoolean("Make_Chat_Links_Clickable");
 		REDIS_INTEGRATION = getBoolean("Redis_Integration");
+		REDIS_BINARY_TRANSPORT = getBoolean("Redis_Binary_Transport");
 		SERVER_ALIASES = getMap("Server_Aliases", String.class, String.class);
 
 		// Warn about a "bug" in Velocity
@@ -7,6 +7,9 @@ import java.util.List;
 
 import org.mineacademy.chatcontrol.SyncedCache;
 import org.mineacademy.chatcontrol.proxy.ChatControlProxyListenerProxy;
+import org.mineacademy.chatcontrol.proxy.OutboundQueue;
+import org.mineacademy.chatcontrol.proxy.PendingMutes;
+import org.mineacademy.chatcontrol.proxy.RoutingTable;
 import org.mineacademy.chatcontrol.proxy.ProxyEvents;
 import org.mineacademy.chatcontrol.proxy.Redis;
 import org.mineacademy.chatcontrol.proxy.operator.ProxyPlayerMessages;
@@ -75,12 +78,15 @@ public final class VelocityControl extends VelocityPlugin {
 		this.registerCommand(new ReloadCommand("vcreload", "chatcontrol.command.reload"));
 
 		ChatControlProxyListenerProxy.getInstance().scheduleSyncTask();
+		OutboundQueue.getInstance().scheduleReport();
+		PendingMutes.getInstance().load();
 
 		this.onPluginReload();
 	}
 
 	@Override
 	protected void onPluginReload() {
+		RoutingTable.rebuild();
 		ProxyPlayerMessages.getInstance().load();
 	}
 }